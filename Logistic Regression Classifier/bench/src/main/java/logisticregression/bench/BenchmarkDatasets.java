@@ -0,0 +1,77 @@
+package logisticregression.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Data sets the benchmarks run over. A data set is either "a5a", read from the data directory, or
+ * "synthetic-records-features-density", which is generated once into the temporary directory and reused.
+ * The data directory is ../data by default, so that the benchmarks can be run from the bench folder, and can be
+ * changed with -Dbenchmark.dataDirectory=path.
+ */
+public class BenchmarkDatasets {
+	
+	public static final String A5A = "a5a", SYNTHETIC_PREFIX = "synthetic-";
+	public static final String DATA_DIRECTORY_PROPERTY = "benchmark.dataDirectory", DEFAULT_DATA_DIRECTORY = "../data";
+	
+	//Increasing size and sparsity with about 50 non zero features in each record
+	public static final String SMALL_SYNTHETIC = "synthetic-10000-1000-0.05", MEDIUM_SYNTHETIC = "synthetic-100000-10000-0.005", LARGE_SYNTHETIC = "synthetic-1000000-100000-0.0005";
+	
+	private static final long TRAINING_DATA_SEED = 1, TESTING_DATA_SEED = 2;
+	
+	/**
+	 * @param dataset
+	 * @return path of the training data file, generating it if needed
+	 * @throws IOException
+	 */
+	public static String getTrainingDataFilePath(String dataset) throws IOException {
+		return getDataFilePath(dataset, "train", TRAINING_DATA_SEED);
+	}
+	
+	/**
+	 * @param dataset
+	 * @return path of the testing data file, generating it if needed
+	 * @throws IOException
+	 */
+	public static String getTestingDataFilePath(String dataset) throws IOException {
+		return getDataFilePath(dataset, "test", TESTING_DATA_SEED);
+	}
+	
+	/**
+	 * @param dataset
+	 * @param extension
+	 * @param randomSeed
+	 * @return path of the data file
+	 * @throws IOException
+	 */
+	private static String getDataFilePath(String dataset, String extension, long randomSeed) throws IOException {
+		
+		if (A5A.equals(dataset)) {
+			return new File(System.getProperty(DATA_DIRECTORY_PROPERTY, DEFAULT_DATA_DIRECTORY), A5A + "." + extension).getPath();
+		}
+		
+		if (!dataset.startsWith(SYNTHETIC_PREFIX)) {
+			throw new IllegalArgumentException("Unknown data set " + dataset);
+		}
+		
+		String[] dimensions = dataset.substring(SYNTHETIC_PREFIX.length()).split("-");
+		if (dimensions.length != 3) {
+			throw new IllegalArgumentException("Synthetic data set should be named synthetic-records-features-density: " + dataset);
+		}
+		
+		File dataFile = new File(System.getProperty("java.io.tmpdir"), "logisticregression-" + dataset + "." + extension);
+		if (!dataFile.isFile()) {
+			
+			//Write to a temporary file first so that an interrupted run does not leave a partial data set behind
+			File partialDataFile = new File(dataFile.getPath() + ".partial");
+			SyntheticDataGenerator.generate(partialDataFile.getPath(), Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]), Double.parseDouble(dimensions[2]), randomSeed);
+			if (!partialDataFile.renameTo(dataFile)) {
+				throw new IOException("Could not rename " + partialDataFile + " to " + dataFile);
+			}
+		}
+		
+		return dataFile.getPath();
+		
+	}
+	
+}
@@ -0,0 +1,92 @@
+package logisticregression.bench;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.BinaryDataLabel;
+import logisticregression.core.ClassifierMetrics;
+import logisticregression.core.ClassifierMetricsAccumulator;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.io.DataFileReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to compute precision, recall, accuracy and F1 score for the predictions of all the testing records, from lists of
+ * labels, from primitive arrays of labels and probabilities and from sets of bits
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassifierMetricsBenchmark {
+	
+	@Param({BenchmarkDatasets.A5A, BenchmarkDatasets.SMALL_SYNTHETIC, BenchmarkDatasets.MEDIUM_SYNTHETIC, BenchmarkDatasets.LARGE_SYNTHETIC})
+	public String dataset;
+	
+	private List<BinaryDataLabel> actuals, predictions;
+	private byte[] actualLabels;
+	private double[] probabilities;
+	private BitSet actualPositives, predictedPositives;
+	
+	@Setup
+	public void setUp() throws IOException {
+		
+		DataFileReader dataFileReader = new DataFileReader(BenchmarkDatasets.getTrainingDataFilePath(this.dataset), BenchmarkDatasets.getTestingDataFilePath(this.dataset), true);
+		
+		LogisticRegressionClassifier classifier = PredictionBenchmark.createTrainedClassifier(dataFileReader.getTrainingData());
+		this.actuals = dataFileReader.getTestingDataLabels();
+		this.predictions = classifier.getPredictions(dataFileReader.getTestingData().getFeatureMatrix());
+		
+		FeaturesAndLabels testingData = dataFileReader.getTestingData();
+		this.actualLabels = testingData.getLabels();
+		this.probabilities = new double[this.actualLabels.length];
+		classifier.getProbabilities(testingData.getFeatureMatrix(), this.probabilities);
+		
+		int[] predictedLabels = new int[this.actualLabels.length];
+		classifier.getPredictedLabels(testingData.getFeatureMatrix(), predictedLabels);
+		this.actualPositives = BinaryDataLabel.getPositiveRecords(this.actualLabels);
+		this.predictedPositives = BinaryDataLabel.getPositiveRecords(predictedLabels);
+		classifier.closeLogFiles();
+		
+	}
+	
+	@Benchmark
+	public ClassifierMetrics createClassifierMetrics() {
+		return new ClassifierMetrics(this.actuals, this.predictions);
+	}
+	
+	@Benchmark
+	public ClassifierMetricsAccumulator accumulateClassifierMetrics() {
+		
+		ClassifierMetricsAccumulator classifierMetricsAccumulator = new ClassifierMetricsAccumulator();
+		classifierMetricsAccumulator.addProbabilities(this.actualLabels, this.probabilities, 0, this.actualLabels.length);
+		return classifierMetricsAccumulator;
+		
+	}
+	
+	@Benchmark
+	public ClassifierMetricsAccumulator countClassifierMetricsFromBits() {
+		
+		ClassifierMetricsAccumulator classifierMetricsAccumulator = new ClassifierMetricsAccumulator(1);
+		classifierMetricsAccumulator.addPredictions(this.actualPositives, this.predictedPositives, this.actualLabels.length);
+		return classifierMetricsAccumulator;
+		
+	}
+	
+}
@@ -0,0 +1,58 @@
+package logisticregression.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.io.DataFileReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to parse the training and testing data files, and to load them from the binary cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DataFileReaderBenchmark {
+	
+	@Param({BenchmarkDatasets.A5A, BenchmarkDatasets.SMALL_SYNTHETIC, BenchmarkDatasets.MEDIUM_SYNTHETIC, BenchmarkDatasets.LARGE_SYNTHETIC})
+	public String dataset;
+	
+	private String trainingDataFilePath, testingDataFilePath;
+	
+	@Setup
+	public void setUp() throws IOException {
+		
+		this.trainingDataFilePath = BenchmarkDatasets.getTrainingDataFilePath(this.dataset);
+		this.testingDataFilePath = BenchmarkDatasets.getTestingDataFilePath(this.dataset);
+		
+		//Write the caches next to the data files once so that the cached benchmark only reads them
+		new DataFileReader(this.trainingDataFilePath, this.testingDataFilePath, true);
+		
+	}
+	
+	@Benchmark
+	public FeaturesAndLabels parseDataFiles() {
+		return new DataFileReader(this.trainingDataFilePath, this.testingDataFilePath, false).getTrainingData();
+	}
+	
+	@Benchmark
+	public FeaturesAndLabels readBinaryCache() {
+		return new DataFileReader(this.trainingDataFilePath, this.testingDataFilePath, true).getTrainingData();
+	}
+	
+}
@@ -0,0 +1,61 @@
+package logisticregression.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.BinaryDataLabel;
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.io.DataFileReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to predict the labels of all the testing records through the boxed List&lt;List&lt;Double&gt;&gt; interface. Each row
+ * is expanded to all the columns, so only the narrower data sets are used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DensePredictionBenchmark {
+	
+	@Param({BenchmarkDatasets.A5A, BenchmarkDatasets.SMALL_SYNTHETIC})
+	public String dataset;
+	
+	private LogisticRegressionClassifier classifier;
+	private List<List<Double>> testingDataFeatures;
+	
+	@Setup
+	public void setUp() throws IOException {
+		
+		DataFileReader dataFileReader = new DataFileReader(BenchmarkDatasets.getTrainingDataFilePath(this.dataset), BenchmarkDatasets.getTestingDataFilePath(this.dataset), true);
+		this.testingDataFeatures = dataFileReader.getTestingDataFeatures();
+		this.classifier = PredictionBenchmark.createTrainedClassifier(dataFileReader.getTrainingData());
+		
+	}
+	
+	@TearDown
+	public void tearDown() {
+		this.classifier.closeLogFiles();
+	}
+	
+	@Benchmark
+	public List<BinaryDataLabel> getPredictions() {
+		return this.classifier.getPredictions(this.testingDataFeatures);
+	}
+	
+}
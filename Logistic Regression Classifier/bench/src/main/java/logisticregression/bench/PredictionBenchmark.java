@@ -0,0 +1,95 @@
+package logisticregression.bench;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.BinaryDataLabel;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.io.DataFileReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to predict the labels of all the testing records with a model trained for one epoch, both as a list of labels and
+ * into primitive arrays that are reused between invocations
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PredictionBenchmark {
+	
+	@Param({BenchmarkDatasets.A5A, BenchmarkDatasets.SMALL_SYNTHETIC, BenchmarkDatasets.MEDIUM_SYNTHETIC, BenchmarkDatasets.LARGE_SYNTHETIC})
+	public String dataset;
+	
+	private LogisticRegressionClassifier classifier;
+	private FeaturesAndLabels testingData;
+	private double[] probabilities;
+	private int[] labels;
+	
+	@Setup
+	public void setUp() throws IOException {
+		
+		DataFileReader dataFileReader = new DataFileReader(BenchmarkDatasets.getTrainingDataFilePath(this.dataset), BenchmarkDatasets.getTestingDataFilePath(this.dataset), true);
+		this.testingData = dataFileReader.getTestingData();
+		this.classifier = createTrainedClassifier(dataFileReader.getTrainingData());
+		this.probabilities = new double[this.testingData.getLabels().length];
+		this.labels = new int[this.testingData.getLabels().length];
+		
+	}
+	
+	@TearDown
+	public void tearDown() {
+		this.classifier.closeLogFiles();
+	}
+	
+	@Benchmark
+	public List<BinaryDataLabel> getPredictions() {
+		return this.classifier.getPredictions(this.testingData.getFeatureMatrix());
+	}
+	
+	@Benchmark
+	public int[] getPredictedLabels() {
+		
+		this.classifier.getPredictedLabels(this.testingData.getFeatureMatrix(), this.labels);
+		return this.labels;
+		
+	}
+	
+	@Benchmark
+	public double[] getProbabilities() {
+		
+		this.classifier.getProbabilities(this.testingData.getFeatureMatrix(), this.probabilities);
+		return this.probabilities;
+		
+	}
+	
+	/**
+	 * @param trainingData
+	 * @return classifier trained for one epoch with fixed hyperparameters
+	 */
+	static LogisticRegressionClassifier createTrainedClassifier(FeaturesAndLabels trainingData) {
+		
+		LogisticRegressionClassifier classifier = new LogisticRegressionClassifier();
+		classifier.setLearningRateAndVarianceValue(StochasticGradientDescentBenchmark.LEARNING_RATE, StochasticGradientDescentBenchmark.VARIANCE_VALUE);
+		classifier.partialFit(trainingData.getFeatureMatrix(), trainingData.getLabels());
+		return classifier;
+		
+	}
+	
+}
@@ -0,0 +1,79 @@
+package logisticregression.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.core.StochasticGradientDescent;
+import logisticregression.io.DataFileReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for one stochastic gradient descent epoch over all the training records, as run for each cross validation job, with
+ * one step for each record and with one step for each minibatch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StochasticGradientDescentBenchmark {
+	
+	public static final double LEARNING_RATE = 0.1, VARIANCE_VALUE = 100.0;
+	
+	@Param({BenchmarkDatasets.A5A, BenchmarkDatasets.SMALL_SYNTHETIC, BenchmarkDatasets.MEDIUM_SYNTHETIC, BenchmarkDatasets.LARGE_SYNTHETIC})
+	public String dataset;
+	
+	@Param({"1", "32"})
+	public int minibatchSize;
+	
+	private FeaturesAndLabels trainingData;
+	private int[] trainingDataRecords;
+	private StochasticGradientDescent stochasticGradientDescent;
+	
+	@Setup
+	public void setUp() throws IOException {
+		
+		this.trainingData = new DataFileReader(BenchmarkDatasets.getTrainingDataFilePath(this.dataset), BenchmarkDatasets.getTestingDataFilePath(this.dataset), true).getTrainingData();
+		
+		this.trainingDataRecords = new int[this.trainingData.getLabels().length];
+		for (int recordNumber = 0; recordNumber < this.trainingDataRecords.length; ++recordNumber) {
+			this.trainingDataRecords[recordNumber] = recordNumber;
+		}
+		
+	}
+	
+	/**
+	 * Start each iteration from zero weights and the initial learning rate so that every iteration does the same work
+	 */
+	@Setup(Level.Iteration)
+	public void startRun() {
+		
+		this.stochasticGradientDescent = new StochasticGradientDescent(this.trainingData.getFeatureMatrix().getNumberOfColumns(), LEARNING_RATE, VARIANCE_VALUE, LogisticRegressionClassifier.RANDOM_SEED);
+		this.stochasticGradientDescent.setMinibatchSize(this.minibatchSize);
+		
+	}
+	
+	@Benchmark
+	public double[] runEpoch() {
+		
+		this.stochasticGradientDescent.runEpoch(this.trainingData.getFeatureMatrix(), this.trainingData.getLabels(), this.trainingDataRecords);
+		return this.stochasticGradientDescent.getWeightVector();
+		
+	}
+	
+}
@@ -0,0 +1,89 @@
+package logisticregression.bench;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Write a libsvm format data file with random sparse records. Each record has about density * numberOfFeatures non zero
+ * features, one picked at random from each of that many equal ranges of feature numbers, so feature numbers are distinct
+ * and in increasing order. Labels come from a random hidden weight vector so that the data can be learned. The hidden
+ * weights depend only on the number of features, so files generated with different seeds can be used for training and testing.
+ *
+ * Usage: SyntheticDataGenerator file numberOfRecords numberOfFeatures density [seed]
+ */
+public class SyntheticDataGenerator {
+	
+	public static final long DEFAULT_RANDOM_SEED = 0, HIDDEN_WEIGHT_VECTOR_SEED = 0;
+	
+	public static void main(String[] args) throws IOException {
+		
+		if (args.length < 4) {
+			System.err.println("Usage: SyntheticDataGenerator file numberOfRecords numberOfFeatures density [seed]");
+			System.exit(1);
+		}
+		
+		generate(args[0], Integer.parseInt(args[1]), Integer.parseInt(args[2]), Double.parseDouble(args[3]), args.length > 4 ? Long.parseLong(args[4]) : DEFAULT_RANDOM_SEED);
+		
+	}
+	
+	/**
+	 * @param filePath
+	 * @param numberOfRecords
+	 * @param numberOfFeatures
+	 * @param density fraction of the features that are non zero in each record
+	 * @param randomSeed seed for the records
+	 * @throws IOException
+	 */
+	public static void generate(String filePath, int numberOfRecords, int numberOfFeatures, double density, long randomSeed) throws IOException {
+		
+		Random randomNumberGenerator = new Random(randomSeed);
+		int featuresPerRecord = Math.max(1, Math.min(numberOfFeatures, (int) Math.round(density * numberOfFeatures)));
+		
+		//Hidden weights used to label the records
+		Random hiddenWeightGenerator = new Random(HIDDEN_WEIGHT_VECTOR_SEED);
+		double[] hiddenWeightVector = new double[numberOfFeatures + 1];
+		for (int featureNumber = 0; featureNumber <= numberOfFeatures; ++featureNumber) {
+			hiddenWeightVector[featureNumber] = hiddenWeightGenerator.nextGaussian();
+		}
+		
+		int[] featureNumbers = new int[featuresPerRecord];
+		double[] featureValues = new double[featuresPerRecord];
+		StringBuilder record = new StringBuilder();
+		
+		BufferedWriter dataFileWriter = new BufferedWriter(new FileWriter(filePath));
+		try {
+			
+			for (int recordCounter = 0; recordCounter < numberOfRecords; ++recordCounter) {
+				
+				double dotProduct = hiddenWeightVector[0];
+				for (int featureCounter = 0; featureCounter < featuresPerRecord; ++featureCounter) {
+					
+					//Pick one feature from each range so that the feature numbers are distinct and sorted
+					int rangeStart = (int) ((long) numberOfFeatures * featureCounter / featuresPerRecord);
+					int rangeEnd = (int) ((long) numberOfFeatures * (featureCounter + 1) / featuresPerRecord);
+					featureNumbers[featureCounter] = 1 + rangeStart + randomNumberGenerator.nextInt(rangeEnd - rangeStart);
+					featureValues[featureCounter] = randomNumberGenerator.nextBoolean() ? 1.0 : randomNumberGenerator.nextDouble();
+					
+					dotProduct += hiddenWeightVector[featureNumbers[featureCounter]] * featureValues[featureCounter];
+				}
+				
+				//Add some noise so that the classes overlap
+				record.setLength(0);
+				record.append(dotProduct + randomNumberGenerator.nextGaussian() >= 0.0 ? "+1" : "-1");
+				for (int featureCounter = 0; featureCounter < featuresPerRecord; ++featureCounter) {
+					record.append(' ').append(featureNumbers[featureCounter]).append(':').append(featureValues[featureCounter]);
+				}
+				record.append('\n');
+				
+				dataFileWriter.write(record.toString());
+			}
+			
+		} finally {
+			dataFileWriter.close();
+		}
+		
+	}
+	
+}
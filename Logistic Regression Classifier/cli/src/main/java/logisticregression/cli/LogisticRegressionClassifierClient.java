@@ -0,0 +1,73 @@
+package logisticregression.cli;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.ClassifierMetrics;
+import logisticregression.core.ClassifierMetricsAccumulator;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.core.TrainingInstrumentation;
+import logisticregression.io.DataFileReader;
+import logisticregression.io.ModelFile;
+
+/**
+ * Classifier client
+ *
+ */
+public class LogisticRegressionClassifierClient {
+	
+	public static final String TOY_TRAINING_DATA_FILE_PATH = "toy_data/a5a.train";
+	public static final String TOY_TESTING_DATA_FILE_PATH = "toy_data/a5a.test";
+	
+	public static final String TRAINING_DATA_FILE_PATH = "data/a5a.train";
+	public static final String TESTING_DATA_FILE_PATH = "data/a5a.test";
+	
+	public static final String MODEL_FILE_PATH = "a5a" + ModelFile.MODEL_FILE_EXTENSION;
+	
+	public static final int INSTRUMENTATION_SUMMARY_INTERVAL_SECONDS = 30;
+	
+	public static void main(String[] args) {
+		
+		LogisticRegressionClassifierClient logisticRegressionClassifierClient = new LogisticRegressionClassifierClient();
+		logisticRegressionClassifierClient.runClassifier();
+		
+	}
+	
+	private void runClassifier() {
+		
+		//Timers and epoch progress can be watched in a JMX console while training, and are printed periodically
+		TrainingInstrumentation trainingInstrumentation = TrainingInstrumentation.getSharedInstance();
+		trainingInstrumentation.registerMBeans("shared");
+		trainingInstrumentation.startPeriodicSummary(System.out, INSTRUMENTATION_SUMMARY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		
+		DataFileReader dataFileReader = new DataFileReader(TRAINING_DATA_FILE_PATH, TESTING_DATA_FILE_PATH, true);
+		FeaturesAndLabels trainingData = dataFileReader.getTrainingData();
+		
+		LogisticRegressionClassifier classifier = new LogisticRegressionClassifier();
+		classifier.fit(trainingData.getFeatureMatrix(), trainingData.getLabels());
+		
+		//Save the model so that it can be served without training again
+		try {
+			ModelFile.save(MODEL_FILE_PATH, classifier.getTrainedModel());
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		//Score the testing records straight into the metrics without keeping the predictions
+		FeaturesAndLabels testingData = dataFileReader.getTestingData();
+		ClassifierMetricsAccumulator classifierMetricsAccumulator = new ClassifierMetricsAccumulator();
+		classifier.evaluate(testingData.getFeatureMatrix(), testingData.getLabels(), classifierMetricsAccumulator);
+		
+		ClassifierMetrics classifierMetrics = new ClassifierMetrics(classifierMetricsAccumulator);
+		System.out.println("Accuracy for prediction: " + classifierMetrics.getAccuracy());
+		System.out.println("ROC AUC for prediction: " + classifierMetricsAccumulator.getRocAuc() + ", PR AUC: " + classifierMetricsAccumulator.getPrAuc() + ", log loss: " + classifierMetricsAccumulator.getLogLoss());
+		
+		trainingInstrumentation.stopPeriodicSummary();
+		System.out.println(trainingInstrumentation.getSummary());
+		
+		classifier.closeLogFiles();
+		
+	}
+}
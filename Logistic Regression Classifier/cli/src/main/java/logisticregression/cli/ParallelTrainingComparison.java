@@ -0,0 +1,127 @@
+package logisticregression.cli;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import logisticregression.core.BinaryDataLabel;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.core.ParallelStochasticGradientDescent;
+import logisticregression.core.SparseFeatureMatrix;
+import logisticregression.core.StochasticGradientDescent;
+import logisticregression.core.WeightUpdateMode;
+import logisticregression.io.DataFileReader;
+
+/**
+ * Compare the convergence and speed of sequential stochastic gradient descent with the lock free and atomic multi-threaded
+ * runs. Each run trains on the whole training data for the same learning rate, variance value and number of epochs, and the
+ * objective value after each epoch, the training time and the test accuracy are printed. All the runs decay every weight
+ * with each update and so minimize the same objective, and with one thread the multi-threaded runs follow the sequential
+ * run exactly.
+ *
+ * Usage: ParallelTrainingComparison [number of threads] [number of epochs] [learning rate] [variance value]
+ */
+public class ParallelTrainingComparison {
+	
+	public static final int DEFAULT_NUMBER_OF_EPOCHS = 10;
+	public static final double DEFAULT_LEARNING_RATE = 0.1, DEFAULT_VARIANCE_VALUE = 100.0;
+	
+	public static void main(String[] args) {
+		
+		int numberOfThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int numberOfEpochs = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_NUMBER_OF_EPOCHS;
+		double learningRate = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_LEARNING_RATE;
+		double varianceValue = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_VARIANCE_VALUE;
+		
+		DataFileReader dataFileReader = new DataFileReader(LogisticRegressionClassifierClient.TRAINING_DATA_FILE_PATH, LogisticRegressionClassifierClient.TESTING_DATA_FILE_PATH, true);
+		FeaturesAndLabels trainingData = dataFileReader.getTrainingData(), testingData = dataFileReader.getTestingData();
+		int numberOfColumns = trainingData.getFeatureMatrix().getNumberOfColumns();
+		
+		ExecutorService workerExecutor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			
+			runComparison("Sequential", new StochasticGradientDescent(numberOfColumns, learningRate, varianceValue, LogisticRegressionClassifier.RANDOM_SEED), trainingData, testingData, numberOfEpochs);
+			runComparison("Lock free with " + numberOfThreads + " threads", new ParallelStochasticGradientDescent(numberOfColumns, learningRate, varianceValue, LogisticRegressionClassifier.RANDOM_SEED, numberOfThreads, WeightUpdateMode.LOCK_FREE, workerExecutor), trainingData, testingData, numberOfEpochs);
+			runComparison("Atomic with " + numberOfThreads + " threads", new ParallelStochasticGradientDescent(numberOfColumns, learningRate, varianceValue, LogisticRegressionClassifier.RANDOM_SEED, numberOfThreads, WeightUpdateMode.ATOMIC, workerExecutor), trainingData, testingData, numberOfEpochs);
+			
+		} finally {
+			workerExecutor.shutdown();
+		}
+		
+	}
+	
+	/**
+	 * Train for a number of epochs and print the objective value after each epoch, the training time and the test accuracy
+	 * @param description
+	 * @param stochasticGradientDescent
+	 * @param trainingData
+	 * @param testingData
+	 * @param numberOfEpochs
+	 */
+	private static void runComparison(String description, StochasticGradientDescent stochasticGradientDescent, FeaturesAndLabels trainingData, FeaturesAndLabels testingData, int numberOfEpochs) {
+		
+		SparseFeatureMatrix featureMatrix = trainingData.getFeatureMatrix();
+		byte[] labels = trainingData.getLabels();
+		int[] trainingDataRecords = getAllRecords(featureMatrix.getNumberOfRows());
+		
+		System.out.println(description);
+		
+		long trainingTime = 0;
+		for (int epochCounter = 0; epochCounter < numberOfEpochs; ++epochCounter) {
+			
+			long startTime = System.nanoTime();
+			if (epochCounter > 0) {
+				stochasticGradientDescent.shuffleTrainingData(trainingDataRecords);
+			}
+			stochasticGradientDescent.runEpoch(featureMatrix, labels, trainingDataRecords);
+			trainingTime += System.nanoTime() - startTime;
+			
+			System.out.println("\tEpoch " + (epochCounter + 1) + " objective value " + stochasticGradientDescent.getTotalObjectiveValue(featureMatrix, labels, trainingDataRecords));
+			
+		}
+		
+		System.out.println("\tTraining time " + trainingTime / 1000000 + " ms, " + (long) ((double) numberOfEpochs * featureMatrix.getNumberOfRows() * 1e9 / Math.max(trainingTime, 1)) + " records per second");
+		System.out.println("\tTest accuracy " + getAccuracy(testingData, stochasticGradientDescent.getWeightVector()));
+		
+	}
+	
+	/**
+	 * @param numberOfRecords
+	 * @return record numbers from 0 to numberOfRecords - 1
+	 */
+	private static int[] getAllRecords(int numberOfRecords) {
+		
+		int[] recordNumbers = new int[numberOfRecords];
+		for (int recordCounter = 0; recordCounter < numberOfRecords; ++recordCounter) {
+			recordNumbers[recordCounter] = recordCounter;
+		}
+		return recordNumbers;
+		
+	}
+	
+	/**
+	 * @param testingData
+	 * @param weightVector
+	 * @return fraction of the testing records predicted correctly
+	 */
+	private static double getAccuracy(FeaturesAndLabels testingData, double[] weightVector) {
+		
+		SparseFeatureMatrix featureMatrix = testingData.getFeatureMatrix();
+		byte[] labels = testingData.getLabels();
+		
+		//Features not seen in training have a weight of zero
+		double[] paddedWeightVector = Arrays.copyOf(weightVector, Math.max(weightVector.length, featureMatrix.getNumberOfColumns()));
+		
+		int correctPredictions = 0;
+		for (int recordNumber = 0; recordNumber < featureMatrix.getNumberOfRows(); ++recordNumber) {
+			int prediction = featureMatrix.getDotProduct(recordNumber, paddedWeightVector) >= 0.0 ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue();
+			if (prediction == labels[recordNumber]) {
+				++correctPredictions;
+			}
+		}
+		return (double) correctPredictions / featureMatrix.getNumberOfRows();
+		
+	}
+	
+}
@@ -0,0 +1,245 @@
+package logisticregression.core;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Training event sink that hands events to a background writer thread through a lock-free ring buffer, so that reporting
+ * an event costs the training thread one compare and set and no formatting or I/O. Objective values can go to a file of
+ * their own. Each slot of the ring carries a sequence number that tells producers and the writer whose turn it is, so any
+ * number of training threads can report at the same time. When the ring is full the training thread waits for the writer.
+ */
+public class AsynchronousTrainingEventSink implements TrainingEventSink {
+	
+	public static final int DEFAULT_CAPACITY = 1 << 14;
+	
+	private static final long WRITER_PARK_NANOSECONDS = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	private final TrainingEvent[] events;
+	private final AtomicLongArray slotSequences;
+	private final int slotMask;
+	private final AtomicLong producerPosition;
+	private final TrainingEventFormat format;
+	private final Writer eventWriter, objectiveValueWriter;
+	private final Thread writerThread;
+	private volatile boolean writerWaiting, closed;
+	private volatile IOException writeException;
+	
+	/**
+	 * Constructor using the default capacity
+	 * @param eventFilePath
+	 * @param objectiveValueFilePath file for the objective values, or null to write them with the other events
+	 * @param format
+	 * @throws IOException if a file cannot be opened
+	 */
+	public AsynchronousTrainingEventSink(String eventFilePath, String objectiveValueFilePath, TrainingEventFormat format) throws IOException {
+		this(eventFilePath, objectiveValueFilePath, format, DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Constructor
+	 * @param eventFilePath
+	 * @param objectiveValueFilePath file for the objective values, or null to write them with the other events
+	 * @param format
+	 * @param capacity number of events the ring holds, rounded up to a power of 2
+	 * @throws IOException if a file cannot be opened
+	 */
+	public AsynchronousTrainingEventSink(String eventFilePath, String objectiveValueFilePath, TrainingEventFormat format, int capacity) throws IOException {
+		
+		int ringSize = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		this.events = new TrainingEvent[ringSize];
+		this.slotSequences = new AtomicLongArray(ringSize);
+		for (int slot = 0; slot < ringSize; ++slot) {
+			this.slotSequences.set(slot, slot);
+		}
+		this.slotMask = ringSize - 1;
+		this.producerPosition = new AtomicLong();
+		this.format = format;
+		
+		this.eventWriter = openWriter(eventFilePath, format);
+		this.objectiveValueWriter = objectiveValueFilePath != null ? openWriter(objectiveValueFilePath, format) : this.eventWriter;
+		
+		this.writerThread = new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				writeEvents();
+			}
+			
+		}, "training-event-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+		
+	}
+	
+	/**
+	 * @param filePath for example LogFile.txt
+	 * @param runName
+	 * @return the file path with the run name added before the extension, for example LogFile-run1.txt, so that runs at the
+	 * same time write to files of their own
+	 */
+	public static String getRunFilePath(String filePath, String runName) {
+		
+		int extensionStart = filePath.lastIndexOf('.');
+		if (extensionStart <= Math.max(filePath.lastIndexOf('/'), filePath.lastIndexOf('\\')) + 1) {
+			return filePath + "-" + runName;
+		}
+		return filePath.substring(0, extensionStart) + "-" + runName + filePath.substring(extensionStart);
+		
+	}
+	
+	@Override
+	public void accept(TrainingEvent trainingEvent) {
+		
+		if (this.closed) {
+			throw new IllegalStateException("Training event sink is closed");
+		}
+		
+		//Claim the next position once its slot has been freed by the writer
+		long position;
+		int slot;
+		while (true) {
+			
+			position = this.producerPosition.get();
+			slot = (int) position & this.slotMask;
+			long slotSequence = this.slotSequences.get(slot);
+			
+			if (slotSequence == position) {
+				if (this.producerPosition.compareAndSet(position, position + 1)) {
+					break;
+				}
+			} else if (slotSequence < position) {
+				
+				//The ring is full
+				if (!this.writerThread.isAlive()) {
+					throw new IllegalStateException("Training event writer has stopped", this.writeException);
+				}
+				LockSupport.unpark(this.writerThread);
+				Thread.yield();
+			}
+		}
+		
+		this.events[slot] = trainingEvent;
+		this.slotSequences.set(slot, position + 1);
+		
+		if (this.writerWaiting) {
+			LockSupport.unpark(this.writerThread);
+		}
+		
+	}
+	
+	/**
+	 * Wait for the writer to write the events already reported and close the files. Events must not be reported while the
+	 * sink is being closed.
+	 */
+	@Override
+	public void close() {
+		
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		LockSupport.unpark(this.writerThread);
+		
+		try {
+			this.writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while writing the remaining training events", e);
+		}
+		
+		if (this.writeException != null) {
+			throw new IllegalStateException("Could not write training events", this.writeException);
+		}
+		
+	}
+	
+	/**
+	 * Take events off the ring in order and write them until the sink is closed and the ring is empty
+	 */
+	private void writeEvents() {
+		
+		long consumerPosition = 0;
+		try {
+			
+			while (true) {
+				
+				int slot = (int) consumerPosition & this.slotMask;
+				if (this.slotSequences.get(slot) == consumerPosition + 1) {
+					
+					TrainingEvent trainingEvent = this.events[slot];
+					this.events[slot] = null;
+					this.slotSequences.set(slot, consumerPosition + this.events.length);
+					++consumerPosition;
+					
+					Writer writer = trainingEvent.getType() == TrainingEventType.OBJECTIVE_VALUE ? this.objectiveValueWriter : this.eventWriter;
+					writer.write(trainingEvent.format(this.format));
+					writer.write(System.lineSeparator());
+					continue;
+				}
+				
+				//The ring is empty, so stop if the sink is closed and all the claimed events have been written
+				if (this.closed && this.producerPosition.get() == consumerPosition) {
+					break;
+				}
+				
+				this.eventWriter.flush();
+				this.objectiveValueWriter.flush();
+				
+				this.writerWaiting = true;
+				if (this.slotSequences.get(slot) != consumerPosition + 1 && !this.closed) {
+					LockSupport.parkNanos(this, WRITER_PARK_NANOSECONDS);
+				}
+				this.writerWaiting = false;
+			}
+			
+		} catch (IOException e) {
+			this.writeException = e;
+		} finally {
+			closeWriters();
+		}
+		
+	}
+	
+	/**
+	 * @param filePath
+	 * @param format
+	 * @return buffered writer with the CSV header written if the format has one
+	 * @throws IOException
+	 */
+	private static Writer openWriter(String filePath, TrainingEventFormat format) throws IOException {
+		
+		Writer writer = new BufferedWriter(new FileWriter(filePath));
+		if (format == TrainingEventFormat.CSV) {
+			writer.write(TrainingEvent.CSV_HEADER);
+			writer.write(System.lineSeparator());
+		}
+		return writer;
+		
+	}
+	
+	/**
+	 * Close the files, keeping the first exception
+	 */
+	private void closeWriters() {
+		
+		try {
+			this.eventWriter.close();
+			if (this.objectiveValueWriter != this.eventWriter) {
+				this.objectiveValueWriter.close();
+			}
+		} catch (IOException e) {
+			if (this.writeException == null) {
+				this.writeException = e;
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,92 @@
+package logisticregression.core;
+
+import java.util.BitSet;
+
+/**
+ * Enum to hold binary data labels
+ */
+public enum BinaryDataLabel {
+	
+	POSITIVE_LABEL (+1),
+	NEGATIVE_LABEL(-1);
+	
+	private final int label;
+	
+	/**
+	 * Constructor
+	 * @param label
+	 */
+	BinaryDataLabel(int label) {
+		assert label == +1 || label == -1;
+		this.label = label;
+	}
+	
+	/**
+	 * @return value of label
+	 */
+	public int getValue() {
+		return this.label;
+	}
+	
+	/**
+	 * @param labels label values as +1 or -1
+	 * @return the label values stored one byte each, a quarter of the memory of an int array
+	 */
+	public static byte[] toLabelBytes(int[] labels) {
+		
+		byte[] labelBytes = new byte[labels.length];
+		for (int recordNumber = 0; recordNumber < labels.length; ++recordNumber) {
+			labelBytes[recordNumber] = (byte) labels[recordNumber];
+		}
+		
+		return labelBytes;
+		
+	}
+	
+	/**
+	 * @param labels label values as +1 or -1
+	 * @return one bit for each record, set for the records with the positive label, so that labels can be counted a word
+	 * at a time, see ClassifierMetricsAccumulator.addPredictions
+	 */
+	public static BitSet getPositiveRecords(byte[] labels) {
+		return getPositiveRecords(labels, 0, labels.length);
+	}
+	
+	/**
+	 * @param labels label values as +1 or -1
+	 * @param firstRecord
+	 * @param lastRecord one past the last record
+	 * @return one bit for each record of the range, bit 0 being the first record, set for the records with the positive
+	 * label
+	 */
+	public static BitSet getPositiveRecords(byte[] labels, int firstRecord, int lastRecord) {
+		
+		BitSet positiveRecords = new BitSet(lastRecord - firstRecord);
+		for (int recordNumber = firstRecord; recordNumber < lastRecord; ++recordNumber) {
+			if (labels[recordNumber] == POSITIVE_LABEL.label) {
+				positiveRecords.set(recordNumber - firstRecord);
+			}
+		}
+		
+		return positiveRecords;
+		
+	}
+	
+	/**
+	 * @param labels label values as +1 or -1, for example predicted labels
+	 * @return one bit for each record, set for the records with the positive label
+	 */
+	public static BitSet getPositiveRecords(int[] labels) {
+		return getPositiveRecords(toLabelBytes(labels));
+	}
+	
+	@Override
+	public String toString() {
+		if (this.label == +1) {
+			return "+";
+		} else {
+			return "-";
+		}
+	}
+	
+}
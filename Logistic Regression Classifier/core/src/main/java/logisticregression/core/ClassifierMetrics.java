@@ -0,0 +1,69 @@
+package logisticregression.core;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+public class ClassifierMetrics {
+	
+	private double precision;
+	private double recall;
+	private double accuracy;
+	private double f1Score;
+	
+	public ClassifierMetrics(List<BinaryDataLabel> actuals, List<BinaryDataLabel> predictions) {
+		
+		assert actuals.size() == predictions.size() && actuals.size() > 0;
+		
+		//The labels are counted as bits a word at a time
+		BitSet actualPositives = new BitSet(actuals.size()), predictedPositives = new BitSet(predictions.size());
+		Iterator<BinaryDataLabel> actualsIterator = actuals.iterator(), predictionsIterator = predictions.iterator();
+		for (int recordNumber = 0; actualsIterator.hasNext(); ++recordNumber) {
+			actualPositives.set(recordNumber, actualsIterator.next() == BinaryDataLabel.POSITIVE_LABEL);
+			predictedPositives.set(recordNumber, predictionsIterator.next() == BinaryDataLabel.POSITIVE_LABEL);
+		}
+		
+		ClassifierMetricsAccumulator classifierMetricsAccumulator = new ClassifierMetricsAccumulator(1);
+		classifierMetricsAccumulator.addPredictions(actualPositives, predictedPositives, actuals.size());
+		
+		setMetrics(classifierMetricsAccumulator);
+		
+	}
+	
+	/**
+	 * @param classifierMetricsAccumulator counts of the predictions, for example from LogisticRegressionClassifier.evaluate
+	 */
+	public ClassifierMetrics(ClassifierMetricsAccumulator classifierMetricsAccumulator) {
+		
+		assert classifierMetricsAccumulator.getNumberOfPredictions() > 0;
+		
+		setMetrics(classifierMetricsAccumulator);
+		
+	}
+	
+	private void setMetrics(ClassifierMetricsAccumulator classifierMetricsAccumulator) {
+		
+		this.precision = classifierMetricsAccumulator.getPrecision();
+		this.recall = classifierMetricsAccumulator.getRecall();
+		this.accuracy = classifierMetricsAccumulator.getAccuracy();
+		this.f1Score = classifierMetricsAccumulator.getF1Score();
+		
+	}
+	
+	public double getPrecision() {
+		return precision;
+	}
+	
+	public double getRecall() {
+		return recall;
+	}
+	
+	public double getAccuracy() {
+		return accuracy;
+	}
+	
+	public double getF1Score() {
+		return f1Score;
+	}
+	
+}
@@ -0,0 +1,309 @@
+package logisticregression.core;
+
+import java.util.BitSet;
+
+/**
+ * Confusion matrix and probability histogram that are updated one prediction at a time or from arrays of labels and
+ * probabilities, without keeping the predictions. Accumulators filled on different threads, for example one for each
+ * scoring chunk, can be merged afterwards. ROC AUC and PR AUC are found by sweeping the threshold over the bins of the
+ * histogram, so they are exact up to ties within a bin, which are counted as half right.
+ */
+public class ClassifierMetricsAccumulator {
+	
+	public static final int DEFAULT_NUMBER_OF_BINS = 1000;
+	public static final double MINIMUM_PROBABILITY = 1e-15;
+	
+	private final long[] positiveCounts, negativeCounts;
+	private long truePositives, trueNegatives, falsePositives, falseNegatives;
+	private double logLossSum;
+	private long numberOfProbabilities;
+	
+	/**
+	 * Constructor using the default number of bins
+	 */
+	public ClassifierMetricsAccumulator() {
+		this(DEFAULT_NUMBER_OF_BINS);
+	}
+	
+	/**
+	 * Constructor
+	 * @param numberOfBins number of equal width bins the probabilities from 0 to 1 are counted in
+	 */
+	public ClassifierMetricsAccumulator(int numberOfBins) {
+		
+		if (numberOfBins < 1) {
+			throw new IllegalArgumentException("Number of bins must be at least 1 but was " + numberOfBins);
+		}
+		
+		this.positiveCounts = new long[numberOfBins];
+		this.negativeCounts = new long[numberOfBins];
+		
+	}
+	
+	/**
+	 * @return an empty accumulator with the same number of bins, for example for another thread
+	 */
+	public ClassifierMetricsAccumulator createEmptyCopy() {
+		return new ClassifierMetricsAccumulator(this.positiveCounts.length);
+	}
+	
+	/**
+	 * @param actualLabel +1 or -1
+	 * @param predictedLabel +1 or -1
+	 */
+	public void addPrediction(int actualLabel, int predictedLabel) {
+		
+		if (actualLabel == BinaryDataLabel.POSITIVE_LABEL.getValue()) {
+			if (predictedLabel == BinaryDataLabel.POSITIVE_LABEL.getValue()) {
+				++this.truePositives;
+			} else {
+				++this.falseNegatives;
+			}
+		} else {
+			if (predictedLabel == actualLabel) {
+				++this.trueNegatives;
+			} else {
+				++this.falsePositives;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Add a prediction given as the probability of the positive label. The predicted label is positive if the probability
+	 * is at least 0.5. Margins just below 0 give a probability that rounds to 0.5, so predictions that come from a margin
+	 * should be added with addMargin to get the same label as the classifier.
+	 * @param actualLabel +1 or -1
+	 * @param probability
+	 */
+	public void addProbability(int actualLabel, double probability) {
+		addProbability(actualLabel, probability >= 0.5 ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue(), probability);
+	}
+	
+	/**
+	 * Add a prediction given as the margin. The predicted label is positive if the margin is at least 0, as in
+	 * LogisticRegressionClassifier, and the probability is the one the classifier gives for the margin.
+	 * @param actualLabel +1 or -1
+	 * @param margin
+	 */
+	public void addMargin(int actualLabel, double margin) {
+		addProbability(actualLabel, margin >= 0 ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue(), LogisticRegressionClassifier.getProbability(margin));
+	}
+	
+	/**
+	 * @param actualLabel +1 or -1
+	 * @param predictedLabel +1 or -1
+	 * @param probability probability of the positive label
+	 */
+	private void addProbability(int actualLabel, int predictedLabel, double probability) {
+		
+		addPrediction(actualLabel, predictedLabel);
+		addProbabilityWithoutPrediction(actualLabel, probability);
+		
+	}
+	
+	/**
+	 * Add a probability to the histogram and the log loss only, for callers that count the predictions themselves, for
+	 * example with addPredictions
+	 * @param actualLabel +1 or -1
+	 * @param probability probability of the positive label
+	 */
+	void addProbabilityWithoutPrediction(int actualLabel, double probability) {
+		
+		boolean positive = actualLabel == BinaryDataLabel.POSITIVE_LABEL.getValue();
+		int binNumber = Math.min(Math.max((int) (probability * this.positiveCounts.length), 0), this.positiveCounts.length - 1);
+		if (positive) {
+			++this.positiveCounts[binNumber];
+		} else {
+			++this.negativeCounts[binNumber];
+		}
+		
+		//Probabilities of exactly 0 or 1 would give an infinite loss
+		double probabilityOfActualLabel = positive ? probability : 1.0 - probability;
+		this.logLossSum -= Math.log(Math.max(probabilityOfActualLabel, MINIMUM_PROBABILITY));
+		++this.numberOfProbabilities;
+		
+	}
+	
+	/**
+	 * @param actualLabels
+	 * @param predictedLabels
+	 * @param firstRecord
+	 * @param lastRecord one past the last record to add
+	 */
+	public void addPredictions(byte[] actualLabels, int[] predictedLabels, int firstRecord, int lastRecord) {
+		
+		for (int recordNumber = firstRecord; recordNumber < lastRecord; ++recordNumber) {
+			addPrediction(actualLabels[recordNumber], predictedLabels[recordNumber]);
+		}
+		
+	}
+	
+	/**
+	 * Add the predictions of a set of records given as bits, counting 64 records at a time
+	 * @param actualPositives records with the positive actual label, see BinaryDataLabel.getPositiveRecords
+	 * @param predictedPositives records with the positive predicted label
+	 * @param numberOfRecords number of records, the ones without a bit set in either having negative labels
+	 */
+	public void addPredictions(BitSet actualPositives, BitSet predictedPositives, int numberOfRecords) {
+		
+		assert actualPositives.length() <= numberOfRecords && predictedPositives.length() <= numberOfRecords;
+		
+		long[] actualWords = actualPositives.toLongArray(), predictedWords = predictedPositives.toLongArray();
+		long truePositives = 0, actualPositiveCount = 0, predictedPositiveCount = 0;
+		for (int wordNumber = 0; wordNumber < Math.max(actualWords.length, predictedWords.length); ++wordNumber) {
+			
+			long actualWord = wordNumber < actualWords.length ? actualWords[wordNumber] : 0L;
+			long predictedWord = wordNumber < predictedWords.length ? predictedWords[wordNumber] : 0L;
+			truePositives += Long.bitCount(actualWord & predictedWord);
+			actualPositiveCount += Long.bitCount(actualWord);
+			predictedPositiveCount += Long.bitCount(predictedWord);
+		}
+		
+		this.truePositives += truePositives;
+		this.falsePositives += predictedPositiveCount - truePositives;
+		this.falseNegatives += actualPositiveCount - truePositives;
+		this.trueNegatives += numberOfRecords - actualPositiveCount - predictedPositiveCount + truePositives;
+		
+	}
+	
+	/**
+	 * @param actualLabels
+	 * @param probabilities probability of the positive label for each record
+	 * @param firstRecord
+	 * @param lastRecord one past the last record to add
+	 */
+	public void addProbabilities(byte[] actualLabels, double[] probabilities, int firstRecord, int lastRecord) {
+		
+		for (int recordNumber = firstRecord; recordNumber < lastRecord; ++recordNumber) {
+			addProbability(actualLabels[recordNumber], probabilities[recordNumber]);
+		}
+		
+	}
+	
+	/**
+	 * Add the counts of another accumulator, which must have the same number of bins
+	 * @param otherAccumulator
+	 */
+	public void merge(ClassifierMetricsAccumulator otherAccumulator) {
+		
+		if (otherAccumulator.positiveCounts.length != this.positiveCounts.length) {
+			throw new IllegalArgumentException("Cannot merge an accumulator with " + otherAccumulator.positiveCounts.length + " bins into one with " + this.positiveCounts.length);
+		}
+		
+		this.truePositives += otherAccumulator.truePositives;
+		this.trueNegatives += otherAccumulator.trueNegatives;
+		this.falsePositives += otherAccumulator.falsePositives;
+		this.falseNegatives += otherAccumulator.falseNegatives;
+		for (int binNumber = 0; binNumber < this.positiveCounts.length; ++binNumber) {
+			this.positiveCounts[binNumber] += otherAccumulator.positiveCounts[binNumber];
+			this.negativeCounts[binNumber] += otherAccumulator.negativeCounts[binNumber];
+		}
+		this.logLossSum += otherAccumulator.logLossSum;
+		this.numberOfProbabilities += otherAccumulator.numberOfProbabilities;
+		
+	}
+	
+	/**
+	 * @return number of predictions added
+	 */
+	public long getNumberOfPredictions() {
+		return this.truePositives + this.trueNegatives + this.falsePositives + this.falseNegatives;
+	}
+	
+	public double getPrecision() {
+		return (double) this.truePositives / (this.truePositives + this.falsePositives);
+	}
+	
+	public double getRecall() {
+		return (double) this.truePositives / (this.truePositives + this.falseNegatives);
+	}
+	
+	public double getAccuracy() {
+		return (double) (this.truePositives + this.trueNegatives) / getNumberOfPredictions();
+	}
+	
+	public double getF1Score() {
+		
+		double precision = getPrecision(), recall = getRecall();
+		return 2 * precision * recall / (precision + recall);
+		
+	}
+	
+	/**
+	 * @return area under the ROC curve of the probabilities added, or NaN if they do not have both labels
+	 */
+	public double getRocAuc() {
+		
+		//Going down from the highest bin, each negative ranks below the positives above its bin and ties with those in it
+		double correctlyRankedPairs = 0.0;
+		long positivesAbove = 0, negativesAbove = 0;
+		for (int binNumber = this.positiveCounts.length - 1; binNumber >= 0; --binNumber) {
+			correctlyRankedPairs += this.negativeCounts[binNumber] * (positivesAbove + 0.5 * this.positiveCounts[binNumber]);
+			positivesAbove += this.positiveCounts[binNumber];
+			negativesAbove += this.negativeCounts[binNumber];
+		}
+		
+		if (positivesAbove == 0 || negativesAbove == 0) {
+			return Double.NaN;
+		}
+		return correctlyRankedPairs / ((double) positivesAbove * negativesAbove);
+		
+	}
+	
+	/**
+	 * @return area under the precision recall curve of the probabilities added as average precision, the precision at
+	 * each bin threshold weighted by the recall it adds, or NaN if there are no positives
+	 */
+	public double getPrAuc() {
+		
+		long numberOfPositives = 0;
+		for (long positiveCount : this.positiveCounts) {
+			numberOfPositives += positiveCount;
+		}
+		if (numberOfPositives == 0) {
+			return Double.NaN;
+		}
+		
+		double averagePrecision = 0.0;
+		long positivesAbove = 0, negativesAbove = 0;
+		for (int binNumber = this.positiveCounts.length - 1; binNumber >= 0; --binNumber) {
+			
+			if (this.positiveCounts[binNumber] == 0) {
+				negativesAbove += this.negativeCounts[binNumber];
+				continue;
+			}
+			positivesAbove += this.positiveCounts[binNumber];
+			negativesAbove += this.negativeCounts[binNumber];
+			averagePrecision += ((double) this.positiveCounts[binNumber] / numberOfPositives) * ((double) positivesAbove / (positivesAbove + negativesAbove));
+		}
+		
+		return averagePrecision;
+		
+	}
+	
+	/**
+	 * @return average log loss of the probabilities added, or NaN if none were added
+	 */
+	public double getLogLoss() {
+		return this.numberOfProbabilities == 0 ? Double.NaN : this.logLossSum / this.numberOfProbabilities;
+	}
+	
+	//Getters
+	public long getTruePositives() {
+		return truePositives;
+	}
+	
+	public long getTrueNegatives() {
+		return trueNegatives;
+	}
+	
+	public long getFalsePositives() {
+		return falsePositives;
+	}
+	
+	public long getFalseNegatives() {
+		return falseNegatives;
+	}
+	
+}
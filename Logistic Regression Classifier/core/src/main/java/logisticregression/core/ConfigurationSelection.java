@@ -0,0 +1,126 @@
+package logisticregression.core;
+
+/**
+ * Picks the most accurate configuration, that is learning rate and variance value, as its cross validation runs finish.
+ * Only the weights of the last split of each configuration are kept, and only until the configuration has been compared,
+ * so the weights of the other runs can be freed as soon as the runs finish. Configurations are compared once selection
+ * has started, which is when none of them can be pruned any more.
+ */
+class ConfigurationSelection {
+	
+	private final int crossValidationSplits;
+	private final double[] accuracies;
+	private final int[] numberOfFinishedSplits;
+	private final boolean[] removedConfigurations;
+	private final double[][] lastSplitWeightVectors;
+	private boolean selectionStarted;
+	private int selectedConfiguration;
+	private double maximumAccuracy;
+	private double[] selectedWeightVector;
+	
+	/**
+	 * Constructor
+	 * @param numberOfConfigurations
+	 * @param crossValidationSplits
+	 */
+	ConfigurationSelection(int numberOfConfigurations, int crossValidationSplits) {
+		
+		this.crossValidationSplits = crossValidationSplits;
+		this.accuracies = new double[numberOfConfigurations * crossValidationSplits];
+		this.numberOfFinishedSplits = new int[numberOfConfigurations];
+		this.removedConfigurations = new boolean[numberOfConfigurations];
+		this.lastSplitWeightVectors = new double[numberOfConfigurations][];
+		this.selectionStarted = false;
+		this.selectedConfiguration = -1;
+		this.maximumAccuracy = Double.MIN_VALUE;
+		this.selectedWeightVector = null;
+		
+	}
+	
+	/**
+	 * Record a run that will not be trained any further
+	 * @param configurationNumber
+	 * @param splitNumber
+	 * @param accuracy accuracy of the run on its testing split
+	 * @param weightVector final weights of the run
+	 */
+	synchronized void addFinishedRun(int configurationNumber, int splitNumber, double accuracy, double[] weightVector) {
+		
+		if (this.removedConfigurations[configurationNumber]) {
+			return;
+		}
+		
+		this.accuracies[configurationNumber * this.crossValidationSplits + splitNumber] = accuracy;
+		if (splitNumber == this.crossValidationSplits - 1) {
+			this.lastSplitWeightVectors[configurationNumber] = weightVector;
+		}
+		
+		if (++this.numberOfFinishedSplits[configurationNumber] == this.crossValidationSplits && this.selectionStarted) {
+			compare(configurationNumber);
+		}
+		
+	}
+	
+	/**
+	 * Stop considering a configuration, for example because it has been pruned
+	 * @param configurationNumber
+	 */
+	synchronized void removeConfiguration(int configurationNumber) {
+		
+		this.removedConfigurations[configurationNumber] = true;
+		this.lastSplitWeightVectors[configurationNumber] = null;
+		
+	}
+	
+	/**
+	 * Compare the configurations that have already finished, and from now on each configuration as soon as it finishes
+	 */
+	synchronized void startSelection() {
+		
+		this.selectionStarted = true;
+		for (int configurationNumber = 0; configurationNumber < this.numberOfFinishedSplits.length; ++configurationNumber) {
+			if (this.numberOfFinishedSplits[configurationNumber] == this.crossValidationSplits && !this.removedConfigurations[configurationNumber]) {
+				compare(configurationNumber);
+			}
+		}
+		
+	}
+	
+	/**
+	 * Select the configuration if it is more accurate than the one selected so far, or as accurate and earlier, so the
+	 * selection does not depend on the order in which the configurations finish
+	 * @param configurationNumber
+	 */
+	private void compare(int configurationNumber) {
+		
+		//The accuracies are added in split order so the average is the same as when it is computed after training
+		double averageAccuracy = 0.0;
+		for (int splitNumber = 0; splitNumber < this.crossValidationSplits; ++splitNumber) {
+			averageAccuracy += this.accuracies[configurationNumber * this.crossValidationSplits + splitNumber];
+		}
+		averageAccuracy /= this.crossValidationSplits;
+		
+		if (averageAccuracy > this.maximumAccuracy || (averageAccuracy == this.maximumAccuracy && configurationNumber < this.selectedConfiguration)) {
+			this.maximumAccuracy = averageAccuracy;
+			this.selectedConfiguration = configurationNumber;
+			this.selectedWeightVector = this.lastSplitWeightVectors[configurationNumber];
+		}
+		this.lastSplitWeightVectors[configurationNumber] = null;
+		
+	}
+	
+	/**
+	 * @return number of the most accurate configuration, or -1 if none has been selected
+	 */
+	synchronized int getSelectedConfiguration() {
+		return this.selectedConfiguration;
+	}
+	
+	/**
+	 * @return weights of the last split of the selected configuration
+	 */
+	synchronized double[] getSelectedWeightVector() {
+		return this.selectedWeightVector;
+	}
+	
+}
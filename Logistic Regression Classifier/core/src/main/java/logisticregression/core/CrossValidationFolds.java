@@ -0,0 +1,167 @@
+package logisticregression.core;
+
+import java.util.Random;
+
+/**
+ * Cross validation folds defined once as a single permutation of the record numbers, with each fold a contiguous range of
+ * the permutation. The data set is never copied; the testing records of a fold are a range of the shared permutation and
+ * the training records are the rest of it.
+ */
+public class CrossValidationFolds {
+	
+	private final int[] recordNumbers;
+	private final int[] foldOffsets;
+	
+	/**
+	 * Constructor
+	 * @param recordNumbers permutation of the record numbers, grouped by fold
+	 * @param foldOffsets start of each fold in the permutation, followed by the number of records
+	 */
+	private CrossValidationFolds(int[] recordNumbers, int[] foldOffsets) {
+		this.recordNumbers = recordNumbers;
+		this.foldOffsets = foldOffsets;
+	}
+	
+	/**
+	 * Shuffle the records and split them into folds of equal size, with any remaining records in the last fold
+	 * @param numberOfFolds
+	 * @param numberOfRecords
+	 * @param randomNumberGenerator
+	 * @return folds
+	 */
+	public static CrossValidationFolds create(int numberOfFolds, int numberOfRecords, Random randomNumberGenerator) {
+		
+		if (numberOfFolds < 2 || numberOfFolds > numberOfRecords) {
+			throw new IllegalArgumentException("Cannot split " + numberOfRecords + " records into " + numberOfFolds + " folds");
+		}
+		
+		int[] recordNumbers = new int[numberOfRecords];
+		for (int recordNumber = 0; recordNumber < numberOfRecords; ++recordNumber) {
+			recordNumbers[recordNumber] = recordNumber;
+		}
+		shuffle(recordNumbers, 0, numberOfRecords, randomNumberGenerator);
+		
+		int recordsInFold = numberOfRecords / numberOfFolds;
+		int[] foldOffsets = new int[numberOfFolds + 1];
+		for (int foldNumber = 0; foldNumber < numberOfFolds; ++foldNumber) {
+			foldOffsets[foldNumber] = foldNumber * recordsInFold;
+		}
+		foldOffsets[numberOfFolds] = numberOfRecords;
+		
+		return new CrossValidationFolds(recordNumbers, foldOffsets);
+		
+	}
+	
+	/**
+	 * Shuffle the positive and negative records separately and deal them out to the folds in turn, so that each fold has
+	 * close to the same fraction of positive labels as the whole data set
+	 * @param numberOfFolds
+	 * @param labels labels with values +1 or -1
+	 * @param randomNumberGenerator
+	 * @return folds
+	 */
+	public static CrossValidationFolds createStratified(int numberOfFolds, byte[] labels, Random randomNumberGenerator) {
+		
+		int numberOfRecords = labels.length;
+		if (numberOfFolds < 2 || numberOfFolds > numberOfRecords) {
+			throw new IllegalArgumentException("Cannot split " + numberOfRecords + " records into " + numberOfFolds + " folds");
+		}
+		
+		//Positive records at the start and negative records at the end
+		int[] recordsByLabel = new int[numberOfRecords];
+		int numberOfPositiveRecords = 0, lastNegativeRecord = numberOfRecords;
+		for (int recordNumber = 0; recordNumber < numberOfRecords; ++recordNumber) {
+			
+			if (labels[recordNumber] == BinaryDataLabel.POSITIVE_LABEL.getValue()) {
+				recordsByLabel[numberOfPositiveRecords++] = recordNumber;
+			} else {
+				recordsByLabel[--lastNegativeRecord] = recordNumber;
+			}
+		}
+		shuffle(recordsByLabel, 0, numberOfPositiveRecords, randomNumberGenerator);
+		shuffle(recordsByLabel, numberOfPositiveRecords, numberOfRecords, randomNumberGenerator);
+		
+		//Every k-th record goes to the same fold. The records of a fold are then shuffled so that the labels are mixed when
+		//training goes through the records in order.
+		int[] recordNumbers = new int[numberOfRecords], foldOffsets = new int[numberOfFolds + 1];
+		int recordCounter = 0;
+		for (int foldNumber = 0; foldNumber < numberOfFolds; ++foldNumber) {
+			
+			foldOffsets[foldNumber] = recordCounter;
+			for (int recordPosition = foldNumber; recordPosition < numberOfRecords; recordPosition += numberOfFolds) {
+				recordNumbers[recordCounter++] = recordsByLabel[recordPosition];
+			}
+			shuffle(recordNumbers, foldOffsets[foldNumber], recordCounter, randomNumberGenerator);
+		}
+		foldOffsets[numberOfFolds] = numberOfRecords;
+		
+		return new CrossValidationFolds(recordNumbers, foldOffsets);
+		
+	}
+	
+	/**
+	 * Fisher-Yates shuffle of part of an array
+	 * @param recordNumbers
+	 * @param firstRecord
+	 * @param lastRecord one past the last record to shuffle
+	 * @param randomNumberGenerator
+	 */
+	private static void shuffle(int[] recordNumbers, int firstRecord, int lastRecord, Random randomNumberGenerator) {
+		
+		for (int recordPosition = lastRecord - 1; recordPosition > firstRecord; --recordPosition) {
+			
+			int swapWith = firstRecord + randomNumberGenerator.nextInt(recordPosition - firstRecord + 1);
+			int tempRecordNumber = recordNumbers[recordPosition];
+			recordNumbers[recordPosition] = recordNumbers[swapWith];
+			recordNumbers[swapWith] = tempRecordNumber;
+		}
+		
+	}
+	
+	/**
+	 * @return number of folds
+	 */
+	public int getNumberOfFolds() {
+		return this.foldOffsets.length - 1;
+	}
+	
+	/**
+	 * @return permutation of the record numbers grouped by fold. The array is shared and must not be changed.
+	 */
+	public int[] getRecordNumbers() {
+		return this.recordNumbers;
+	}
+	
+	/**
+	 * @param foldNumber
+	 * @return position in the permutation of the first testing record of the fold
+	 */
+	public int getFirstTestingRecord(int foldNumber) {
+		return this.foldOffsets[foldNumber];
+	}
+	
+	/**
+	 * @param foldNumber
+	 * @return position in the permutation one past the last testing record of the fold
+	 */
+	public int getLastTestingRecord(int foldNumber) {
+		return this.foldOffsets[foldNumber + 1];
+	}
+	
+	/**
+	 * @param foldNumber
+	 * @return record numbers of all the other folds in a new array, which the caller may shuffle
+	 */
+	public int[] getTrainingRecords(int foldNumber) {
+		
+		int firstTestingRecord = getFirstTestingRecord(foldNumber), lastTestingRecord = getLastTestingRecord(foldNumber);
+		int[] trainingRecords = new int[this.recordNumbers.length - (lastTestingRecord - firstTestingRecord)];
+		
+		System.arraycopy(this.recordNumbers, 0, trainingRecords, 0, firstTestingRecord);
+		System.arraycopy(this.recordNumbers, lastTestingRecord, trainingRecords, firstTestingRecord, this.recordNumbers.length - lastTestingRecord);
+		
+		return trainingRecords;
+		
+	}
+	
+}
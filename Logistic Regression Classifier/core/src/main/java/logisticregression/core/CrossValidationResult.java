@@ -0,0 +1,55 @@
+package logisticregression.core;
+
+/**
+ * Outcome of training on all but one cross validation split and testing on the remaining split
+ *
+ */
+public class CrossValidationResult {
+	
+	private double accuracy;
+	private double[] weightVector;
+	private double[] objectiveValues;
+	private int numberOfEpochsRun;
+	
+	//Constructor
+	public CrossValidationResult(double accuracy, double[] weightVector, double[] objectiveValues, int numberOfEpochsRun) {
+		this.accuracy = accuracy;
+		this.weightVector = weightVector;
+		this.objectiveValues = objectiveValues;
+		this.numberOfEpochsRun = numberOfEpochsRun;
+	}
+	
+	/**
+	 * @return the same result without the weight vector, so it can be kept after the run is dropped
+	 */
+	public CrossValidationResult withoutWeightVector() {
+		return new CrossValidationResult(this.accuracy, null, this.objectiveValues, this.numberOfEpochsRun);
+	}
+	
+	//Getters
+	public double getAccuracy() {
+		return accuracy;
+	}
+	
+	/**
+	 * @return weights of the run, or null for a result without them
+	 */
+	public double[] getWeightVector() {
+		return weightVector;
+	}
+	
+	/**
+	 * @return objective value after each epoch
+	 */
+	public double[] getObjectiveValues() {
+		return objectiveValues;
+	}
+	
+	/**
+	 * @return number of epochs the run had been trained for
+	 */
+	public int getNumberOfEpochsRun() {
+		return numberOfEpochsRun;
+	}
+	
+}
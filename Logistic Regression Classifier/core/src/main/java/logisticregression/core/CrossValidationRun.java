@@ -0,0 +1,193 @@
+package logisticregression.core;
+
+import java.util.Arrays;
+
+/**
+ * Training state of one learning rate, variance value and cross validation split. The run keeps its weights, learning rate
+ * schedule and record order between calls to train, so it can be trained for a few epochs, compared with other runs and
+ * then trained further with the same result as training it for all the epochs at once.
+ */
+public class CrossValidationRun {
+	
+	private final double learningRate, varianceValue;
+	private final int testingSplitNumber;
+	private final StochasticGradientDescent stochasticGradientDescent;
+	private final EpochPermutation trainingDataOrder;
+	private final double[] objectiveValues;
+	private final TrainingInstrumentation trainingInstrumentation;
+	private int numberOfEpochsRun, epochsWithoutImprovement;
+	private boolean converged;
+	
+	/**
+	 * Constructor
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param testingSplitNumber
+	 * @param stochasticGradientDescent
+	 * @param trainingDataOrder order of the training records, which are all the records not in the testing split
+	 * @param maximumNumberOfEpochs
+	 * @param trainingInstrumentation timers for the epochs and the objective evaluation
+	 */
+	public CrossValidationRun(double learningRate, double varianceValue, int testingSplitNumber, StochasticGradientDescent stochasticGradientDescent, EpochPermutation trainingDataOrder, int maximumNumberOfEpochs, TrainingInstrumentation trainingInstrumentation) {
+		
+		this.learningRate = learningRate;
+		this.varianceValue = varianceValue;
+		this.testingSplitNumber = testingSplitNumber;
+		this.stochasticGradientDescent = stochasticGradientDescent;
+		this.trainingDataOrder = trainingDataOrder;
+		this.objectiveValues = new double[maximumNumberOfEpochs];
+		this.trainingInstrumentation = trainingInstrumentation;
+		this.numberOfEpochsRun = 0;
+		this.epochsWithoutImprovement = 0;
+		this.converged = false;
+		
+	}
+	
+	/**
+	 * Start the run from the weights of another run, if it has not been trained yet. If the learning rate is larger than
+	 * the variance value, the weight decay 1 - 2 * learningRate / variance is below -1 and would blow up any weights that
+	 * are not zero, so such a run starts from zero. Weights that are infinite or NaN are not used either.
+	 * @param weightVector weights of the run with the next stronger regularization on the same split
+	 * @return true if the run starts from the weights
+	 */
+	public boolean warmStart(double[] weightVector) {
+		
+		if (this.numberOfEpochsRun > 0 || this.learningRate > this.varianceValue) {
+			return false;
+		}
+		
+		for (double weight : weightVector) {
+			if (Double.isNaN(weight) || Double.isInfinite(weight)) {
+				return false;
+			}
+		}
+		
+		this.stochasticGradientDescent.setInitialWeights(weightVector);
+		return true;
+		
+	}
+	
+	/**
+	 * Train until the run has had the given number of epochs in total or has converged, then test on the testing split
+	 * @param featureMatrix
+	 * @param labels
+	 * @param crossValidationFolds
+	 * @param numberOfEpochs total number of epochs, including those already run
+	 * @param convergenceTolerance smallest relative decrease of the objective that counts as an improvement
+	 * @param convergencePatience number of epochs in a row without improvement after which the run has converged, or 0 to
+	 * always run all the epochs
+	 * @param recordObjectiveValues true to keep the objective value of each epoch even without early stopping
+	 * @return accuracy on the testing split, the weight vector and the objective value of each epoch run so far if they were
+	 * recorded. The objective is the loss accumulated during the epoch plus the regularizer at the end of the epoch.
+	 */
+	public CrossValidationResult train(SparseFeatureMatrix featureMatrix, byte[] labels, CrossValidationFolds crossValidationFolds, int numberOfEpochs, double convergenceTolerance, int convergencePatience, boolean recordObjectiveValues) {
+		
+		//The objective is only measured when something uses it
+		boolean measureObjective = recordObjectiveValues || convergencePatience > 0;
+		this.stochasticGradientDescent.setLossAccumulation(measureObjective);
+		
+		while (this.numberOfEpochsRun < numberOfEpochs && !this.converged) {
+			
+			PhaseTimer epochTimer = this.trainingInstrumentation.startPhase(TrainingPhase.EPOCH);
+			
+			//Shuffle the training data for each subsequent epoch
+			if (this.numberOfEpochsRun > 0) {
+				this.trainingDataOrder.nextEpoch();
+			}
+			int[] trainingDataSubsetRecords = this.trainingDataOrder.getRecordNumbers();
+			
+			//The order for the next epoch can be shuffled while this one trains, if this call runs another epoch
+			if (this.numberOfEpochsRun + 1 < numberOfEpochs) {
+				this.trainingDataOrder.prepareNextEpoch();
+			}
+			
+			//Find the optimum weights by running stochastic gradient descent
+			this.stochasticGradientDescent.runEpoch(featureMatrix, labels, trainingDataSubsetRecords);
+			epochTimer.stop(trainingDataSubsetRecords.length);
+			this.trainingInstrumentation.epochCompleted();
+			
+			double objectiveValue = Double.NaN;
+			if (measureObjective) {
+				PhaseTimer objectiveTimer = this.trainingInstrumentation.startPhase(TrainingPhase.OBJECTIVE_EVALUATION);
+				objectiveValue = this.stochasticGradientDescent.getEpochObjectiveValue();
+				objectiveTimer.stop(0);
+			}
+			
+			//Count the epochs in a row in which the objective has hardly moved
+			if (convergencePatience > 0 && this.numberOfEpochsRun > 0) {
+				
+				double previousObjectiveValue = this.objectiveValues[this.numberOfEpochsRun - 1];
+				if (previousObjectiveValue - objectiveValue < convergenceTolerance * Math.abs(previousObjectiveValue)) {
+					this.converged = ++this.epochsWithoutImprovement >= convergencePatience;
+				} else {
+					this.epochsWithoutImprovement = 0;
+				}
+			}
+			
+			this.objectiveValues[this.numberOfEpochsRun++] = objectiveValue;
+			
+		}
+		
+		//Get accuracy for current settings
+		double accuracy = getAccuracy(featureMatrix, labels, crossValidationFolds.getRecordNumbers(), crossValidationFolds.getFirstTestingRecord(this.testingSplitNumber), crossValidationFolds.getLastTestingRecord(this.testingSplitNumber), this.stochasticGradientDescent.getWeightVector());
+		
+		return new CrossValidationResult(accuracy, this.stochasticGradientDescent.getWeightVector(), Arrays.copyOf(this.objectiveValues, recordObjectiveValues ? this.numberOfEpochsRun : 0), this.numberOfEpochsRun);
+		
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param labels
+	 * @param recordNumbers
+	 * @param firstTestingRecord position in the record numbers of the first record to test
+	 * @param lastTestingRecord position in the record numbers one past the last record to test
+	 * @param weightVector
+	 * @return fraction of records for which the predicted label matches the actual label
+	 */
+	static double getAccuracy(SparseFeatureMatrix featureMatrix, byte[] labels, int[] recordNumbers, int firstTestingRecord, int lastTestingRecord, double[] weightVector) {
+		
+		assert lastTestingRecord > firstTestingRecord;
+		
+		int correctPredictions = 0;
+		for (int recordPosition = firstTestingRecord; recordPosition < lastTestingRecord; ++recordPosition) {
+			
+			int recordNumber = recordNumbers[recordPosition];
+			int predictedLabel = featureMatrix.getDotProduct(recordNumber, weightVector) >= 0 ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue();
+			if (predictedLabel == labels[recordNumber]) {
+				++correctPredictions;
+			}
+			
+		}
+		
+		return (double) correctPredictions / (lastTestingRecord - firstTestingRecord);
+		
+	}
+	
+	//Getters
+	public double getLearningRate() {
+		return learningRate;
+	}
+	
+	public double getVarianceValue() {
+		return varianceValue;
+	}
+	
+	public int getTestingSplitNumber() {
+		return testingSplitNumber;
+	}
+	
+	/**
+	 * @return number of epochs run so far
+	 */
+	public int getNumberOfEpochsRun() {
+		return numberOfEpochsRun;
+	}
+	
+	/**
+	 * @return true if the objective stopped improving and the run will not train any further
+	 */
+	public boolean isConverged() {
+		return converged;
+	}
+	
+}
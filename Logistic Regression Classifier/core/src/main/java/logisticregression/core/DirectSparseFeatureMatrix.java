@@ -0,0 +1,269 @@
+package logisticregression.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Sparse feature matrix held outside the heap, in direct buffers or in memory mapped regions of a file. A buffer holds at
+ * most 2 GB, so the row offsets, column indices and values are each split into blocks of BLOCK_SIZE entries, and entry i
+ * is at position i % BLOCK_SIZE of block i / BLOCK_SIZE. Only the block arrays are on the heap, so the garbage collector
+ * has next to nothing to scan however large the data set is. The buffers are read with absolute gets, so any number of
+ * threads can train and score from the same matrix.
+ */
+public class DirectSparseFeatureMatrix extends SparseFeatureMatrix {
+	
+	public static final int BLOCK_SHIFT = 27, BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1, MINIMUM_BLOCK_CAPACITY = 1024;
+	
+	private final int numberOfRows;
+	private final IntBuffer[] rowOffsetBlocks, columnIndexBlocks;
+	private final DoubleBuffer[] valueBlocks;
+	
+	/**
+	 * Constructor
+	 * @param numberOfColumns number of columns including the bias column
+	 * @param numberOfRows
+	 * @param rowOffsetBlocks start of each row among the stored values, followed by the number of stored values
+	 * @param columnIndexBlocks column number of each stored value, starting from 1
+	 * @param valueBlocks stored values
+	 */
+	public DirectSparseFeatureMatrix(int numberOfColumns, int numberOfRows, IntBuffer[] rowOffsetBlocks, IntBuffer[] columnIndexBlocks, DoubleBuffer[] valueBlocks) {
+		
+		super(numberOfColumns);
+		
+		if (rowOffsetBlocks.length < getNumberOfBlocks(numberOfRows + 1L) || columnIndexBlocks.length != valueBlocks.length) {
+			throw new IllegalArgumentException("Blocks do not match " + numberOfRows + " rows");
+		}
+		
+		this.numberOfRows = numberOfRows;
+		this.rowOffsetBlocks = rowOffsetBlocks;
+		this.columnIndexBlocks = columnIndexBlocks;
+		this.valueBlocks = valueBlocks;
+		
+		if (getNumberOfBlocks(getNumberOfNonZeros()) > valueBlocks.length) {
+			throw new IllegalArgumentException("Blocks do not hold " + getNumberOfNonZeros() + " values");
+		}
+		
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @return a copy of the matrix in direct buffers
+	 */
+	public static DirectSparseFeatureMatrix copyOf(SparseFeatureMatrix featureMatrix) {
+		
+		int numberOfRows = featureMatrix.getNumberOfRows(), numberOfNonZeros = featureMatrix.getNumberOfNonZeros();
+		IntBuffer[] rowOffsetBlocks = ensureCapacity(new IntBuffer[0], numberOfRows + 1L);
+		IntBuffer[] columnIndexBlocks = ensureCapacity(new IntBuffer[0], numberOfNonZeros);
+		DoubleBuffer[] valueBlocks = ensureCapacity(new DoubleBuffer[0], numberOfNonZeros);
+		
+		for (int rowNumber = 0; rowNumber <= numberOfRows; ++rowNumber) {
+			rowOffsetBlocks[rowNumber >>> BLOCK_SHIFT].put(rowNumber & BLOCK_MASK, featureMatrix.getRowStart(rowNumber));
+		}
+		for (int valueIndex = 0; valueIndex < numberOfNonZeros; ++valueIndex) {
+			columnIndexBlocks[valueIndex >>> BLOCK_SHIFT].put(valueIndex & BLOCK_MASK, featureMatrix.getColumnIndex(valueIndex));
+			valueBlocks[valueIndex >>> BLOCK_SHIFT].put(valueIndex & BLOCK_MASK, featureMatrix.getValue(valueIndex));
+		}
+		
+		return new DirectSparseFeatureMatrix(featureMatrix.getNumberOfColumns(), numberOfRows, rowOffsetBlocks, columnIndexBlocks, valueBlocks);
+		
+	}
+	
+	/**
+	 * @param numberOfEntries
+	 * @return number of blocks needed for the entries
+	 */
+	public static int getNumberOfBlocks(long numberOfEntries) {
+		return (int) ((numberOfEntries + BLOCK_MASK) >>> BLOCK_SHIFT);
+	}
+	
+	/**
+	 * Make room for a number of entries. Every block but the last holds BLOCK_SIZE entries, and the last block is copied
+	 * into one twice as large when it is full, until it reaches BLOCK_SIZE.
+	 * @param blocks
+	 * @param capacity number of entries needed
+	 * @return the blocks, or new blocks with the same contents and room for the entries
+	 */
+	static IntBuffer[] ensureCapacity(IntBuffer[] blocks, long capacity) {
+		
+		int numberOfBlocks = Math.max(getNumberOfBlocks(capacity), 1);
+		int lastBlockCapacity = getLastBlockCapacity(capacity);
+		if (blocks.length == numberOfBlocks && blocks[numberOfBlocks - 1].capacity() >= lastBlockCapacity) {
+			return blocks;
+		}
+		
+		IntBuffer[] newBlocks = Arrays.copyOf(blocks, numberOfBlocks);
+		for (int blockNumber = Math.max(blocks.length - 1, 0); blockNumber < numberOfBlocks; ++blockNumber) {
+			
+			IntBuffer oldBlock = blockNumber < blocks.length ? blocks[blockNumber] : null;
+			int blockCapacity = blockNumber < numberOfBlocks - 1 ? BLOCK_SIZE : getGrownCapacity(oldBlock != null ? oldBlock.capacity() : 0, lastBlockCapacity);
+			if (oldBlock != null && oldBlock.capacity() >= blockCapacity) {
+				continue;
+			}
+			
+			newBlocks[blockNumber] = ByteBuffer.allocateDirect(4 * blockCapacity).order(ByteOrder.nativeOrder()).asIntBuffer();
+			if (oldBlock != null) {
+				newBlocks[blockNumber].put(oldBlock.duplicate().clear());
+			}
+		}
+		
+		return newBlocks;
+		
+	}
+	
+	/**
+	 * Make room for a number of entries, see ensureCapacity for int blocks
+	 * @param blocks
+	 * @param capacity number of entries needed
+	 * @return the blocks, or new blocks with the same contents and room for the entries
+	 */
+	static DoubleBuffer[] ensureCapacity(DoubleBuffer[] blocks, long capacity) {
+		
+		int numberOfBlocks = Math.max(getNumberOfBlocks(capacity), 1);
+		int lastBlockCapacity = getLastBlockCapacity(capacity);
+		if (blocks.length == numberOfBlocks && blocks[numberOfBlocks - 1].capacity() >= lastBlockCapacity) {
+			return blocks;
+		}
+		
+		DoubleBuffer[] newBlocks = Arrays.copyOf(blocks, numberOfBlocks);
+		for (int blockNumber = Math.max(blocks.length - 1, 0); blockNumber < numberOfBlocks; ++blockNumber) {
+			
+			DoubleBuffer oldBlock = blockNumber < blocks.length ? blocks[blockNumber] : null;
+			int blockCapacity = blockNumber < numberOfBlocks - 1 ? BLOCK_SIZE : getGrownCapacity(oldBlock != null ? oldBlock.capacity() : 0, lastBlockCapacity);
+			if (oldBlock != null && oldBlock.capacity() >= blockCapacity) {
+				continue;
+			}
+			
+			newBlocks[blockNumber] = ByteBuffer.allocateDirect(8 * blockCapacity).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			if (oldBlock != null) {
+				newBlocks[blockNumber].put(oldBlock.duplicate().clear());
+			}
+		}
+		
+		return newBlocks;
+		
+	}
+	
+	/**
+	 * @param capacity number of entries needed
+	 * @return number of those entries that fall in the last block
+	 */
+	private static int getLastBlockCapacity(long capacity) {
+		return capacity == 0 ? 0 : (int) (capacity - ((long) (getNumberOfBlocks(capacity) - 1) << BLOCK_SHIFT));
+	}
+	
+	/**
+	 * @param currentCapacity
+	 * @param neededCapacity
+	 * @return the current capacity doubled until it is enough, and at most BLOCK_SIZE
+	 */
+	private static int getGrownCapacity(int currentCapacity, int neededCapacity) {
+		
+		long blockCapacity = Math.max(currentCapacity, MINIMUM_BLOCK_CAPACITY);
+		while (blockCapacity < neededCapacity) {
+			blockCapacity *= 2;
+		}
+		return (int) Math.min(blockCapacity, BLOCK_SIZE);
+		
+	}
+	
+	@Override
+	public SparseFeatureMatrix withNumberOfColumns(int numberOfColumns) {
+		return new DirectSparseFeatureMatrix(numberOfColumns, this.numberOfRows, this.rowOffsetBlocks, this.columnIndexBlocks, this.valueBlocks);
+	}
+	
+	@Override
+	public int getNumberOfRows() {
+		return this.numberOfRows;
+	}
+	
+	@Override
+	public int getRowStart(int rowNumber) {
+		return this.rowOffsetBlocks[rowNumber >>> BLOCK_SHIFT].get(rowNumber & BLOCK_MASK);
+	}
+	
+	@Override
+	public int getColumnIndex(int valueIndex) {
+		return this.columnIndexBlocks[valueIndex >>> BLOCK_SHIFT].get(valueIndex & BLOCK_MASK);
+	}
+	
+	@Override
+	public double getValue(int valueIndex) {
+		return this.valueBlocks[valueIndex >>> BLOCK_SHIFT].get(valueIndex & BLOCK_MASK);
+	}
+	
+	@Override
+	public double getDotProduct(int rowNumber, double[] weightVector) {
+		
+		double dotProduct = weightVector[0];
+		int valueIndex = getRowStart(rowNumber), rowEnd = getRowStart(rowNumber + 1);
+		
+		//A row can run over the end of a block, so each block it is in is read in turn
+		while (valueIndex < rowEnd) {
+			
+			int blockNumber = valueIndex >>> BLOCK_SHIFT, blockStart = blockNumber << BLOCK_SHIFT;
+			int blockEnd = (int) Math.min(rowEnd, (long) blockStart + BLOCK_SIZE);
+			IntBuffer columnIndexBlock = this.columnIndexBlocks[blockNumber];
+			DoubleBuffer valueBlock = this.valueBlocks[blockNumber];
+			
+			for (int blockIndex = valueIndex - blockStart, blockIndexEnd = blockEnd - blockStart; blockIndex < blockIndexEnd; ++blockIndex) {
+				dotProduct += valueBlock.get(blockIndex) * weightVector[columnIndexBlock.get(blockIndex)];
+			}
+			valueIndex = blockEnd;
+		}
+		return dotProduct;
+		
+	}
+	
+	@Override
+	public double getMargin(int rowNumber, double[] weightVector) {
+		
+		double margin = weightVector[0];
+		int valueIndex = getRowStart(rowNumber), rowEnd = getRowStart(rowNumber + 1);
+		
+		while (valueIndex < rowEnd) {
+			
+			int blockNumber = valueIndex >>> BLOCK_SHIFT, blockStart = blockNumber << BLOCK_SHIFT;
+			int blockEnd = (int) Math.min(rowEnd, (long) blockStart + BLOCK_SIZE);
+			IntBuffer columnIndexBlock = this.columnIndexBlocks[blockNumber];
+			DoubleBuffer valueBlock = this.valueBlocks[blockNumber];
+			
+			for (int blockIndex = valueIndex - blockStart, blockIndexEnd = blockEnd - blockStart; blockIndex < blockIndexEnd; ++blockIndex) {
+				
+				int columnIndex = columnIndexBlock.get(blockIndex);
+				if (columnIndex < weightVector.length) {
+					margin += valueBlock.get(blockIndex) * weightVector[columnIndex];
+				}
+			}
+			valueIndex = blockEnd;
+		}
+		return margin;
+		
+	}
+	
+	@Override
+	public void addScaledRow(int rowNumber, double multiplyWith, double[] vector) {
+		
+		vector[0] += multiplyWith;
+		int valueIndex = getRowStart(rowNumber), rowEnd = getRowStart(rowNumber + 1);
+		
+		while (valueIndex < rowEnd) {
+			
+			int blockNumber = valueIndex >>> BLOCK_SHIFT, blockStart = blockNumber << BLOCK_SHIFT;
+			int blockEnd = (int) Math.min(rowEnd, (long) blockStart + BLOCK_SIZE);
+			IntBuffer columnIndexBlock = this.columnIndexBlocks[blockNumber];
+			DoubleBuffer valueBlock = this.valueBlocks[blockNumber];
+			
+			for (int blockIndex = valueIndex - blockStart, blockIndexEnd = blockEnd - blockStart; blockIndex < blockIndexEnd; ++blockIndex) {
+				vector[columnIndexBlock.get(blockIndex)] += multiplyWith * valueBlock.get(blockIndex);
+			}
+			valueIndex = blockEnd;
+		}
+		
+	}
+	
+}
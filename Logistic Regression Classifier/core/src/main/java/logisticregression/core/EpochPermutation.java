@@ -0,0 +1,123 @@
+package logisticregression.core;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Order in which the training records are visited in each epoch. Only the array of record numbers is shuffled, never the
+ * feature matrix. Each epoch's order is a Fisher-Yates shuffle of the previous one. With a shuffle executor, the order for
+ * the next epoch can be shuffled into a second array while the current epoch trains, see prepareNextEpoch, and the two
+ * arrays are swapped between epochs. Nothing is shuffled or allocated for that until the first epoch that is followed by
+ * another starts. The orders are the same with or without the executor.
+ */
+public class EpochPermutation {
+	
+	private int[] currentRecordNumbers, nextRecordNumbers;
+	private final SplittableRandom randomNumberGenerator;
+	private final ExecutorService shuffleExecutor;
+	private Future<?> nextShuffle;
+	
+	/**
+	 * Constructor
+	 * @param recordNumbers order for the first epoch, shuffled in place by later epochs
+	 * @param randomSeed
+	 * @param shuffleExecutor executor shuffling the next order in the background, or null to shuffle between epochs
+	 */
+	public EpochPermutation(int[] recordNumbers, long randomSeed, ExecutorService shuffleExecutor) {
+		
+		this.currentRecordNumbers = recordNumbers;
+		this.randomNumberGenerator = new SplittableRandom(randomSeed);
+		this.shuffleExecutor = shuffleExecutor;
+		this.nextShuffle = null;
+		
+	}
+	
+	/**
+	 * Fisher-Yates shuffle, which gives every order the same probability
+	 * @param recordNumbers shuffled in place
+	 * @param randomNumberGenerator
+	 */
+	public static void shuffle(int[] recordNumbers, SplittableRandom randomNumberGenerator) {
+		
+		for (int recordPosition = recordNumbers.length - 1; recordPosition > 0; --recordPosition) {
+			
+			int swapWith = randomNumberGenerator.nextInt(recordPosition + 1);
+			int tempRecordNumber = recordNumbers[recordPosition];
+			recordNumbers[recordPosition] = recordNumbers[swapWith];
+			recordNumbers[swapWith] = tempRecordNumber;
+		}
+		
+	}
+	
+	/**
+	 * @return record numbers in the order for the current epoch. They must not be changed.
+	 */
+	public int[] getRecordNumbers() {
+		return this.currentRecordNumbers;
+	}
+	
+	/**
+	 * Start shuffling the order for the next epoch on the shuffle executor, if there is one, while the current epoch trains.
+	 * Call this at the start of an epoch only if another epoch will follow.
+	 */
+	public void prepareNextEpoch() {
+		
+		if (this.shuffleExecutor == null || this.nextShuffle != null) {
+			return;
+		}
+		
+		if (this.nextRecordNumbers == null) {
+			this.nextRecordNumbers = new int[this.currentRecordNumbers.length];
+		}
+		startNextShuffle();
+		
+	}
+	
+	/**
+	 * Move on to the order for the next epoch, waiting for it if it is being shuffled in the background and shuffling it
+	 * here otherwise
+	 */
+	public void nextEpoch() {
+		
+		if (this.nextShuffle == null) {
+			shuffle(this.currentRecordNumbers, this.randomNumberGenerator);
+			return;
+		}
+		
+		try {
+			this.nextShuffle.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the next epoch order", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Shuffling the next epoch order failed", e.getCause());
+		}
+		
+		int[] previousRecordNumbers = this.currentRecordNumbers;
+		this.currentRecordNumbers = this.nextRecordNumbers;
+		this.nextRecordNumbers = previousRecordNumbers;
+		this.nextShuffle = null;
+		
+	}
+	
+	/**
+	 * Copy the current order into the spare array and shuffle it on the shuffle executor. The current order is only read.
+	 */
+	private void startNextShuffle() {
+		
+		final int[] sourceRecordNumbers = this.currentRecordNumbers, targetRecordNumbers = this.nextRecordNumbers;
+		this.nextShuffle = this.shuffleExecutor.submit(new Runnable() {
+			
+			@Override
+			public void run() {
+				System.arraycopy(sourceRecordNumbers, 0, targetRecordNumbers, 0, sourceRecordNumbers.length);
+				shuffle(targetRecordNumbers, randomNumberGenerator);
+			}
+			
+		});
+		
+	}
+	
+}
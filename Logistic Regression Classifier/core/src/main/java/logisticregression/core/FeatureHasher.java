@@ -0,0 +1,166 @@
+package logisticregression.core;
+
+/**
+ * Map feature numbers or feature names into a fixed number of columns with MurmurHash3, so that the number of columns and
+ * the size of the weight vector do not depend on the data. No pass over the data is needed to find the number of
+ * features, and features that first appear in later data still fit. The top bit of the hash gives each feature a sign,
+ * so that features sharing a column tend to cancel out instead of adding up. Features that share a column within a record
+ * are kept as separate entries of the row, which every operation on the feature matrix adds together.
+ */
+public class FeatureHasher {
+	
+	public static final int MINIMUM_NUMBER_OF_HASH_BITS = 1, MAXIMUM_NUMBER_OF_HASH_BITS = 30, DEFAULT_NUMBER_OF_HASH_BITS = 20;
+	public static final int HASH_SEED = 0;
+	
+	private static final int MURMUR_C1 = 0xCC9E2D51, MURMUR_C2 = 0x1B873593;
+	
+	private final int numberOfHashBits, bucketMask;
+	
+	/**
+	 * Constructor
+	 * @param numberOfHashBits features are hashed into 2 to the power of this number of columns, plus the bias column
+	 */
+	public FeatureHasher(int numberOfHashBits) {
+		
+		if (numberOfHashBits < MINIMUM_NUMBER_OF_HASH_BITS || numberOfHashBits > MAXIMUM_NUMBER_OF_HASH_BITS) {
+			throw new IllegalArgumentException("Number of hash bits must be from " + MINIMUM_NUMBER_OF_HASH_BITS + " to " + MAXIMUM_NUMBER_OF_HASH_BITS + " but was " + numberOfHashBits);
+		}
+		
+		this.numberOfHashBits = numberOfHashBits;
+		this.bucketMask = (1 << numberOfHashBits) - 1;
+		
+	}
+	
+	/**
+	 * @return number of columns of a hashed feature matrix, including the bias column
+	 */
+	public int getNumberOfColumns() {
+		return this.bucketMask + 2;
+	}
+	
+	/**
+	 * @return number of bits of the hash used for the column
+	 */
+	public int getNumberOfHashBits() {
+		return this.numberOfHashBits;
+	}
+	
+	/**
+	 * @param featureNumber
+	 * @return column of the feature, from 1 so that column 0 stays the bias column
+	 */
+	public int getColumn(int featureNumber) {
+		return 1 + (hash(featureNumber) & this.bucketMask);
+	}
+	
+	/**
+	 * @param featureNumber
+	 * @return +1 or -1, the sign the feature value takes in its column
+	 */
+	public double getSign(int featureNumber) {
+		return hash(featureNumber) < 0 ? -1.0 : 1.0;
+	}
+	
+	/**
+	 * @param featureName
+	 * @return column of the feature, from 1 so that column 0 stays the bias column
+	 */
+	public int getColumn(CharSequence featureName) {
+		return 1 + (hash(featureName) & this.bucketMask);
+	}
+	
+	/**
+	 * @param featureName
+	 * @return +1 or -1, the sign the feature value takes in its column
+	 */
+	public double getSign(CharSequence featureName) {
+		return hash(featureName) < 0 ? -1.0 : 1.0;
+	}
+	
+	/**
+	 * Hash the features of a record
+	 * @param featureNumbers
+	 * @param featureValues
+	 * @param numberOfFeatures number of entries to read from the feature number and value arrays
+	 * @param columns filled with the column of each feature, with room for at least the number of features
+	 * @param values filled with the signed value of each feature, with room for at least the number of features
+	 */
+	public void hashFeatures(int[] featureNumbers, double[] featureValues, int numberOfFeatures, int[] columns, double[] values) {
+		
+		for (int featureCounter = 0; featureCounter < numberOfFeatures; ++featureCounter) {
+			
+			int featureHash = hash(featureNumbers[featureCounter]);
+			columns[featureCounter] = 1 + (featureHash & this.bucketMask);
+			values[featureCounter] = featureHash < 0 ? -featureValues[featureCounter] : featureValues[featureCounter];
+		}
+		
+	}
+	
+	/**
+	 * @param featureNumber
+	 * @return MurmurHash3 of the feature number as one 4 byte block
+	 */
+	static int hash(int featureNumber) {
+		
+		int featureHash = mixBlock(HASH_SEED, featureNumber);
+		return finalizeHash(featureHash, 4);
+		
+	}
+	
+	/**
+	 * @param featureName
+	 * @return MurmurHash3 of the UTF-16 characters of the name, two characters to a 4 byte block
+	 */
+	static int hash(CharSequence featureName) {
+		
+		int featureHash = HASH_SEED, numberOfCharacters = featureName.length();
+		int characterIndex = 0;
+		for (; characterIndex + 1 < numberOfCharacters; characterIndex += 2) {
+			featureHash = mixBlock(featureHash, featureName.charAt(characterIndex) | (featureName.charAt(characterIndex + 1) << 16));
+		}
+		
+		//A last character on its own is mixed in like the tail of MurmurHash3
+		if (characterIndex < numberOfCharacters) {
+			int tail = featureName.charAt(characterIndex) * MURMUR_C1;
+			featureHash ^= Integer.rotateLeft(tail, 15) * MURMUR_C2;
+		}
+		
+		return finalizeHash(featureHash, 2 * numberOfCharacters);
+		
+	}
+	
+	/**
+	 * @param featureHash hash so far
+	 * @param block next 4 bytes
+	 * @return hash with the block mixed in
+	 */
+	private static int mixBlock(int featureHash, int block) {
+		
+		block *= MURMUR_C1;
+		block = Integer.rotateLeft(block, 15);
+		block *= MURMUR_C2;
+		
+		featureHash ^= block;
+		featureHash = Integer.rotateLeft(featureHash, 13);
+		return featureHash * 5 + 0xE6546B64;
+		
+	}
+	
+	/**
+	 * @param featureHash hash so far
+	 * @param numberOfBytes number of bytes hashed
+	 * @return hash with every input bit spread over every output bit
+	 */
+	private static int finalizeHash(int featureHash, int numberOfBytes) {
+		
+		featureHash ^= numberOfBytes;
+		featureHash ^= featureHash >>> 16;
+		featureHash *= 0x85EBCA6B;
+		featureHash ^= featureHash >>> 13;
+		featureHash *= 0xC2B2AE35;
+		featureHash ^= featureHash >>> 16;
+		return featureHash;
+		
+	}
+	
+}
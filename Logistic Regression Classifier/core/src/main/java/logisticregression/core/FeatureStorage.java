@@ -0,0 +1,19 @@
+package logisticregression.core;
+
+/**
+ * Enum to hold the places where the feature values of a data set can be kept
+ */
+public enum FeatureStorage {
+	
+	/**
+	 * Arrays on the Java heap
+	 */
+	HEAP,
+	
+	/**
+	 * Direct buffers outside the Java heap, or memory mapped regions of a binary cache file. The heap then only needs room
+	 * for the labels, so data sets larger than the heap can be held and the garbage collector does not scan the features.
+	 */
+	OFF_HEAP;
+	
+}
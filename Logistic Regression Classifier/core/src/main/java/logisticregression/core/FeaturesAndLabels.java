@@ -0,0 +1,28 @@
+package logisticregression.core;
+
+/**
+ *This class will store labels and features of a data set together. Labels are stored as one byte of +1 or -1 each.
+ *
+ */
+public class FeaturesAndLabels {
+
+	private SparseFeatureMatrix featureMatrix;
+	private byte[] labels;
+	
+	//Constructor
+	public FeaturesAndLabels(SparseFeatureMatrix featureMatrix, byte[] labels) {
+		assert featureMatrix.getNumberOfRows() == labels.length;
+		this.featureMatrix = featureMatrix;
+		this.labels = labels;
+	}
+	
+	//Getters
+	public byte[] getLabels() {
+		return labels;
+	}
+
+	public SparseFeatureMatrix getFeatureMatrix() {
+		return featureMatrix;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,175 @@
+package logisticregression.core;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Collect records one at a time into the arrays of a sparse feature matrix and a label array. With off-heap storage the
+ * features go straight into the direct buffers of a DirectSparseFeatureMatrix, so that only the labels are on the heap.
+ *
+ */
+public class FeaturesAndLabelsBuilder {
+	
+	private static final int INITIAL_CAPACITY = 1024;
+	
+	private int[] rowOffsets, columnIndices;
+	private byte[] labels;
+	private double[] values;
+	private int numberOfRecords, numberOfValues, maximumFeatureNumber;
+	private FeatureHasher featureHasher;
+	private int[] hashedColumns;
+	private double[] hashedValues;
+	private FeatureStorage featureStorage;
+	private IntBuffer[] rowOffsetBlocks, columnIndexBlocks;
+	private DoubleBuffer[] valueBlocks;
+	
+	/**
+	 * Constructor
+	 */
+	public FeaturesAndLabelsBuilder() {
+		this(null);
+	}
+	
+	/**
+	 * Constructor
+	 * @param featureHasher hasher mapping the feature numbers of each record to columns, or null to use the feature numbers as columns
+	 */
+	public FeaturesAndLabelsBuilder(FeatureHasher featureHasher) {
+		this(featureHasher, FeatureStorage.HEAP);
+	}
+	
+	/**
+	 * Constructor
+	 * @param featureHasher hasher mapping the feature numbers of each record to columns, or null to use the feature numbers as columns
+	 * @param featureStorage where the feature matrix is built
+	 */
+	public FeaturesAndLabelsBuilder(FeatureHasher featureHasher, FeatureStorage featureStorage) {
+		
+		this.featureStorage = featureStorage;
+		if (featureStorage == FeatureStorage.OFF_HEAP) {
+			this.rowOffsetBlocks = DirectSparseFeatureMatrix.ensureCapacity(new IntBuffer[0], INITIAL_CAPACITY + 1);
+			this.columnIndexBlocks = DirectSparseFeatureMatrix.ensureCapacity(new IntBuffer[0], INITIAL_CAPACITY);
+			this.valueBlocks = DirectSparseFeatureMatrix.ensureCapacity(new DoubleBuffer[0], INITIAL_CAPACITY);
+		} else {
+			this.rowOffsets = new int[INITIAL_CAPACITY + 1];
+			this.columnIndices = new int[INITIAL_CAPACITY];
+			this.values = new double[INITIAL_CAPACITY];
+		}
+		this.labels = new byte[INITIAL_CAPACITY];
+		this.numberOfRecords = 0;
+		this.numberOfValues = 0;
+		this.maximumFeatureNumber = 0;
+		this.featureHasher = featureHasher;
+		this.hashedColumns = featureHasher != null ? new int[16] : null;
+		this.hashedValues = featureHasher != null ? new double[16] : null;
+		
+	}
+	
+	/**
+	 * Add a record. Features with a value of zero are not stored.
+	 * @param label +1 or -1
+	 * @param featureNumbers feature numbers starting from 1
+	 * @param featureValues
+	 * @param numberOfFeatures number of entries to read from the feature number and value arrays
+	 */
+	public void addRecord(int label, int[] featureNumbers, double[] featureValues, int numberOfFeatures) {
+		
+		//Hashed features are stored in place of the feature numbers
+		if (this.featureHasher != null) {
+			
+			if (numberOfFeatures > this.hashedColumns.length) {
+				this.hashedColumns = new int[Math.max(2 * this.hashedColumns.length, numberOfFeatures)];
+				this.hashedValues = new double[this.hashedColumns.length];
+			}
+			
+			this.featureHasher.hashFeatures(featureNumbers, featureValues, numberOfFeatures, this.hashedColumns, this.hashedValues);
+			featureNumbers = this.hashedColumns;
+			featureValues = this.hashedValues;
+		}
+		
+		if ((long) this.numberOfValues + numberOfFeatures > Integer.MAX_VALUE) {
+			throw new IllegalStateException("A feature matrix holds at most " + Integer.MAX_VALUE + " values");
+		}
+		
+		//Grow the arrays if needed
+		if (this.numberOfRecords == this.labels.length) {
+			this.labels = Arrays.copyOf(this.labels, 2 * this.labels.length);
+			if (this.featureStorage == FeatureStorage.HEAP) {
+				this.rowOffsets = Arrays.copyOf(this.rowOffsets, this.labels.length + 1);
+			}
+		}
+		
+		if (this.featureStorage == FeatureStorage.OFF_HEAP) {
+			this.rowOffsetBlocks = DirectSparseFeatureMatrix.ensureCapacity(this.rowOffsetBlocks, this.numberOfRecords + 2L);
+			this.columnIndexBlocks = DirectSparseFeatureMatrix.ensureCapacity(this.columnIndexBlocks, (long) this.numberOfValues + numberOfFeatures);
+			this.valueBlocks = DirectSparseFeatureMatrix.ensureCapacity(this.valueBlocks, (long) this.numberOfValues + numberOfFeatures);
+		} else if (this.numberOfValues + numberOfFeatures > this.values.length) {
+			int newCapacity = Math.max(2 * this.values.length, this.numberOfValues + numberOfFeatures);
+			this.columnIndices = Arrays.copyOf(this.columnIndices, newCapacity);
+			this.values = Arrays.copyOf(this.values, newCapacity);
+		}
+		
+		for (int featureCounter = 0; featureCounter < numberOfFeatures; ++featureCounter) {
+			
+			if (featureNumbers[featureCounter] < 1) {
+				throw new IllegalArgumentException("Feature numbers must start from 1");
+			}
+			
+			//Zero values do not need to be stored
+			if (featureValues[featureCounter] != 0.0) {
+				if (this.featureStorage == FeatureStorage.OFF_HEAP) {
+					this.columnIndexBlocks[this.numberOfValues >>> DirectSparseFeatureMatrix.BLOCK_SHIFT].put(this.numberOfValues & (DirectSparseFeatureMatrix.BLOCK_SIZE - 1), featureNumbers[featureCounter]);
+					this.valueBlocks[this.numberOfValues >>> DirectSparseFeatureMatrix.BLOCK_SHIFT].put(this.numberOfValues & (DirectSparseFeatureMatrix.BLOCK_SIZE - 1), featureValues[featureCounter]);
+				} else {
+					this.columnIndices[this.numberOfValues] = featureNumbers[featureCounter];
+					this.values[this.numberOfValues] = featureValues[featureCounter];
+				}
+				++this.numberOfValues;
+				this.maximumFeatureNumber = Math.max(this.maximumFeatureNumber, featureNumbers[featureCounter]);
+			}
+		}
+		
+		this.labels[this.numberOfRecords++] = (byte) label;
+		if (this.featureStorage == FeatureStorage.OFF_HEAP) {
+			this.rowOffsetBlocks[this.numberOfRecords >>> DirectSparseFeatureMatrix.BLOCK_SHIFT].put(this.numberOfRecords & (DirectSparseFeatureMatrix.BLOCK_SIZE - 1), this.numberOfValues);
+		} else {
+			this.rowOffsets[this.numberOfRecords] = this.numberOfValues;
+		}
+		
+	}
+	
+	/**
+	 * @return number of records added so far
+	 */
+	public int getNumberOfRecords() {
+		return this.numberOfRecords;
+	}
+	
+	/**
+	 * @return the largest feature number with a non zero value, or the largest column if the features are hashed
+	 */
+	public int getMaximumFeatureNumber() {
+		return this.maximumFeatureNumber;
+	}
+	
+	/**
+	 * @param numberOfColumns number of columns including the bias column, at least getMaximumFeatureNumber() + 1
+	 * @return the records added so far. Off the heap the matrix shares the builder's buffers, which records added later do
+	 * not change.
+	 */
+	public FeaturesAndLabels build(int numberOfColumns) {
+		
+		assert numberOfColumns > this.maximumFeatureNumber;
+		
+		if (this.featureStorage == FeatureStorage.OFF_HEAP) {
+			SparseFeatureMatrix featureMatrix = new DirectSparseFeatureMatrix(numberOfColumns, this.numberOfRecords, this.rowOffsetBlocks, this.columnIndexBlocks, this.valueBlocks);
+			return new FeaturesAndLabels(featureMatrix, Arrays.copyOf(this.labels, this.numberOfRecords));
+		}
+		
+		SparseFeatureMatrix featureMatrix = new HeapSparseFeatureMatrix(numberOfColumns, Arrays.copyOf(this.rowOffsets, this.numberOfRecords + 1), Arrays.copyOf(this.columnIndices, this.numberOfValues), Arrays.copyOf(this.values, this.numberOfValues));
+		return new FeaturesAndLabels(featureMatrix, Arrays.copyOf(this.labels, this.numberOfRecords));
+		
+	}
+	
+}
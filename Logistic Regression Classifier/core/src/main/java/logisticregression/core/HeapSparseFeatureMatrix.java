@@ -0,0 +1,114 @@
+package logisticregression.core;
+
+/**
+ * Sparse feature matrix held in arrays on the heap. The features of row r are at positions rowOffsets[r] to
+ * rowOffsets[r + 1] - 1 of the column index and value arrays.
+ */
+public class HeapSparseFeatureMatrix extends SparseFeatureMatrix {
+	
+	private int[] rowOffsets;
+	private int[] columnIndices;
+	private double[] values;
+	
+	/**
+	 * Constructor
+	 * @param numberOfColumns number of columns including the bias column
+	 * @param rowOffsets start of each row in the column index and value arrays, followed by the number of non zero values
+	 * @param columnIndices column number of each non zero value, starting from 1
+	 * @param values non zero values
+	 */
+	public HeapSparseFeatureMatrix(int numberOfColumns, int[] rowOffsets, int[] columnIndices, double[] values) {
+		
+		super(numberOfColumns);
+		
+		assert rowOffsets.length > 0 && columnIndices.length == values.length && rowOffsets[rowOffsets.length - 1] <= values.length;
+		
+		this.rowOffsets = rowOffsets;
+		this.columnIndices = columnIndices;
+		this.values = values;
+		
+	}
+	
+	@Override
+	public SparseFeatureMatrix withNumberOfColumns(int numberOfColumns) {
+		return new HeapSparseFeatureMatrix(numberOfColumns, this.rowOffsets, this.columnIndices, this.values);
+	}
+	
+	@Override
+	public int getNumberOfRows() {
+		return this.rowOffsets.length - 1;
+	}
+	
+	@Override
+	public int getRowStart(int rowNumber) {
+		return this.rowOffsets[rowNumber];
+	}
+	
+	@Override
+	public int getColumnIndex(int valueIndex) {
+		return this.columnIndices[valueIndex];
+	}
+	
+	@Override
+	public double getValue(int valueIndex) {
+		return this.values[valueIndex];
+	}
+	
+	/**
+	 * @return start of each row in the column index and value arrays, followed by the number of non zero values. The array is not copied.
+	 */
+	public int[] getRowOffsets() {
+		return this.rowOffsets;
+	}
+	
+	/**
+	 * @return column number of each non zero value. The array is not copied.
+	 */
+	public int[] getColumnIndices() {
+		return this.columnIndices;
+	}
+	
+	/**
+	 * @return non zero values. The array is not copied.
+	 */
+	public double[] getValues() {
+		return this.values;
+	}
+	
+	@Override
+	public double getDotProduct(int rowNumber, double[] weightVector) {
+		
+		double dotProduct = weightVector[0];
+		for (int valueIndex = this.rowOffsets[rowNumber], rowEnd = this.rowOffsets[rowNumber + 1]; valueIndex < rowEnd; ++valueIndex) {
+			dotProduct += this.values[valueIndex] * weightVector[this.columnIndices[valueIndex]];
+		}
+		return dotProduct;
+		
+	}
+	
+	@Override
+	public double getMargin(int rowNumber, double[] weightVector) {
+		
+		double margin = weightVector[0];
+		for (int valueIndex = this.rowOffsets[rowNumber], rowEnd = this.rowOffsets[rowNumber + 1]; valueIndex < rowEnd; ++valueIndex) {
+			
+			int columnIndex = this.columnIndices[valueIndex];
+			if (columnIndex < weightVector.length) {
+				margin += this.values[valueIndex] * weightVector[columnIndex];
+			}
+		}
+		return margin;
+		
+	}
+	
+	@Override
+	public void addScaledRow(int rowNumber, double multiplyWith, double[] vector) {
+		
+		vector[0] += multiplyWith;
+		for (int valueIndex = this.rowOffsets[rowNumber], rowEnd = this.rowOffsets[rowNumber + 1]; valueIndex < rowEnd; ++valueIndex) {
+			vector[this.columnIndices[valueIndex]] += multiplyWith * this.values[valueIndex];
+		}
+		
+	}
+	
+}
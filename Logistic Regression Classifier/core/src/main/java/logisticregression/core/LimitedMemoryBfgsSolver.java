@@ -0,0 +1,387 @@
+package logisticregression.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Full batch L-BFGS solver for the same regularized objective as StochasticGradientDescent, the sum of the log losses of
+ * the training records plus w.w / variance. Each iteration makes one pass over the records to get the objective and its
+ * gradient, or a few passes if the line search has to shorten the step, and there is no learning rate to tune. The passes
+ * can be split into chunks of records that run in parallel. Each chunk adds into its own gradient, and the chunks are
+ * added together in order, so the result does not depend on thread timing.
+ */
+public class LimitedMemoryBfgsSolver {
+	
+	public static final int DEFAULT_MEMORY = 10, DEFAULT_MAXIMUM_ITERATIONS = 100, MAXIMUM_LINE_SEARCH_STEPS = 30;
+	public static final double DEFAULT_GRADIENT_TOLERANCE = 1e-5, SUFFICIENT_DECREASE = 1e-4;
+	
+	private final int numberOfColumns;
+	private final double varianceValue;
+	private final ExecutorService chunkExecutor;
+	private final int numberOfChunks;
+	private final double[] chunkLosses;
+	private double[][] chunkGradients;
+	private int memory, maximumIterations;
+	private double gradientTolerance;
+	private int numberOfIterations, numberOfPasses;
+	private double objectiveValue;
+	private TrainingInstrumentation trainingInstrumentation;
+	
+	/**
+	 * Constructor
+	 * @param numberOfColumns number of columns including the bias column
+	 * @param varianceValue
+	 * @param chunkExecutor executor running the chunks of each pass, or null to make the passes on the calling thread
+	 * @param numberOfChunks number of chunks the records are split into when there is an executor
+	 */
+	public LimitedMemoryBfgsSolver(int numberOfColumns, double varianceValue, ExecutorService chunkExecutor, int numberOfChunks) {
+		
+		if (numberOfChunks < 1) {
+			throw new IllegalArgumentException("Number of chunks must be at least 1 but was " + numberOfChunks);
+		}
+		
+		this.numberOfColumns = numberOfColumns;
+		this.varianceValue = varianceValue;
+		this.chunkExecutor = chunkExecutor;
+		this.numberOfChunks = chunkExecutor != null ? numberOfChunks : 1;
+		this.chunkLosses = new double[this.numberOfChunks];
+		this.chunkGradients = null;
+		this.memory = DEFAULT_MEMORY;
+		this.maximumIterations = DEFAULT_MAXIMUM_ITERATIONS;
+		this.gradientTolerance = DEFAULT_GRADIENT_TOLERANCE;
+		this.numberOfIterations = 0;
+		this.numberOfPasses = 0;
+		this.objectiveValue = Double.NaN;
+		this.trainingInstrumentation = TrainingInstrumentation.getSharedInstance();
+		
+	}
+	
+	/**
+	 * @param memory number of recent steps kept to approximate the curvature
+	 */
+	public void setMemory(int memory) {
+		
+		if (memory < 1) {
+			throw new IllegalArgumentException("Memory must be at least 1 but was " + memory);
+		}
+		this.memory = memory;
+		
+	}
+	
+	/**
+	 * @param maximumIterations
+	 */
+	public void setMaximumIterations(int maximumIterations) {
+		this.maximumIterations = maximumIterations;
+	}
+	
+	/**
+	 * @param gradientTolerance stop once the norm of the gradient has fallen by this factor from the start
+	 */
+	public void setGradientTolerance(double gradientTolerance) {
+		this.gradientTolerance = gradientTolerance;
+	}
+	
+	/**
+	 * @param trainingInstrumentation instrumentation timing each pass over the records
+	 */
+	public void setTrainingInstrumentation(TrainingInstrumentation trainingInstrumentation) {
+		this.trainingInstrumentation = trainingInstrumentation;
+	}
+	
+	/**
+	 * Minimize the objective over a subset of the records, starting from zero
+	 * @param featureMatrix
+	 * @param labels
+	 * @param recordNumbers records to train on
+	 * @return the weight vector with the bias weight first
+	 */
+	public double[] minimize(SparseFeatureMatrix featureMatrix, byte[] labels, int[] recordNumbers) {
+		
+		int numberOfColumns = this.numberOfColumns;
+		double[] weightVector = new double[numberOfColumns], gradient = new double[numberOfColumns];
+		double[] nextWeightVector = new double[numberOfColumns], nextGradient = new double[numberOfColumns];
+		double[] direction = new double[numberOfColumns];
+		
+		//Most recent steps and gradient changes, kept in a ring. A new pair is worked out in the scratch arrays and only
+		//swapped into the ring once it has been accepted, so a rejected pair leaves the oldest one intact.
+		double[] weightStep = new double[numberOfColumns], gradientStep = new double[numberOfColumns];
+		double[][] weightSteps = new double[this.memory][], gradientSteps = new double[this.memory][];
+		double[] stepCurvatures = new double[this.memory], twoLoopCoefficients = new double[this.memory];
+		int numberOfStoredSteps = 0, nextStoredStep = 0;
+		
+		this.numberOfPasses = 0;
+		this.numberOfIterations = 0;
+		double objectiveValue = evaluate(featureMatrix, labels, recordNumbers, weightVector, gradient);
+		double gradientNormLimit = this.gradientTolerance * Math.max(1.0, getNorm(gradient));
+		
+		while (this.numberOfIterations < this.maximumIterations && getNorm(gradient) > gradientNormLimit) {
+			
+			//Two loop recursion for the direction -H * gradient
+			for (int columnNumber = 0; columnNumber < numberOfColumns; ++columnNumber) {
+				direction[columnNumber] = -gradient[columnNumber];
+			}
+			for (int stepCounter = 1; stepCounter <= numberOfStoredSteps; ++stepCounter) {
+				
+				int storedStep = (nextStoredStep - stepCounter + this.memory) % this.memory;
+				twoLoopCoefficients[storedStep] = getDotProduct(weightSteps[storedStep], direction) / stepCurvatures[storedStep];
+				addScaled(direction, -twoLoopCoefficients[storedStep], gradientSteps[storedStep]);
+			}
+			
+			//Scale by the curvature of the latest step, or take a short first step along the gradient
+			double initialStepLength = 1.0;
+			if (numberOfStoredSteps > 0) {
+				int latestStep = (nextStoredStep - 1 + this.memory) % this.memory;
+				scale(direction, stepCurvatures[latestStep] / getDotProduct(gradientSteps[latestStep], gradientSteps[latestStep]));
+			} else {
+				initialStepLength = 1.0 / Math.max(1.0, getNorm(direction));
+			}
+			
+			for (int stepCounter = numberOfStoredSteps; stepCounter >= 1; --stepCounter) {
+				
+				int storedStep = (nextStoredStep - stepCounter + this.memory) % this.memory;
+				double correction = getDotProduct(gradientSteps[storedStep], direction) / stepCurvatures[storedStep];
+				addScaled(direction, twoLoopCoefficients[storedStep] - correction, weightSteps[storedStep]);
+			}
+			
+			//Backtracking line search for a step that decreases the objective enough
+			double directionalDerivative = getDotProduct(gradient, direction);
+			if (directionalDerivative >= 0) {
+				
+				//The curvature pairs no longer give a descent direction, so start again from the gradient
+				numberOfStoredSteps = 0;
+				continue;
+			}
+			
+			double stepLength = initialStepLength, nextObjectiveValue = Double.NaN;
+			int lineSearchStep = 0;
+			for (; lineSearchStep < MAXIMUM_LINE_SEARCH_STEPS; ++lineSearchStep) {
+				
+				for (int columnNumber = 0; columnNumber < numberOfColumns; ++columnNumber) {
+					nextWeightVector[columnNumber] = weightVector[columnNumber] + stepLength * direction[columnNumber];
+				}
+				nextObjectiveValue = evaluate(featureMatrix, labels, recordNumbers, nextWeightVector, nextGradient);
+				
+				if (nextObjectiveValue <= objectiveValue + SUFFICIENT_DECREASE * stepLength * directionalDerivative) {
+					break;
+				}
+				stepLength /= 2.0;
+			}
+			
+			++this.numberOfIterations;
+			if (lineSearchStep == MAXIMUM_LINE_SEARCH_STEPS) {
+				break;
+			}
+			
+			//Keep the step and the change in gradient if they show positive curvature
+			for (int columnNumber = 0; columnNumber < numberOfColumns; ++columnNumber) {
+				weightStep[columnNumber] = nextWeightVector[columnNumber] - weightVector[columnNumber];
+				gradientStep[columnNumber] = nextGradient[columnNumber] - gradient[columnNumber];
+			}
+			
+			double stepCurvature = getDotProduct(weightStep, gradientStep);
+			if (stepCurvature > 1e-10 * getDotProduct(gradientStep, gradientStep)) {
+				
+				double[] replacedWeightStep = weightSteps[nextStoredStep], replacedGradientStep = gradientSteps[nextStoredStep];
+				weightSteps[nextStoredStep] = weightStep;
+				gradientSteps[nextStoredStep] = gradientStep;
+				weightStep = replacedWeightStep != null ? replacedWeightStep : new double[numberOfColumns];
+				gradientStep = replacedGradientStep != null ? replacedGradientStep : new double[numberOfColumns];
+				stepCurvatures[nextStoredStep] = stepCurvature;
+				nextStoredStep = (nextStoredStep + 1) % this.memory;
+				numberOfStoredSteps = Math.min(numberOfStoredSteps + 1, this.memory);
+			}
+			
+			double[] previousWeightVector = weightVector, previousGradient = gradient;
+			weightVector = nextWeightVector;
+			gradient = nextGradient;
+			nextWeightVector = previousWeightVector;
+			nextGradient = previousGradient;
+			objectiveValue = nextObjectiveValue;
+			
+		}
+		
+		this.objectiveValue = objectiveValue;
+		
+		//The chunk gradients are only needed while minimizing
+		this.chunkGradients = null;
+		return weightVector;
+		
+	}
+	
+	/**
+	 * One pass over the records, split into chunks if there is an executor
+	 * @param featureMatrix
+	 * @param labels
+	 * @param recordNumbers
+	 * @param weightVector
+	 * @param gradient filled with the gradient of the objective
+	 * @return objective value
+	 */
+	double evaluate(final SparseFeatureMatrix featureMatrix, final byte[] labels, final int[] recordNumbers, final double[] weightVector, double[] gradient) {
+		
+		PhaseTimer gradientTimer = this.trainingInstrumentation.startPhase(TrainingPhase.GRADIENT_EVALUATION);
+		++this.numberOfPasses;
+		
+		double objectiveValue;
+		if (this.numberOfChunks == 1) {
+			
+			Arrays.fill(gradient, 0.0);
+			objectiveValue = addLossAndGradient(featureMatrix, labels, recordNumbers, 0, recordNumbers.length, weightVector, gradient);
+			
+		} else {
+			
+			//Each chunk adds into its own gradient, which is reused by every pass until minimize returns
+			if (this.chunkGradients == null || this.chunkGradients[0].length != weightVector.length) {
+				this.chunkGradients = new double[this.numberOfChunks][weightVector.length];
+			}
+			
+			List<Future<double[]>> chunkJobs = new ArrayList<Future<double[]>>(this.numberOfChunks);
+			final double[] chunkLosses = this.chunkLosses;
+			for (int chunkCounter = 0; chunkCounter < this.numberOfChunks; ++chunkCounter) {
+				
+				final int chunkNumber = chunkCounter;
+				final int firstRecord = (int) ((long) recordNumbers.length * chunkCounter / this.numberOfChunks);
+				final int lastRecord = (int) ((long) recordNumbers.length * (chunkCounter + 1) / this.numberOfChunks);
+				final double[] chunkGradient = this.chunkGradients[chunkCounter];
+				chunkJobs.add(this.chunkExecutor.submit(new Callable<double[]>() {
+					
+					@Override
+					public double[] call() {
+						
+						Arrays.fill(chunkGradient, 0.0);
+						chunkLosses[chunkNumber] = addLossAndGradient(featureMatrix, labels, recordNumbers, firstRecord, lastRecord, weightVector, chunkGradient);
+						return chunkGradient;
+						
+					}
+					
+				}));
+			}
+			
+			Arrays.fill(gradient, 0.0);
+			objectiveValue = 0.0;
+			try {
+				for (int chunkCounter = 0; chunkCounter < this.numberOfChunks; ++chunkCounter) {
+					addScaled(gradient, 1.0, chunkJobs.get(chunkCounter).get());
+					objectiveValue += chunkLosses[chunkCounter];
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while computing the gradient", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Computing the gradient failed", e.getCause());
+			}
+		}
+		
+		//Regularizer w.w / variance and its gradient 2w / variance
+		objectiveValue += getDotProduct(weightVector, weightVector) / this.varianceValue;
+		addScaled(gradient, 2.0 / this.varianceValue, weightVector);
+		
+		gradientTimer.stop(recordNumbers.length);
+		return objectiveValue;
+		
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param labels
+	 * @param recordNumbers
+	 * @param firstRecord position in the record numbers of the first record of the chunk
+	 * @param lastRecord position in the record numbers one past the last record of the chunk
+	 * @param weightVector
+	 * @param gradient the gradient of the log losses of the chunk is added to it
+	 * @return sum of the log losses of the chunk
+	 */
+	private static double addLossAndGradient(SparseFeatureMatrix featureMatrix, byte[] labels, int[] recordNumbers, int firstRecord, int lastRecord, double[] weightVector, double[] gradient) {
+		
+		double loss = 0.0;
+		for (int recordPosition = firstRecord; recordPosition < lastRecord; ++recordPosition) {
+			
+			int recordNumber = recordNumbers[recordPosition];
+			int label = labels[recordNumber];
+			double labelTimesMargin = label * featureMatrix.getDotProduct(recordNumber, weightVector);
+			
+			loss += StochasticGradientDescent.getLogLoss(labelTimesMargin);
+			featureMatrix.addScaledRow(recordNumber, -label / (1.0 + Math.exp(labelTimesMargin)), gradient);
+		}
+		
+		return loss;
+		
+	}
+	
+	/**
+	 * @param vector updated in place
+	 * @param multiplyWith
+	 * @param addVector
+	 */
+	private static void addScaled(double[] vector, double multiplyWith, double[] addVector) {
+		
+		for (int vectorIndex = 0; vectorIndex < vector.length; ++vectorIndex) {
+			vector[vectorIndex] += multiplyWith * addVector[vectorIndex];
+		}
+		
+	}
+	
+	/**
+	 * @param vector updated in place
+	 * @param multiplyWith
+	 */
+	private static void scale(double[] vector, double multiplyWith) {
+		
+		for (int vectorIndex = 0; vectorIndex < vector.length; ++vectorIndex) {
+			vector[vectorIndex] *= multiplyWith;
+		}
+		
+	}
+	
+	/**
+	 * @param vector1
+	 * @param vector2
+	 * @return the dot product of two vectors
+	 */
+	private static double getDotProduct(double[] vector1, double[] vector2) {
+		
+		double dotProduct = 0.0;
+		for (int vectorIndex = 0; vectorIndex < vector1.length; ++vectorIndex) {
+			dotProduct += vector1[vectorIndex] * vector2[vectorIndex];
+		}
+		return dotProduct;
+		
+	}
+	
+	/**
+	 * @param vector
+	 * @return Euclidean norm of the vector
+	 */
+	private static double getNorm(double[] vector) {
+		return Math.sqrt(getDotProduct(vector, vector));
+	}
+	
+	//Getters
+	/**
+	 * @return number of iterations of the last minimization
+	 */
+	public int getNumberOfIterations() {
+		return numberOfIterations;
+	}
+	
+	/**
+	 * @return number of passes over the records made by the last minimization, including those of the line searches
+	 */
+	public int getNumberOfPasses() {
+		return numberOfPasses;
+	}
+	
+	/**
+	 * @return objective value at the weights returned by the last minimization
+	 */
+	public double getObjectiveValue() {
+		return objectiveValue;
+	}
+	
+}
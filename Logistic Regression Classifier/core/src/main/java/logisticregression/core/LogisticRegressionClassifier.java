@@ -0,0 +1,1400 @@
+package logisticregression.core;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Support Vector Machine implementation
+ */
+public class LogisticRegressionClassifier {
+	
+	public static final int DEFAULT_NUMBER_OF_EPOCHS = 20, DEFAULT_CROSS_VALIDATION_SPLITS = 5, NUMBER_OF_CROSS_VALIDATION_FOLDS = 6;
+	public static final long RANDOM_SEED = 0;
+	public static final int MINIMUM_ROWS_PER_SCORING_CHUNK = 1024;
+	public static final List<Double> DEFAULT_LEARNING_RATES = Arrays.asList(Math.pow(10.0, 0.0), Math.pow(10.0, -1.0), Math.pow(10.0, -2.0), Math.pow(10.0, -3.0), Math.pow(10.0, -4.0), Math.pow(10.0, -5.0), Math.pow(10.0, -6.0), Math.pow(10.0, -7.0), Math.pow(10.0, -8.0), Math.pow(10.0, -9.0), Math.pow(10.0, -10.0));
+	public static final List<Double> DEFAULT_VARIANCE_VALUES = Arrays.asList(Math.pow(Math.pow(10.0, 0.0), 2.0), Math.pow(Math.pow(10.0, -1.0), 2.0), Math.pow(Math.pow(10.0, -2.0), 2.0), Math.pow(Math.pow(10.0, -3.0), 2.0), Math.pow(Math.pow(10.0, -4.0), 2.0), Math.pow(Math.pow(10.0, -5.0), 2.0), Math.pow(Math.pow(10.0, -6.0), 2.0), Math.pow(Math.pow(10.0, -7.0), 2.0), Math.pow(Math.pow(10.0, -8.0), 2.0), Math.pow(Math.pow(10.0, -9.0), 2.0), Math.pow(Math.pow(10.0, -10.0), 2.0));
+	public static final String LOG_FILE_NAME = "LogFile.txt";
+	public static final String OBJECTIVE_VALUE_FILE_NAME = "ObjectiveValue.txt";
+	
+	private int numberOfEpochsForTraining;
+	private int crossValidationSplits;
+	private List<Double> learningRatesForTraining, varianceValuesForTraining;
+	private double[] weightVector;
+	private boolean weightVectorShared;
+	private Random randomNumberGenerator;
+	private boolean runInDebug;
+	private String logFileName;
+	private TrainingEventSink trainingEventSink;
+	private List<Double> svmObjectiveTrend;
+	private List<Double> bestSvmObjectiveTrend;
+	private ExecutorService trainingExecutor;
+	private double selectedLearningRate, selectedVarianceValue;
+	private StochasticGradientDescent onlineStochasticGradientDescent;
+	private int numberOfGradientDescentThreads;
+	private WeightUpdateMode weightUpdateMode;
+	private ExecutorService gradientDescentExecutor;
+	private ExecutorService scoringExecutor;
+	private int numberOfScoringChunks;
+	private long numberOfTrainingRecords;
+	private boolean stratifiedCrossValidation;
+	private ExecutorService shuffleExecutor;
+	private int minibatchSize;
+	private double convergenceTolerance;
+	private int convergencePatience;
+	private int successiveHalvingFirstEpochs, successiveHalvingReductionFactor;
+	private TrainingInstrumentation trainingInstrumentation;
+	private boolean regularizationPath;
+	private OptimizationMethod optimizationMethod;
+	
+	/**
+	 * Constructor using default values
+	 */
+	public LogisticRegressionClassifier() {
+		this(DEFAULT_NUMBER_OF_EPOCHS, DEFAULT_CROSS_VALIDATION_SPLITS, DEFAULT_LEARNING_RATES, DEFAULT_VARIANCE_VALUES, true, LOG_FILE_NAME);
+	}
+	
+	/**
+	 * Constructor
+	 * @param numberOfEpochsForTraining
+	 * @param crossValidationSplits
+	 * @param learningRatesForTraining
+	 * @param varianceValuesForTraining
+	 * @param runInDebug
+	 * @param logFileName file for the training log, opened when the first event is written unless another sink has been
+	 * set by then. The objective values go to ObjectiveValue.txt for the default log file, and otherwise to a file named
+	 * after the log file, for example run1-objective.txt for run1.txt.
+	 */
+	public LogisticRegressionClassifier(int numberOfEpochsForTraining, int crossValidationSplits, List<Double> learningRatesForTraining, List<Double> varianceValuesForTraining, boolean runInDebug, String logFileName) {
+		
+		this.numberOfEpochsForTraining = numberOfEpochsForTraining;
+		this.crossValidationSplits = crossValidationSplits;
+		this.learningRatesForTraining = learningRatesForTraining;
+		this.varianceValuesForTraining = varianceValuesForTraining;
+		this.weightVector = new double[0];
+		this.weightVectorShared = false;
+		this.randomNumberGenerator = new Random(RANDOM_SEED);
+		this.runInDebug = runInDebug;
+		this.logFileName = logFileName;
+		this.trainingEventSink = null;
+		this.svmObjectiveTrend = new ArrayList<Double>();
+		this.bestSvmObjectiveTrend = new ArrayList<Double>();
+		this.trainingExecutor = ForkJoinPool.commonPool();
+		this.selectedLearningRate = learningRatesForTraining.get(0).doubleValue();
+		this.selectedVarianceValue = varianceValuesForTraining.get(0).doubleValue();
+		this.numberOfGradientDescentThreads = 1;
+		this.weightUpdateMode = WeightUpdateMode.LOCK_FREE;
+		this.scoringExecutor = null;
+		this.numberOfScoringChunks = 1;
+		this.numberOfTrainingRecords = 0;
+		this.stratifiedCrossValidation = false;
+		this.shuffleExecutor = null;
+		this.minibatchSize = 1;
+		this.convergenceTolerance = 0.0;
+		this.convergencePatience = 0;
+		this.successiveHalvingFirstEpochs = numberOfEpochsForTraining;
+		this.successiveHalvingReductionFactor = 1;
+		this.trainingInstrumentation = TrainingInstrumentation.getSharedInstance();
+		this.regularizationPath = false;
+		this.optimizationMethod = OptimizationMethod.STOCHASTIC_GRADIENT_DESCENT;
+		
+	}
+	
+	/**
+	 * Train the SVM. This is an adapter that copies the boxed vectors into primitive arrays once and
+	 * then trains on those.
+	 * @param featureVectors
+	 * @param trainingDataLabels
+	 */
+	public void fit(List<List<Double>> featureVectors, List<BinaryDataLabel> trainingDataLabels) {
+		fit(SparseFeatureMatrix.fromDenseRows(toPrimitiveFeatureVectors(featureVectors)), toPrimitiveLabels(trainingDataLabels));
+	}
+	
+	/**
+	 * Train the SVM. The dense feature vectors are converted to a sparse matrix once.
+	 * @param featureVectors feature vectors with the bias term of 1 in the first column
+	 * @param trainingDataLabels labels with values +1 or -1
+	 */
+	public void fit(double[][] featureVectors, int[] trainingDataLabels) {
+		fit(SparseFeatureMatrix.fromDenseRows(featureVectors), BinaryDataLabel.toLabelBytes(trainingDataLabels));
+	}
+	
+	/**
+	 * Train the SVM. This is an adapter that copies the labels into a byte array once.
+	 * @param featureMatrix
+	 * @param trainingDataLabels labels with values +1 or -1
+	 */
+	public void fit(SparseFeatureMatrix featureMatrix, int[] trainingDataLabels) {
+		fit(featureMatrix, BinaryDataLabel.toLabelBytes(trainingDataLabels));
+	}
+	
+	/**
+	 * Train the SVM. Every combination of learning rate, variance value and cross validation split is trained as a
+	 * separate job on the training executor. Each job has its own weight vector, learning rate schedule and random
+	 * number generator, and the results are combined in a fixed order, so the selected model does not depend on the
+	 * number of threads.
+	 * Runs can stop early once their objective stops improving, and configurations can be pruned by successive halving,
+	 * see setEarlyStopping and setSuccessiveHalving. With OptimizationMethod.LIMITED_MEMORY_BFGS only the variance values
+	 * are cross validated, see setOptimizationMethod.
+	 * @param featureMatrix
+	 * @param trainingDataLabels labels with values +1 or -1
+	 */
+	public void fit(SparseFeatureMatrix featureMatrix, byte[] trainingDataLabels) {
+		
+		//The same cross validation splits are used for all learning rates and variance values
+		PhaseTimer foldConstructionTimer = this.trainingInstrumentation.startPhase(TrainingPhase.FOLD_CONSTRUCTION);
+		CrossValidationFolds crossValidationFolds;
+		if (this.stratifiedCrossValidation) {
+			crossValidationFolds = CrossValidationFolds.createStratified(this.crossValidationSplits, trainingDataLabels, this.randomNumberGenerator);
+		} else {
+			crossValidationFolds = CrossValidationFolds.create(this.crossValidationSplits, trainingDataLabels.length, this.randomNumberGenerator);
+		}
+		foldConstructionTimer.stop(trainingDataLabels.length);
+		
+		if (this.optimizationMethod == OptimizationMethod.LIMITED_MEMORY_BFGS) {
+			
+			fitWithLimitedMemoryBfgs(featureMatrix, trainingDataLabels, crossValidationFolds);
+			this.onlineStochasticGradientDescent = null;
+			this.numberOfTrainingRecords = trainingDataLabels.length;
+			return;
+		}
+		
+		int numberOfRuns = this.learningRatesForTraining.size() * this.varianceValuesForTraining.size() * this.crossValidationSplits;
+		this.trainingInstrumentation.addPlannedEpochs((long) numberOfRuns * this.numberOfEpochsForTraining);
+		
+		//Runs are created by the job that first trains them and dropped once they are finished or pruned, so only the runs
+		//still being trained hold weights and record numbers. The results are kept without the weights.
+		CrossValidationRun[] crossValidationRuns = new CrossValidationRun[numberOfRuns];
+		CrossValidationResult[] crossValidationResults = new CrossValidationResult[numberOfRuns];
+		boolean[] prunedConfigurations = new boolean[numberOfRuns / this.crossValidationSplits];
+		ConfigurationSelection configurationSelection = new ConfigurationSelection(prunedConfigurations.length, this.crossValidationSplits);
+		
+		//With successive halving, train every configuration for a few epochs, keep the most accurate ones and train those
+		//for more epochs, until the ones left have had all the epochs
+		int numberOfEpochs = this.successiveHalvingReductionFactor > 1 ? Math.min(this.successiveHalvingFirstEpochs, this.numberOfEpochsForTraining) : this.numberOfEpochsForTraining;
+		while (true) {
+			
+			//Nothing is pruned after the last round, so configurations can be compared as soon as all their runs finish
+			boolean lastRound = numberOfEpochs >= this.numberOfEpochsForTraining;
+			if (lastRound) {
+				configurationSelection.startSelection();
+			}
+			
+			trainCrossValidationRuns(featureMatrix, trainingDataLabels, crossValidationFolds, crossValidationRuns, prunedConfigurations, configurationSelection, numberOfEpochs, crossValidationResults);
+			if (lastRound) {
+				break;
+			}
+			
+			pruneConfigurations(crossValidationResults, prunedConfigurations, crossValidationRuns, configurationSelection, numberOfEpochs);
+			numberOfEpochs = Math.min(numberOfEpochs * this.successiveHalvingReductionFactor, this.numberOfEpochsForTraining);
+		}
+		
+		int runNumber = 0, totalNumberOfEpochsRun = 0;
+		
+		//Run through multiple learning rates
+		for (Double learningRate : this.learningRatesForTraining) {
+			
+			//Run through multiple tradeoff values
+			for (Double varianceValue : this.varianceValuesForTraining) {
+				
+				//Run k-fold cross validation
+				double averageAccuracy = 0.0;
+				boolean pruned = prunedConfigurations[runNumber / this.crossValidationSplits];
+				
+				for (int crossValidationCounter = 0; crossValidationCounter < this.crossValidationSplits; ++crossValidationCounter) {
+					
+					CrossValidationResult crossValidationResult = crossValidationResults[runNumber++];
+					
+					//Only build the log lines when they are written
+					if (this.runInDebug) {
+						double[] objectiveValues = crossValidationResult.getObjectiveValues();
+						for (int epochCounter = 0; epochCounter < objectiveValues.length; ++ epochCounter) {
+							publish(TrainingEvent.objectiveValue(learningRate.doubleValue(), varianceValue.doubleValue(), crossValidationCounter, epochCounter, objectiveValues[epochCounter]));
+						}
+					}
+					totalNumberOfEpochsRun += crossValidationResult.getNumberOfEpochsRun();
+					
+					averageAccuracy += crossValidationResult.getAccuracy();
+					
+				}
+				
+				//Configurations dropped by successive halving cannot be selected
+				if (pruned) {
+					continue;
+				}
+				
+				averageAccuracy /= this.crossValidationSplits;
+				
+				publish(TrainingEvent.averageAccuracy(learningRate.doubleValue(), varianceValue.doubleValue(), averageAccuracy));
+			}
+			
+		}
+		
+		//Keep the weight vector of the most accurate classification
+		int selectedConfiguration = configurationSelection.getSelectedConfiguration();
+		if (selectedConfiguration >= 0) {
+			this.weightVector = configurationSelection.getSelectedWeightVector();
+			this.weightVectorShared = false;
+			this.selectedLearningRate = this.learningRatesForTraining.get(selectedConfiguration / this.varianceValuesForTraining.size()).doubleValue();
+			this.selectedVarianceValue = this.varianceValuesForTraining.get(selectedConfiguration % this.varianceValuesForTraining.size()).doubleValue();
+			this.bestSvmObjectiveTrend = this.svmObjectiveTrend;
+		}
+		
+		publish(TrainingEvent.epochsTrained(totalNumberOfEpochsRun, numberOfRuns * this.numberOfEpochsForTraining));
+		
+		//Online training continues from the new weights with a new learning rate schedule
+		this.onlineStochasticGradientDescent = null;
+		this.numberOfTrainingRecords = trainingDataLabels.length;
+		
+	}
+	
+	/**
+	 * Cross validate the variance values with the batch solver. Every combination of variance value and cross validation
+	 * split is a separate job on the training executor. If more than one gradient descent thread is set, each pass of a job
+	 * over its records is also split into that many chunks on the gradient descent executor.
+	 * @param featureMatrix
+	 * @param trainingDataLabels labels with values +1 or -1
+	 * @param crossValidationFolds
+	 */
+	private void fitWithLimitedMemoryBfgs(final SparseFeatureMatrix featureMatrix, final byte[] trainingDataLabels, final CrossValidationFolds crossValidationFolds) {
+		
+		final int numberOfColumns = featureMatrix.getNumberOfColumns();
+		List<LimitedMemoryBfgsSolver> limitedMemoryBfgsSolvers = new ArrayList<LimitedMemoryBfgsSolver>(this.varianceValuesForTraining.size() * this.crossValidationSplits);
+		List<Future<double[]>> solverJobs = new ArrayList<Future<double[]>>(this.varianceValuesForTraining.size() * this.crossValidationSplits);
+		
+		for (Double varianceValue : this.varianceValuesForTraining) {
+			for (int crossValidationCounter = 0; crossValidationCounter < this.crossValidationSplits; ++crossValidationCounter) {
+				
+				final int splitNumber = crossValidationCounter;
+				final LimitedMemoryBfgsSolver limitedMemoryBfgsSolver = new LimitedMemoryBfgsSolver(numberOfColumns, varianceValue.doubleValue(), this.gradientDescentExecutor, this.numberOfGradientDescentThreads);
+				limitedMemoryBfgsSolver.setTrainingInstrumentation(this.trainingInstrumentation);
+				limitedMemoryBfgsSolvers.add(limitedMemoryBfgsSolver);
+				
+				solverJobs.add(this.trainingExecutor.submit(new Callable<double[]>() {
+					
+					@Override
+					public double[] call() {
+						return limitedMemoryBfgsSolver.minimize(featureMatrix, trainingDataLabels, crossValidationFolds.getTrainingRecords(splitNumber));
+					}
+					
+				}));
+			}
+		}
+		
+		double maximumAccuracy = Double.MIN_VALUE;
+		int[] recordNumbers = crossValidationFolds.getRecordNumbers();
+		int jobNumber = 0;
+		for (Double varianceValue : this.varianceValuesForTraining) {
+			
+			double[] weightVector = null;
+			double averageAccuracy = 0.0;
+			for (int crossValidationCounter = 0; crossValidationCounter < this.crossValidationSplits; ++crossValidationCounter) {
+				
+				weightVector = getCrossValidationResult(solverJobs.get(jobNumber));
+				LimitedMemoryBfgsSolver limitedMemoryBfgsSolver = limitedMemoryBfgsSolvers.get(jobNumber++);
+				averageAccuracy += CrossValidationRun.getAccuracy(featureMatrix, trainingDataLabels, recordNumbers, crossValidationFolds.getFirstTestingRecord(crossValidationCounter), crossValidationFolds.getLastTestingRecord(crossValidationCounter), weightVector);
+				
+				//Only build the log lines when they are written
+				if (this.runInDebug) {
+					publish(TrainingEvent.message("L-BFGS variance value: " + varianceValue + ", split: " + crossValidationCounter + ", iterations: " + limitedMemoryBfgsSolver.getNumberOfIterations() + ", passes: " + limitedMemoryBfgsSolver.getNumberOfPasses() + ", objective value: " + limitedMemoryBfgsSolver.getObjectiveValue()));
+				}
+			}
+			
+			//If this is the most accurate classification save the weight vector
+			averageAccuracy /= this.crossValidationSplits;
+			
+			publish(TrainingEvent.averageAccuracy(Double.NaN, varianceValue.doubleValue(), averageAccuracy));
+			
+			if (averageAccuracy > maximumAccuracy) {
+				maximumAccuracy = averageAccuracy;
+				this.weightVector = weightVector;
+				this.weightVectorShared = false;
+				this.selectedVarianceValue = varianceValue.doubleValue();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Continue training on a minibatch of records, for example as new data arrives. The learning rate and variance value
+	 * selected by fit are used, or the ones set with setLearningRateAndVarianceValue. The learning rate schedule carries over
+	 * from one call to the next. The weight vector grows if the minibatch has features that have not been seen before.
+	 * @param featureMatrix
+	 * @param labels labels with values +1 or -1
+	 */
+	public void partialFit(SparseFeatureMatrix featureMatrix, int[] labels) {
+		partialFit(featureMatrix, BinaryDataLabel.toLabelBytes(labels));
+	}
+	
+	/**
+	 * Continue training on a minibatch of records, for example as new data arrives. The learning rate and variance value
+	 * selected by fit are used, or the ones set with setLearningRateAndVarianceValue. The learning rate schedule carries over
+	 * from one call to the next. The weight vector grows if the minibatch has features that have not been seen before.
+	 * @param featureMatrix
+	 * @param labels labels with values +1 or -1
+	 */
+	public void partialFit(SparseFeatureMatrix featureMatrix, byte[] labels) {
+		
+		assert featureMatrix.getNumberOfRows() == labels.length;
+		
+		if (this.onlineStochasticGradientDescent == null) {
+			
+			//The weights of a model set with setTrainedModel are only copied once they are about to change
+			if (this.weightVectorShared) {
+				this.weightVector = this.weightVector.clone();
+				this.weightVectorShared = false;
+			}
+			this.onlineStochasticGradientDescent = new StochasticGradientDescent(this.weightVector, this.selectedLearningRate, this.selectedVarianceValue, RANDOM_SEED);
+		}
+		
+		this.onlineStochasticGradientDescent.ensureNumberOfColumns(featureMatrix.getNumberOfColumns());
+		
+		//Records are used in the order in which they arrived
+		int[] recordNumbers = new int[labels.length];
+		for (int recordNumber = 0; recordNumber < recordNumbers.length; ++recordNumber) {
+			recordNumbers[recordNumber] = recordNumber;
+		}
+		
+		this.onlineStochasticGradientDescent.runEpoch(featureMatrix, labels, recordNumbers);
+		this.weightVector = this.onlineStochasticGradientDescent.getWeightVector();
+		this.numberOfTrainingRecords += labels.length;
+		
+	}
+	
+	/**
+	 * Continue training on each minibatch in turn. Only one minibatch needs to be in memory at a time.
+	 * @param minibatches for example a logisticregression.io.LibSvmMinibatchIterator reading a data file
+	 */
+	public void partialFit(Iterator<FeaturesAndLabels> minibatches) {
+		
+		while (minibatches.hasNext()) {
+			FeaturesAndLabels minibatch = minibatches.next();
+			partialFit(minibatch.getFeatureMatrix(), minibatch.getLabels());
+		}
+		
+	}
+	
+	/**
+	 * Set the learning rate and variance value used by partialFit. The learning rate schedule starts again.
+	 * @param learningRate
+	 * @param varianceValue
+	 */
+	public void setLearningRateAndVarianceValue(double learningRate, double varianceValue) {
+		
+		this.selectedLearningRate = learningRate;
+		this.selectedVarianceValue = varianceValue;
+		this.onlineStochasticGradientDescent = null;
+		
+	}
+	
+	/**
+	 * Keep the fraction of positive labels in each cross validation split close to that of the whole training data
+	 * @param stratifiedCrossValidation
+	 */
+	public void setStratifiedCrossValidation(boolean stratifiedCrossValidation) {
+		this.stratifiedCrossValidation = stratifiedCrossValidation;
+	}
+	
+	/**
+	 * @return learning rate selected by cross validation, or set with setLearningRateAndVarianceValue
+	 */
+	public double getSelectedLearningRate() {
+		return this.selectedLearningRate;
+	}
+	
+	/**
+	 * @return variance value selected by cross validation, or set with setLearningRateAndVarianceValue
+	 */
+	public double getSelectedVarianceValue() {
+		return this.selectedVarianceValue;
+	}
+	
+	/**
+	 * Create the run of a learning rate, variance value and cross validation split
+	 * @param runNumber position of the run in learning rate, variance value and split order
+	 * @param numberOfColumns
+	 * @param crossValidationFolds
+	 * @return a run that has not been trained yet
+	 */
+	private CrossValidationRun createCrossValidationRun(int runNumber, int numberOfColumns, CrossValidationFolds crossValidationFolds) {
+		
+		int configurationNumber = runNumber / this.crossValidationSplits, crossValidationCounter = runNumber % this.crossValidationSplits;
+		double learningRate = this.learningRatesForTraining.get(configurationNumber / this.varianceValuesForTraining.size()).doubleValue();
+		double varianceValue = this.varianceValuesForTraining.get(configurationNumber % this.varianceValuesForTraining.size()).doubleValue();
+		long randomSeed = RANDOM_SEED + runNumber;
+		
+		//Each run shuffles its own copy of the training record numbers, while the testing records are read in place
+		EpochPermutation trainingDataOrder = new EpochPermutation(crossValidationFolds.getTrainingRecords(crossValidationCounter), randomSeed, this.shuffleExecutor);
+		StochasticGradientDescent stochasticGradientDescent = createStochasticGradientDescent(numberOfColumns, learningRate, varianceValue, randomSeed);
+		
+		return new CrossValidationRun(learningRate, varianceValue, crossValidationCounter, stochasticGradientDescent, trainingDataOrder, this.numberOfEpochsForTraining, this.trainingInstrumentation);
+		
+	}
+	
+	/**
+	 * Train a run, creating it first if it has not been trained before. Once the run has had all the epochs or has converged
+	 * it is dropped, so its weights and record numbers can be freed, and its result goes to the configuration selection.
+	 * @param runNumber position of the run in learning rate, variance value and split order
+	 * @param featureMatrix
+	 * @param trainingDataLabels
+	 * @param crossValidationFolds
+	 * @param crossValidationRuns runs being trained, null for those not created yet or dropped
+	 * @param initialWeightVector weights a new run starts from, or null to start from zero
+	 * @param configurationSelection
+	 * @param numberOfEpochs total number of epochs the run should have had when it finishes
+	 * @return result of the run, with its weight vector
+	 */
+	private CrossValidationResult trainCrossValidationRun(int runNumber, SparseFeatureMatrix featureMatrix, byte[] trainingDataLabels, CrossValidationFolds crossValidationFolds, CrossValidationRun[] crossValidationRuns, double[] initialWeightVector, ConfigurationSelection configurationSelection, int numberOfEpochs) {
+		
+		CrossValidationRun crossValidationRun = crossValidationRuns[runNumber];
+		if (crossValidationRun == null) {
+			
+			crossValidationRun = createCrossValidationRun(runNumber, featureMatrix.getNumberOfColumns(), crossValidationFolds);
+			crossValidationRuns[runNumber] = crossValidationRun;
+			if (initialWeightVector != null) {
+				crossValidationRun.warmStart(initialWeightVector);
+			}
+		}
+		
+		CrossValidationResult crossValidationResult = crossValidationRun.train(featureMatrix, trainingDataLabels, crossValidationFolds, numberOfEpochs, this.convergenceTolerance, this.convergencePatience, this.runInDebug);
+		
+		if (crossValidationRun.getNumberOfEpochsRun() >= this.numberOfEpochsForTraining || crossValidationRun.isConverged()) {
+			crossValidationRuns[runNumber] = null;
+			configurationSelection.addFinishedRun(runNumber / this.crossValidationSplits, runNumber % this.crossValidationSplits, crossValidationResult.getAccuracy(), crossValidationResult.getWeightVector());
+		}
+		
+		return crossValidationResult;
+		
+	}
+	
+	/**
+	 * @param crossValidationRuns
+	 * @param crossValidationResults
+	 * @param runNumber
+	 * @return true if the run has been trained and dropped because it will not be trained any further
+	 */
+	private static boolean isFinished(CrossValidationRun[] crossValidationRuns, CrossValidationResult[] crossValidationResults, int runNumber) {
+		return crossValidationRuns[runNumber] == null && crossValidationResults[runNumber] != null;
+	}
+	
+	/**
+	 * Train the runs of every configuration that has not been pruned as separate jobs on the training executor
+	 * @param featureMatrix
+	 * @param trainingDataLabels
+	 * @param crossValidationFolds
+	 * @param crossValidationRuns runs being trained, null for those not created yet or dropped
+	 * @param prunedConfigurations true for each learning rate and variance value that is no longer trained
+	 * @param configurationSelection
+	 * @param numberOfEpochs total number of epochs each run should have had when it finishes
+	 * @param crossValidationResults latest result of each run without its weights, updated for the runs trained
+	 */
+	private void trainCrossValidationRuns(final SparseFeatureMatrix featureMatrix, final byte[] trainingDataLabels, final CrossValidationFolds crossValidationFolds, final CrossValidationRun[] crossValidationRuns, boolean[] prunedConfigurations, final ConfigurationSelection configurationSelection, final int numberOfEpochs, CrossValidationResult[] crossValidationResults) {
+		
+		if (this.regularizationPath) {
+			trainRegularizationPaths(featureMatrix, trainingDataLabels, crossValidationFolds, crossValidationRuns, prunedConfigurations, configurationSelection, numberOfEpochs, crossValidationResults);
+			return;
+		}
+		
+		List<Future<CrossValidationResult>> crossValidationJobs = new ArrayList<Future<CrossValidationResult>>(crossValidationRuns.length);
+		
+		for (int runNumber = 0; runNumber < crossValidationRuns.length; ++runNumber) {
+			
+			//Finished runs keep their result from an earlier round
+			if (prunedConfigurations[runNumber / this.crossValidationSplits] || isFinished(crossValidationRuns, crossValidationResults, runNumber)) {
+				crossValidationJobs.add(null);
+				continue;
+			}
+			
+			final int jobRunNumber = runNumber;
+			crossValidationJobs.add(this.trainingExecutor.submit(new Callable<CrossValidationResult>() {
+				
+				@Override
+				public CrossValidationResult call() {
+					return trainCrossValidationRun(jobRunNumber, featureMatrix, trainingDataLabels, crossValidationFolds, crossValidationRuns, null, configurationSelection, numberOfEpochs).withoutWeightVector();
+				}
+				
+			}));
+			
+		}
+		
+		for (int runNumber = 0; runNumber < crossValidationJobs.size(); ++runNumber) {
+			if (crossValidationJobs.get(runNumber) != null) {
+				crossValidationResults[runNumber] = getCrossValidationResult(crossValidationJobs.get(runNumber));
+			}
+		}
+		
+	}
+	
+	/**
+	 * Keep the most accurate of the configurations that are left and prune the rest
+	 * @param crossValidationResults
+	 * @param prunedConfigurations
+	 * @param crossValidationRuns runs being trained, from which the runs of pruned configurations are dropped
+	 * @param configurationSelection
+	 * @param numberOfEpochs number of epochs the configurations have had
+	 */
+	private void pruneConfigurations(CrossValidationResult[] crossValidationResults, boolean[] prunedConfigurations, CrossValidationRun[] crossValidationRuns, ConfigurationSelection configurationSelection, int numberOfEpochs) {
+		
+		//Average accuracy of each configuration that is left
+		final double[] averageAccuracies = new double[prunedConfigurations.length];
+		List<Integer> remainingConfigurations = new ArrayList<Integer>();
+		for (int configurationNumber = 0; configurationNumber < prunedConfigurations.length; ++configurationNumber) {
+			
+			if (prunedConfigurations[configurationNumber]) {
+				continue;
+			}
+			
+			for (int crossValidationCounter = 0; crossValidationCounter < this.crossValidationSplits; ++crossValidationCounter) {
+				averageAccuracies[configurationNumber] += crossValidationResults[configurationNumber * this.crossValidationSplits + crossValidationCounter].getAccuracy() / this.crossValidationSplits;
+			}
+			remainingConfigurations.add(Integer.valueOf(configurationNumber));
+		}
+		
+		//Most accurate first, and the earlier configuration first when they are equally accurate
+		Collections.sort(remainingConfigurations, new Comparator<Integer>() {
+			
+			@Override
+			public int compare(Integer configurationNumber1, Integer configurationNumber2) {
+				return Double.compare(averageAccuracies[configurationNumber2.intValue()], averageAccuracies[configurationNumber1.intValue()]);
+			}
+			
+		});
+		
+		int numberToKeep = (remainingConfigurations.size() + this.successiveHalvingReductionFactor - 1) / this.successiveHalvingReductionFactor;
+		for (Integer configurationNumber : remainingConfigurations.subList(numberToKeep, remainingConfigurations.size())) {
+			
+			prunedConfigurations[configurationNumber.intValue()] = true;
+			configurationSelection.removeConfiguration(configurationNumber.intValue());
+			Arrays.fill(crossValidationRuns, configurationNumber.intValue() * this.crossValidationSplits, (configurationNumber.intValue() + 1) * this.crossValidationSplits, null);
+			
+			Double learningRate = this.learningRatesForTraining.get(configurationNumber.intValue() / this.varianceValuesForTraining.size());
+			Double varianceValue = this.varianceValuesForTraining.get(configurationNumber.intValue() % this.varianceValuesForTraining.size());
+			publish(TrainingEvent.pruned(learningRate.doubleValue(), varianceValue.doubleValue(), numberOfEpochs, averageAccuracies[configurationNumber.intValue()]));
+		}
+		
+	}
+	
+	/**
+	 * @param numberOfColumns
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param randomSeed
+	 * @return a sequential run, or a run shared by several threads if more than one gradient descent thread is set
+	 */
+	private StochasticGradientDescent createStochasticGradientDescent(int numberOfColumns, double learningRate, double varianceValue, long randomSeed) {
+		
+		if (this.numberOfGradientDescentThreads > 1) {
+			return new ParallelStochasticGradientDescent(numberOfColumns, learningRate, varianceValue, randomSeed, this.numberOfGradientDescentThreads, this.weightUpdateMode, this.gradientDescentExecutor);
+		} else {
+			StochasticGradientDescent stochasticGradientDescent = new StochasticGradientDescent(numberOfColumns, learningRate, varianceValue, randomSeed);
+			stochasticGradientDescent.setMinibatchSize(this.minibatchSize);
+			return stochasticGradientDescent;
+		}
+		
+	}
+	
+	/**
+	 * Train the runs of each learning rate and cross validation split as one job on the training executor, going through
+	 * the variance values from the strongest regularization to the weakest. A run that has not been trained yet starts
+	 * from the weights of the run before it on the path, which are closer to its own optimum than zero, so with early
+	 * stopping it can need fewer epochs.
+	 * @param featureMatrix
+	 * @param trainingDataLabels
+	 * @param crossValidationFolds
+	 * @param crossValidationRuns runs being trained, null for those not created yet or dropped
+	 * @param prunedConfigurations true for each learning rate and variance value that is no longer trained
+	 * @param configurationSelection
+	 * @param numberOfEpochs total number of epochs each run should have had when it finishes
+	 * @param crossValidationResults latest result of each run without its weights, updated for the runs trained
+	 */
+	private void trainRegularizationPaths(final SparseFeatureMatrix featureMatrix, final byte[] trainingDataLabels, final CrossValidationFolds crossValidationFolds, final CrossValidationRun[] crossValidationRuns, final boolean[] prunedConfigurations, final ConfigurationSelection configurationSelection, final int numberOfEpochs, final CrossValidationResult[] crossValidationResults) {
+		
+		final List<Integer> varianceValueOrder = getRegularizationPathOrder();
+		final int numberOfVarianceValues = this.varianceValuesForTraining.size();
+		List<Future<CrossValidationResult[]>> pathJobs = new ArrayList<Future<CrossValidationResult[]>>(this.learningRatesForTraining.size() * this.crossValidationSplits);
+		
+		for (int learningRateNumber = 0; learningRateNumber < this.learningRatesForTraining.size(); ++learningRateNumber) {
+			for (int crossValidationCounter = 0; crossValidationCounter < this.crossValidationSplits; ++crossValidationCounter) {
+				
+				final int firstConfigurationNumber = learningRateNumber * numberOfVarianceValues, splitNumber = crossValidationCounter;
+				pathJobs.add(this.trainingExecutor.submit(new Callable<CrossValidationResult[]>() {
+					
+					@Override
+					public CrossValidationResult[] call() {
+						
+						CrossValidationResult[] pathResults = new CrossValidationResult[numberOfVarianceValues];
+						double[] previousWeightVector = null;
+						for (Integer varianceValueNumber : varianceValueOrder) {
+							
+							int configurationNumber = firstConfigurationNumber + varianceValueNumber.intValue();
+							int runNumber = configurationNumber * crossValidationSplits + splitNumber;
+							if (prunedConfigurations[configurationNumber]) {
+								continue;
+							}
+							
+							//Only runs created in this round start from the previous weights, and those all come after a run
+							//trained in this round
+							if (isFinished(crossValidationRuns, crossValidationResults, runNumber)) {
+								previousWeightVector = null;
+								continue;
+							}
+							
+							CrossValidationResult pathResult = trainCrossValidationRun(runNumber, featureMatrix, trainingDataLabels, crossValidationFolds, crossValidationRuns, previousWeightVector, configurationSelection, numberOfEpochs);
+							pathResults[varianceValueNumber.intValue()] = pathResult.withoutWeightVector();
+							previousWeightVector = pathResult.getWeightVector();
+						}
+						
+						return pathResults;
+						
+					}
+					
+				}));
+			}
+		}
+		
+		int jobNumber = 0;
+		for (int learningRateNumber = 0; learningRateNumber < this.learningRatesForTraining.size(); ++learningRateNumber) {
+			for (int crossValidationCounter = 0; crossValidationCounter < this.crossValidationSplits; ++crossValidationCounter) {
+				
+				CrossValidationResult[] pathResults = getCrossValidationResult(pathJobs.get(jobNumber++));
+				for (int varianceValueNumber = 0; varianceValueNumber < numberOfVarianceValues; ++varianceValueNumber) {
+					if (pathResults[varianceValueNumber] != null) {
+						crossValidationResults[((learningRateNumber * numberOfVarianceValues) + varianceValueNumber) * this.crossValidationSplits + crossValidationCounter] = pathResults[varianceValueNumber];
+					}
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * @return positions of the variance values from the smallest, which regularizes the most, to the largest
+	 */
+	private List<Integer> getRegularizationPathOrder() {
+		
+		List<Integer> varianceValueOrder = new ArrayList<Integer>(this.varianceValuesForTraining.size());
+		for (int varianceValueNumber = 0; varianceValueNumber < this.varianceValuesForTraining.size(); ++varianceValueNumber) {
+			varianceValueOrder.add(Integer.valueOf(varianceValueNumber));
+		}
+		
+		Collections.sort(varianceValueOrder, new Comparator<Integer>() {
+			
+			@Override
+			public int compare(Integer varianceValueNumber1, Integer varianceValueNumber2) {
+				return Double.compare(varianceValuesForTraining.get(varianceValueNumber1.intValue()).doubleValue(), varianceValuesForTraining.get(varianceValueNumber2.intValue()).doubleValue());
+			}
+			
+		});
+		
+		return varianceValueOrder;
+		
+	}
+	
+	/**
+	 * @param crossValidationJob
+	 * @return result of the job once it has finished
+	 */
+	private <T> T getCrossValidationResult(Future<T> crossValidationJob) {
+		
+		try {
+			return crossValidationJob.get();
+		} catch (InterruptedException e) {
+			System.err.println("Interrupted while waiting for cross validation job");
+			e.printStackTrace();
+			System.exit(0);
+		} catch (ExecutionException e) {
+			System.err.println("Cross validation job failed");
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		return null;
+		
+	}
+	
+	/**
+	 * Train each cross validation job with several threads sharing one weight vector. This helps most when there are fewer
+	 * jobs than cores, for example with a single learning rate and variance value. Results then depend on thread timing.
+	 * The threads are a pool shared by all the jobs, so however many jobs the training executor runs at the same time,
+	 * at most numberOfGradientDescentThreads threads train. Each record takes a step of its own, so this cannot be combined
+	 * with a minibatch size above 1.
+	 * @param numberOfGradientDescentThreads 1 for the sequential run
+	 * @param weightUpdateMode how the threads update the shared weights
+	 */
+	public void setGradientDescentThreads(int numberOfGradientDescentThreads, WeightUpdateMode weightUpdateMode) {
+		
+		assert numberOfGradientDescentThreads > 0;
+		
+		if (numberOfGradientDescentThreads > 1 && this.minibatchSize > 1) {
+			throw new IllegalArgumentException("Gradient descent threads cannot be combined with a minibatch size of " + this.minibatchSize);
+		}
+		
+		if (this.gradientDescentExecutor != null) {
+			this.gradientDescentExecutor.shutdown();
+			this.gradientDescentExecutor = null;
+		}
+		
+		this.numberOfGradientDescentThreads = numberOfGradientDescentThreads;
+		this.weightUpdateMode = weightUpdateMode;
+		
+		if (numberOfGradientDescentThreads > 1) {
+			this.gradientDescentExecutor = Executors.newFixedThreadPool(numberOfGradientDescentThreads, new ThreadFactory() {
+				
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "gradient-descent");
+					thread.setDaemon(true);
+					return thread;
+				}
+				
+			});
+		}
+		
+	}
+	
+	/**
+	 * Set the executor used to run the cross validation jobs. The default is the common fork join pool.
+	 * @param trainingExecutor
+	 */
+	public void setTrainingExecutor(ExecutorService trainingExecutor) {
+		this.trainingExecutor = trainingExecutor;
+	}
+	
+	/**
+	 * Train each cross validation job with one step for each minibatch of records. The parallel run set with
+	 * setGradientDescentThreads always takes one step for each record, so it cannot be combined with a minibatch size above 1.
+	 * @param minibatchSize 1 for one step for each record
+	 */
+	public void setMinibatchSize(int minibatchSize) {
+		
+		if (minibatchSize < 1) {
+			throw new IllegalArgumentException("Minibatch size must be at least 1 but was " + minibatchSize);
+		}
+		if (minibatchSize > 1 && this.numberOfGradientDescentThreads > 1) {
+			throw new IllegalArgumentException("A minibatch size of " + minibatchSize + " cannot be combined with " + this.numberOfGradientDescentThreads + " gradient descent threads");
+		}
+		this.minibatchSize = minibatchSize;
+		
+	}
+	
+	/**
+	 * Stop training a cross validation run once its objective has stopped improving. By default every run has all the epochs.
+	 * @param convergenceTolerance smallest relative decrease of the objective from one epoch to the next that counts as an improvement
+	 * @param convergencePatience number of epochs in a row without improvement after which the run stops, or 0 to never stop early
+	 */
+	public void setEarlyStopping(double convergenceTolerance, int convergencePatience) {
+		
+		if (convergenceTolerance < 0 || convergencePatience < 0) {
+			throw new IllegalArgumentException("Convergence tolerance and patience cannot be negative");
+		}
+		this.convergenceTolerance = convergenceTolerance;
+		this.convergencePatience = convergencePatience;
+		
+	}
+	
+	/**
+	 * Search the learning rates and variance values by successive halving. Every configuration is trained for the first
+	 * number of epochs, then only the most accurate 1 / reductionFactor of them are trained further, for reductionFactor
+	 * times as many epochs in total, and so on until the configurations left have had all the epochs. A configuration that
+	 * is kept ends with the same weights as without pruning. By default all configurations have all the epochs.
+	 * @param firstEpochs number of epochs before the first configurations are pruned
+	 * @param reductionFactor 1 to train all the configurations for all the epochs
+	 */
+	public void setSuccessiveHalving(int firstEpochs, int reductionFactor) {
+		
+		if (firstEpochs < 1 || reductionFactor < 1) {
+			throw new IllegalArgumentException("Successive halving needs at least 1 epoch and a reduction factor of at least 1");
+		}
+		this.successiveHalvingFirstEpochs = firstEpochs;
+		this.successiveHalvingReductionFactor = reductionFactor;
+		
+	}
+	
+	/**
+	 * Train the variance values of each learning rate and cross validation split as a regularization path, from the
+	 * smallest variance value to the largest, starting each run from the weights of the one before it instead of from
+	 * zero. The folds are the same for the whole path. Combined with setEarlyStopping, runs on the path can converge in
+	 * fewer epochs. With successive halving a run starts from the weights the run before it had after the first epochs.
+	 * By default every run starts from zero.
+	 * @param regularizationPath
+	 */
+	public void setRegularizationPath(boolean regularizationPath) {
+		this.regularizationPath = regularizationPath;
+	}
+	
+	/**
+	 * Choose how fit minimizes the objective. With OptimizationMethod.LIMITED_MEMORY_BFGS the learning rates, number of
+	 * epochs, minibatch size, early stopping, successive halving and regularization path settings are not used, and the
+	 * selected learning rate stays as it was for partialFit. By default fit uses stochastic gradient descent.
+	 * @param optimizationMethod
+	 */
+	public void setOptimizationMethod(OptimizationMethod optimizationMethod) {
+		this.optimizationMethod = optimizationMethod;
+	}
+	
+	/**
+	 * Shuffle the record order for the next epoch of each cross validation job on an executor while the current epoch
+	 * trains. By default the order is shuffled between epochs. The orders, and so the trained models, are the same either way.
+	 * @param shuffleExecutor executor shuffling the orders, or null to shuffle between epochs
+	 */
+	public void setShuffleExecutor(ExecutorService shuffleExecutor) {
+		this.shuffleExecutor = shuffleExecutor;
+	}
+	
+	/**
+	 * Send the training log and objective values somewhere else, for example to an AsynchronousTrainingEventSink writing
+	 * CSV or JSON lines to files named after the run. The current sink is closed. If no event has been written yet the
+	 * log files of the constructor are never opened.
+	 * @param trainingEventSink
+	 */
+	public synchronized void setTrainingEventSink(TrainingEventSink trainingEventSink) {
+		
+		if (this.trainingEventSink != null) {
+			this.trainingEventSink.close();
+		}
+		this.trainingEventSink = trainingEventSink;
+		
+	}
+	
+	/**
+	 * Time the phases of training and scoring with another instrumentation than the shared one, for example to keep the
+	 * statistics of two classifiers apart
+	 * @param trainingInstrumentation
+	 */
+	public void setTrainingInstrumentation(TrainingInstrumentation trainingInstrumentation) {
+		this.trainingInstrumentation = trainingInstrumentation;
+	}
+	
+	/**
+	 * Score large batches in parallel chunks. By default batches are scored on the calling thread.
+	 * @param scoringExecutor executor running the chunks, or null to score on the calling thread
+	 * @param numberOfScoringChunks number of chunks a batch is split into. Chunks have at least MINIMUM_ROWS_PER_SCORING_CHUNK rows.
+	 */
+	public void setScoringExecutor(ExecutorService scoringExecutor, int numberOfScoringChunks) {
+		
+		assert numberOfScoringChunks > 0;
+		
+		this.scoringExecutor = scoringExecutor;
+		this.numberOfScoringChunks = numberOfScoringChunks;
+		
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @return prediction labels
+	 */
+	public List<BinaryDataLabel> getPredictions(SparseFeatureMatrix featureMatrix) {
+		
+		int[] labels = new int[featureMatrix.getNumberOfRows()];
+		getPredictedLabels(featureMatrix, labels);
+		
+		List<BinaryDataLabel> predictionLabels = new ArrayList<BinaryDataLabel>(labels.length);
+		for (int label : labels) {
+			predictionLabels.add(label == BinaryDataLabel.POSITIVE_LABEL.getValue() ? BinaryDataLabel.POSITIVE_LABEL : BinaryDataLabel.NEGATIVE_LABEL);
+		}
+		
+		return predictionLabels;
+		
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param margins filled with the dot product of each row and the weight vector, including the bias weight
+	 */
+	public void getMargins(SparseFeatureMatrix featureMatrix, double[] margins) {
+		score(featureMatrix, margins, null, null);
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param probabilities filled with the probability that each row has the positive label
+	 */
+	public void getProbabilities(SparseFeatureMatrix featureMatrix, double[] probabilities) {
+		score(featureMatrix, null, probabilities, null);
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param labels filled with the predicted label of each row, +1 or -1
+	 */
+	public void getPredictedLabels(SparseFeatureMatrix featureMatrix, int[] labels) {
+		score(featureMatrix, null, null, labels);
+	}
+	
+	/**
+	 * Score every row of a batch into arrays supplied by the caller. Nothing is allocated for each row, so the arrays can
+	 * be reused from one batch to the next. Features beyond the ones seen during training do not contribute.
+	 * @param featureMatrix
+	 * @param margins filled with the margin of each row, or null
+	 * @param probabilities filled with the probability of the positive label for each row, or null
+	 * @param labels filled with the predicted label of each row, or null
+	 */
+	public void score(SparseFeatureMatrix featureMatrix, double[] margins, double[] probabilities, int[] labels) {
+		scoreInChunks(featureMatrix, null, featureMatrix.getNumberOfRows(), margins, probabilities, labels, null, null);
+	}
+	
+	/**
+	 * Score every row of a batch of dense feature vectors into arrays supplied by the caller. The first column of each row
+	 * is the bias term and is not read, so rows may hold anything in that position.
+	 * @param featureVectors
+	 * @param margins filled with the margin of each row, or null
+	 * @param probabilities filled with the probability of the positive label for each row, or null
+	 * @param labels filled with the predicted label of each row, or null
+	 */
+	public void score(double[][] featureVectors, double[] margins, double[] probabilities, int[] labels) {
+		scoreInChunks(null, featureVectors, featureVectors.length, margins, probabilities, labels, null, null);
+	}
+	
+	/**
+	 * Score every row of a batch and add the actual labels and predicted probabilities to an accumulator, without keeping
+	 * any of the predictions. If a scoring executor is set each chunk fills an accumulator of its own, and these are merged
+	 * in chunk order once the chunks have finished.
+	 * @param featureMatrix
+	 * @param actualLabels actual label of each row, +1 or -1
+	 * @param classifierMetricsAccumulator
+	 */
+	public void evaluate(SparseFeatureMatrix featureMatrix, byte[] actualLabels, ClassifierMetricsAccumulator classifierMetricsAccumulator) {
+		
+		assert actualLabels.length >= featureMatrix.getNumberOfRows();
+		
+		scoreInChunks(featureMatrix, null, featureMatrix.getNumberOfRows(), null, null, null, actualLabels, classifierMetricsAccumulator);
+		
+	}
+	
+	/**
+	 * @param margin
+	 * @return probability of the positive label, computed so that large margins do not overflow
+	 */
+	public static double getProbability(double margin) {
+		
+		if (margin >= 0.0) {
+			return 1.0 / (1.0 + Math.exp(-margin));
+		} else {
+			double exponent = Math.exp(margin);
+			return exponent / (1.0 + exponent);
+		}
+		
+	}
+	
+	/**
+	 * Score the rows of either a sparse matrix or dense feature vectors, in parallel chunks if a scoring executor is set
+	 * and the batch is large enough
+	 * @param featureMatrix
+	 * @param featureVectors
+	 * @param numberOfRows
+	 * @param margins
+	 * @param probabilities
+	 * @param labels
+	 * @param actualLabels actual labels of the rows if they are evaluated, or null
+	 * @param classifierMetricsAccumulator accumulator the rows are evaluated into, or null
+	 */
+	private void scoreInChunks(final SparseFeatureMatrix featureMatrix, final double[][] featureVectors, int numberOfRows, final double[] margins, final double[] probabilities, final int[] labels, final byte[] actualLabels, ClassifierMetricsAccumulator classifierMetricsAccumulator) {
+		
+		assert (margins == null || margins.length >= numberOfRows) && (probabilities == null || probabilities.length >= numberOfRows) && (labels == null || labels.length >= numberOfRows);
+		
+		//Use the same weights for the whole batch even if training continues meanwhile
+		final double[] weightVector = this.weightVector;
+		PhaseTimer predictionTimer = this.trainingInstrumentation.startPhase(TrainingPhase.PREDICTION);
+		
+		int numberOfChunks = Math.min(this.numberOfScoringChunks, numberOfRows / MINIMUM_ROWS_PER_SCORING_CHUNK);
+		if (this.scoringExecutor == null || numberOfChunks < 2) {
+			scoreRows(featureMatrix, featureVectors, 0, numberOfRows, weightVector, margins, probabilities, labels, actualLabels, classifierMetricsAccumulator);
+			predictionTimer.stop(numberOfRows);
+			return;
+		}
+		
+		List<Future<?>> scoringChunks = new ArrayList<Future<?>>(numberOfChunks);
+		ClassifierMetricsAccumulator[] chunkAccumulators = new ClassifierMetricsAccumulator[numberOfChunks];
+		for (int chunkCounter = 0; chunkCounter < numberOfChunks; ++chunkCounter) {
+			
+			final int firstRow = (int) ((long) numberOfRows * chunkCounter / numberOfChunks);
+			final int lastRow = (int) ((long) numberOfRows * (chunkCounter + 1) / numberOfChunks);
+			final ClassifierMetricsAccumulator chunkAccumulator = classifierMetricsAccumulator != null ? classifierMetricsAccumulator.createEmptyCopy() : null;
+			chunkAccumulators[chunkCounter] = chunkAccumulator;
+			
+			scoringChunks.add(this.scoringExecutor.submit(new Runnable() {
+				
+				@Override
+				public void run() {
+					scoreRows(featureMatrix, featureVectors, firstRow, lastRow, weightVector, margins, probabilities, labels, actualLabels, chunkAccumulator);
+				}
+				
+			}));
+			
+		}
+		
+		try {
+			for (int chunkCounter = 0; chunkCounter < numberOfChunks; ++chunkCounter) {
+				scoringChunks.get(chunkCounter).get();
+				if (classifierMetricsAccumulator != null) {
+					classifierMetricsAccumulator.merge(chunkAccumulators[chunkCounter]);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while scoring", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Scoring failed", e.getCause());
+		}
+		predictionTimer.stop(numberOfRows);
+		
+	}
+	
+	/**
+	 * @param featureMatrix rows to score, or null if dense feature vectors are scored
+	 * @param featureVectors rows to score if the feature matrix is null
+	 * @param firstRow
+	 * @param lastRow row after the last row to score
+	 * @param weightVector
+	 * @param margins
+	 * @param probabilities
+	 * @param labels
+	 * @param actualLabels
+	 * @param classifierMetricsAccumulator
+	 */
+	private static void scoreRows(SparseFeatureMatrix featureMatrix, double[][] featureVectors, int firstRow, int lastRow, double[] weightVector, double[] margins, double[] probabilities, int[] labels, byte[] actualLabels, ClassifierMetricsAccumulator classifierMetricsAccumulator) {
+		
+		//Predicted labels being evaluated are kept as bits and counted against the actual labels a word at a time
+		BitSet predictedPositives = classifierMetricsAccumulator != null ? new BitSet(lastRow - firstRow) : null;
+		
+		for (int rowNumber = firstRow; rowNumber < lastRow; ++rowNumber) {
+			
+			double margin;
+			if (featureMatrix != null) {
+				margin = featureMatrix.getMargin(rowNumber, weightVector);
+			} else {
+				
+				//Read the bias weight separately so that the row does not need a bias column of 1
+				double[] featureVector = featureVectors[rowNumber];
+				margin = weightVector[0];
+				for (int columnNumber = 1, numberOfColumns = Math.min(featureVector.length, weightVector.length); columnNumber < numberOfColumns; ++columnNumber) {
+					margin += featureVector[columnNumber] * weightVector[columnNumber];
+				}
+			}
+			
+			if (margins != null) {
+				margins[rowNumber] = margin;
+			}
+			if (probabilities != null) {
+				probabilities[rowNumber] = getProbability(margin);
+			}
+			if (labels != null) {
+				labels[rowNumber] = margin >= 0 ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue();
+			}
+			if (classifierMetricsAccumulator != null) {
+				if (margin >= 0) {
+					predictedPositives.set(rowNumber - firstRow);
+				}
+				classifierMetricsAccumulator.addProbabilityWithoutPrediction(actualLabels[rowNumber], getProbability(margin));
+			}
+		}
+		
+		if (classifierMetricsAccumulator != null) {
+			classifierMetricsAccumulator.addPredictions(BinaryDataLabel.getPositiveRecords(actualLabels, firstRow, lastRow), predictedPositives, lastRow - firstRow);
+		}
+		
+	}
+	
+	/**
+	 * @param testingData
+	 * @return prediction labels
+	 */
+	public List<BinaryDataLabel> getPredictions(List<List<Double>> testingData) {
+		
+		List<BinaryDataLabel> predictionLabels = new ArrayList<BinaryDataLabel>(testingData.size());
+		
+		for (List<Double> testVector : testingData) {
+			predictionLabels.add(getPrediction(testVector));
+		}
+		
+		return predictionLabels;
+		
+	}
+	
+	/**
+	 * @param testingData
+	 * @param weightVector
+	 * @return predictions
+	 */
+	public List<BinaryDataLabel> getPredictions(List<List<Double>> testingData, List<Double> weightVector) {
+		
+		List<BinaryDataLabel> predictionLabels = new ArrayList<BinaryDataLabel>(testingData.size());
+		double[] primitiveWeightVector = toPrimitiveVector(weightVector);
+		
+		for (List<Double> testVector : testingData) {
+			predictionLabels.add(getPrediction(testVector, primitiveWeightVector));
+		}
+		
+		return predictionLabels;
+		
+	}
+	
+	/**
+	 * @param testVector feature vector with the bias term of 1 in the first column
+	 * @return prediction label
+	 */
+	public BinaryDataLabel getPrediction(List<Double> testVector) {
+		return getPrediction(testVector, this.weightVector);
+	}
+	
+	/**
+	 * @param testVector
+	 * @param weightVector
+	 * @return prediction label
+	 */
+	private BinaryDataLabel getPrediction(List<Double> testVector, double[] weightVector) {
+		
+		//Features beyond the ones seen during training have no weight and do not contribute
+		double dotProduct = 0.0;
+		int vectorIndex = 0;
+		for (Double feature : testVector) {
+			
+			if (vectorIndex == weightVector.length) {
+				break;
+			}
+			
+			dotProduct += feature.doubleValue() * weightVector[vectorIndex++];
+		}
+		
+		if (dotProduct >= 0) {
+			return BinaryDataLabel.POSITIVE_LABEL;
+		} else {
+			return BinaryDataLabel.NEGATIVE_LABEL;
+		}
+		
+	}
+	
+	/**
+	 * @param featureVectors
+	 * @return feature vectors copied into primitive arrays
+	 */
+	private double[][] toPrimitiveFeatureVectors(List<List<Double>> featureVectors) {
+		
+		double[][] primitiveFeatureVectors = new double[featureVectors.size()][];
+		
+		int featureVectorCounter = 0;
+		for (List<Double> featureVector : featureVectors) {
+			primitiveFeatureVectors[featureVectorCounter++] = toPrimitiveVector(featureVector);
+		}
+		
+		return primitiveFeatureVectors;
+		
+	}
+	
+	/**
+	 * @param vector
+	 * @return vector copied into a primitive array
+	 */
+	private double[] toPrimitiveVector(List<Double> vector) {
+		
+		double[] primitiveVector = new double[vector.size()];
+		
+		int vectorIndex = 0;
+		for (Double vectorElement : vector) {
+			primitiveVector[vectorIndex++] = vectorElement.doubleValue();
+		}
+		
+		return primitiveVector;
+		
+	}
+	
+	/**
+	 * @param labels
+	 * @return label values as +1 or -1
+	 */
+	private byte[] toPrimitiveLabels(List<BinaryDataLabel> labels) {
+		
+		byte[] primitiveLabels = new byte[labels.size()];
+		
+		int labelCounter = 0;
+		for (BinaryDataLabel label : labels) {
+			primitiveLabels[labelCounter++] = (byte) label.getValue();
+		}
+		
+		return primitiveLabels;
+		
+	}
+	
+	/**
+	 * @return the weight vector
+	 */
+	public List<Double> getWeightVector() {
+		
+		List<Double> weightVector = new ArrayList<Double>(this.weightVector.length);
+		
+		for (double weight : this.weightVector) {
+			weightVector.add(Double.valueOf(weight));
+		}
+		
+		return Collections.unmodifiableList(weightVector);
+		
+	}
+	
+	/**
+	 * @return snapshot of the current weights that is not affected by further training
+	 * @throws IllegalArgumentException if the classifier has not been trained or given a model yet
+	 */
+	public TrainedModel getTrainedModel() {
+		
+		Map<String, String> trainingMetadata = new LinkedHashMap<String, String>();
+		trainingMetadata.put(TrainedModel.TRAINING_RECORDS_KEY, Long.toString(this.numberOfTrainingRecords));
+		trainingMetadata.put(TrainedModel.CREATED_AT_KEY, Instant.now().toString());
+		
+		return new TrainedModel(this.weightVector, this.selectedLearningRate, this.selectedVarianceValue, trainingMetadata);
+		
+	}
+	
+	/**
+	 * Predict with a model trained earlier, for example one loaded from a file. The classifier scores with the model's
+	 * weights without copying them. Online training continues from a copy of its weights with its learning rate and
+	 * variance value.
+	 * @param trainedModel
+	 */
+	public void setTrainedModel(TrainedModel trainedModel) {
+		
+		this.weightVector = trainedModel.getSharedWeightVector();
+		this.weightVectorShared = true;
+		this.selectedLearningRate = trainedModel.getLearningRate();
+		this.selectedVarianceValue = trainedModel.getVarianceValue();
+		this.onlineStochasticGradientDescent = null;
+		
+		String trainingRecords = trainedModel.getTrainingMetadata().get(TrainedModel.TRAINING_RECORDS_KEY);
+		this.numberOfTrainingRecords = trainingRecords != null ? Long.parseLong(trainingRecords) : 0;
+		
+	}
+	
+	public List<Double> getBestSvmObjectiveTrend() {
+		return this.bestSvmObjectiveTrend;
+	}
+	
+	/**
+	 * Method that can be used for debugging. This will return the current value of the objective and this should reduce over time.
+	 *
+	 * @param currentWeightVector
+	 * @param currentFeatureVector
+	 * @param currentFeatureLabel
+	 * @return current value of the SVM Objective
+	 */
+	private double getCurrentSvmObjectiveValue(double[] currentWeightVector, double[] currentFeatureVector, BinaryDataLabel currentFeatureLabel, double currentVarianceValue) {
+		
+		if (this.runInDebug) {
+			double currentSvmObjectiveValue = 0.5 * getDotProduct(currentWeightVector, currentWeightVector);
+			
+			currentSvmObjectiveValue += currentVarianceValue * Math.max(0.0, 1 - currentFeatureLabel.getValue() * getDotProduct(currentWeightVector, currentFeatureVector));
+			
+			this.svmObjectiveTrend.add(currentSvmObjectiveValue);
+			
+			return currentSvmObjectiveValue;
+			
+		} else {
+			
+			return Double.valueOf(0.0);
+			
+		}
+	}
+	
+	/**
+	 * Print the best SVM Objective trend
+	 */
+	public void printBestSvmObjectiveTrend() {
+		
+		StringBuilder svmObjectiveTrend = new StringBuilder("c(");
+		
+		boolean firstTime = true;
+		for (Double svmObjective : this.bestSvmObjectiveTrend) {
+			
+			if (firstTime) {
+				firstTime = false;
+			} else {
+				svmObjectiveTrend.append(", ");
+			}
+			
+			svmObjectiveTrend.append(svmObjective.toString());
+		}
+		
+		svmObjectiveTrend.append(")");
+		getTrainingEventSink().accept(TrainingEvent.message(svmObjectiveTrend.toString()));
+		
+	}
+	
+	/**
+	 * @param vector1
+	 * @param vector2
+	 * @return the dot product of two vectors
+	 */
+	private double getDotProduct(double[] vector1, double[] vector2) {
+		
+		//Both vectors need to have the same dimensions
+		assert vector1.length == vector2.length;
+		
+		//Compute the dot product
+		double dotProduct = 0.0;
+		for (int vectorIndex = 0; vectorIndex < vector1.length; ++vectorIndex) {
+			dotProduct += vector1[vectorIndex] * vector2[vectorIndex];
+		}
+		return dotProduct;
+		
+	}
+	
+	/**
+	 * Hand an event to the training event sink if running in debug
+	 *
+	 * @param trainingEvent
+	 */
+	private void publish(TrainingEvent trainingEvent) {
+		
+		if (this.runInDebug) {
+			getTrainingEventSink().accept(trainingEvent);
+		}
+		
+	}
+	
+	/**
+	 * @return the training event sink, after opening the log files of the constructor if no other sink has been set
+	 */
+	private synchronized TrainingEventSink getTrainingEventSink() {
+		
+		if (this.trainingEventSink == null) {
+			
+			String objectiveValueFileName = LOG_FILE_NAME.equals(this.logFileName) ? OBJECTIVE_VALUE_FILE_NAME : AsynchronousTrainingEventSink.getRunFilePath(this.logFileName, "objective");
+			try{
+				this.trainingEventSink = new AsynchronousTrainingEventSink(this.logFileName, objectiveValueFileName, TrainingEventFormat.TEXT);
+			} catch (IOException e) {
+				System.err.println("IOException while opening file ");
+				e.printStackTrace();
+				System.exit(0);
+			}
+		}
+		
+		return this.trainingEventSink;
+		
+	}
+	
+	/**
+	 * Write the events still waiting in the training event sink and close the log files
+	 */
+	public synchronized void closeLogFiles() {
+		
+		if (this.trainingEventSink != null) {
+			this.trainingEventSink.close();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,19 @@
+package logisticregression.core;
+
+/**
+ * Enum to hold the ways in which the classifier can minimize the regularized objective
+ */
+public enum OptimizationMethod {
+	
+	/**
+	 * Stochastic gradient descent over a grid of learning rates and variance values, one record or minibatch at a time
+	 */
+	STOCHASTIC_GRADIENT_DESCENT,
+	
+	/**
+	 * Full batch L-BFGS over the variance values only. Each iteration makes a pass over all the training records, and there
+	 * is no learning rate to tune.
+	 */
+	LIMITED_MEMORY_BFGS;
+	
+}
@@ -0,0 +1,249 @@
+package logisticregression.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Stochastic gradient descent in which several threads train on separate parts of each epoch and update one shared weight
+ * vector without locking (Hogwild). As in the sequential run, the weights are kept as scale * v and the weight decay of
+ * every update is applied to all the weights through the scale, so both minimize the same objective. The scale cannot be
+ * changed while other threads read it, so each epoch is trained in rounds of RECORDS_PER_ROUND records for each thread.
+ * The threads only move the weights of the records' features during a round, and the decay of all the updates of the
+ * round is applied to the scale between rounds. Within a round each thread expects the scale to decay as if every thread
+ * had made the same updates as itself, which with one thread is exactly the sequential run. Each thread also follows
+ * its own learning rate schedule, stepping its counter by the number of threads. Every record takes a step of its own,
+ * so minibatches are not supported.
+ */
+public class ParallelStochasticGradientDescent extends StochasticGradientDescent {
+	
+	public static final int RECORDS_PER_ROUND = 1024;
+	
+	private static final VarHandle WEIGHT_VECTOR_ELEMENT = MethodHandles.arrayElementVarHandle(double[].class);
+	
+	private int numberOfThreads;
+	private WeightUpdateMode weightUpdateMode;
+	private ExecutorService workerExecutor;
+	
+	/**
+	 * Constructor
+	 * @param numberOfColumns number of columns including the bias column
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param randomSeed seed for shuffling the training records
+	 * @param numberOfThreads number of parts each round is split into
+	 * @param weightUpdateMode
+	 * @param workerExecutor executor training the parts. The parts of a round do not wait for each other, so it can have
+	 * fewer threads than parts and can be shared by several runs.
+	 */
+	public ParallelStochasticGradientDescent(int numberOfColumns, double learningRate, double varianceValue, long randomSeed, int numberOfThreads, WeightUpdateMode weightUpdateMode, ExecutorService workerExecutor) {
+		
+		super(numberOfColumns, learningRate, varianceValue, randomSeed);
+		
+		assert numberOfThreads > 0;
+		
+		this.numberOfThreads = numberOfThreads;
+		this.weightUpdateMode = weightUpdateMode;
+		this.workerExecutor = workerExecutor;
+		
+	}
+	
+	/**
+	 * Only one step for each record is supported
+	 * @param minibatchSize must be 1
+	 */
+	@Override
+	public void setMinibatchSize(int minibatchSize) {
+		
+		if (minibatchSize != 1) {
+			throw new IllegalArgumentException("Parallel stochastic gradient descent takes one step for each record, so the minibatch size must be 1 but was " + minibatchSize);
+		}
+		
+	}
+	
+	/**
+	 * Run one pass over the training records. Thread k trains on the k-th contiguous part of the records, a round at a time.
+	 * @param featureMatrix
+	 * @param labels
+	 * @param trainingDataSubsetRecords records in the order in which they should be visited
+	 */
+	@Override
+	public void runEpoch(final SparseFeatureMatrix featureMatrix, final byte[] labels, final int[] trainingDataSubsetRecords) {
+		
+		final double[] weightVector = this.weightVector;
+		final double[] threadLearningRates = new double[this.numberOfThreads], threadDecays = new double[this.numberOfThreads], threadLosses = new double[this.numberOfThreads];
+		final int[] threadCounters = new int[this.numberOfThreads], partStarts = new int[this.numberOfThreads + 1];
+		
+		int longestPart = 0;
+		for (int threadNumber = 0; threadNumber < this.numberOfThreads; ++threadNumber) {
+			
+			threadLearningRates[threadNumber] = this.currentLearningRate;
+			threadCounters[threadNumber] = this.stochasticGradientDescentCounter + threadNumber;
+			partStarts[threadNumber + 1] = (int) ((long) trainingDataSubsetRecords.length * (threadNumber + 1) / this.numberOfThreads);
+			longestPart = Math.max(longestPart, partStarts[threadNumber + 1] - partStarts[threadNumber]);
+		}
+		
+		double weightVectorScale = 1.0;
+		List<Future<?>> workers = new ArrayList<Future<?>>(this.numberOfThreads);
+		for (int roundStart = 0; roundStart < longestPart; roundStart += RECORDS_PER_ROUND) {
+			
+			//The scale stays the same for the whole round
+			final double roundScale = weightVectorScale;
+			workers.clear();
+			for (int threadNumber = 0; threadNumber < this.numberOfThreads; ++threadNumber) {
+				
+				final int threadCounter = threadNumber;
+				final int firstRecord = Math.min(partStarts[threadNumber] + roundStart, partStarts[threadNumber + 1]);
+				final int lastRecord = Math.min(firstRecord + RECORDS_PER_ROUND, partStarts[threadNumber + 1]);
+				
+				workers.add(this.workerExecutor.submit(new Runnable() {
+					
+					@Override
+					public void run() {
+						runPartOfRound(featureMatrix, labels, trainingDataSubsetRecords, firstRecord, lastRecord, threadCounter, roundScale, threadLearningRates, threadCounters, threadDecays, threadLosses);
+					}
+					
+				}));
+				
+			}
+			waitForWorkers(workers);
+			
+			//Apply the weight decay of all the updates of the round to all the weights at once
+			for (double threadDecay : threadDecays) {
+				weightVectorScale *= threadDecay;
+			}
+			if (weightVectorScale == 0.0) {
+				Arrays.fill(weightVector, 0.0);
+				weightVectorScale = 1.0;
+			}
+			
+			//Fold the scale back into the weights before it loses precision
+			if (Math.abs(weightVectorScale) < MINIMUM_WEIGHT_VECTOR_SCALE || Math.abs(weightVectorScale) > 1.0 / MINIMUM_WEIGHT_VECTOR_SCALE) {
+				scaleVector(weightVector, weightVectorScale);
+				weightVectorScale = 1.0;
+			}
+			
+		}
+		
+		scaleVector(weightVector, weightVectorScale);
+		
+		//Continue the schedule from the first thread's learning rate
+		this.currentLearningRate = threadLearningRates[0];
+		this.stochasticGradientDescentCounter += trainingDataSubsetRecords.length;
+		
+		this.epochLoss = 0.0;
+		for (double threadLoss : threadLosses) {
+			this.epochLoss += threadLoss;
+		}
+		
+	}
+	
+	/**
+	 * Wait for the parts of a round to finish
+	 * @param workers
+	 */
+	private void waitForWorkers(List<Future<?>> workers) {
+		
+		try {
+			for (Future<?> worker : workers) {
+				worker.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for gradient descent threads", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Gradient descent thread failed", e.getCause());
+		}
+		
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param labels
+	 * @param trainingDataSubsetRecords
+	 * @param firstRecord position of the first record to train on
+	 * @param lastRecord position after the last record to train on
+	 * @param threadNumber
+	 * @param weightVectorScale scale of the weight vector at the start of the round
+	 * @param threadLearningRates learning rate of each thread, updated for this thread
+	 * @param threadCounters learning rate schedule counter of each thread, updated for this thread
+	 * @param threadDecays set for this thread to the product of the weight decays of its updates in the round
+	 * @param threadLosses loss accumulated by each thread, added to for this thread if loss accumulation is on
+	 */
+	private void runPartOfRound(SparseFeatureMatrix featureMatrix, byte[] labels, int[] trainingDataSubsetRecords, int firstRecord, int lastRecord, int threadNumber, double weightVectorScale, double[] threadLearningRates, int[] threadCounters, double[] threadDecays, double[] threadLosses) {
+		
+		double[] weightVector = this.weightVector;
+		double currentLearningRate = threadLearningRates[threadNumber], threadDecay = 1.0, threadLoss = 0.0;
+		double threadScale = weightVectorScale;
+		int stochasticGradientDescentCounter = threadCounters[threadNumber];
+		
+		for (int recordCounter = firstRecord; recordCounter < lastRecord; ++recordCounter) {
+			
+			int recordNumber = trainingDataSubsetRecords[recordCounter], label = labels[recordNumber];
+			
+			//Get depreciated learning rate
+			currentLearningRate = getNextLearningRate(stochasticGradientDescentCounter, currentLearningRate, this.varianceValue);
+			stochasticGradientDescentCounter += this.numberOfThreads;
+			
+			//Gradient of the log loss with respect to the dot product, computed with whatever weights the other threads have written
+			double labelTimesMargin = label * threadScale * featureMatrix.getDotProduct(recordNumber, weightVector);
+			double gradientScale = label / (1.0 + Math.exp(labelTimesMargin));
+			if (this.accumulateLoss) {
+				threadLoss += getLogLoss(labelTimesMargin);
+			}
+			
+			//The other threads decay the weights about as often as this one, so the scale is expected to have moved by this
+			//thread's decay once for each thread
+			threadDecay *= 1.0 - 2.0 * currentLearningRate / this.varianceValue;
+			threadScale = weightVectorScale * Math.pow(threadDecay, this.numberOfThreads);
+			double featureStep = currentLearningRate * gradientScale / threadScale;
+			
+			//Update the bias and the weights of the features in the record
+			updateWeight(weightVector, 0, featureStep);
+			for (int valueIndex = featureMatrix.getRowStart(recordNumber), rowEnd = featureMatrix.getRowEnd(recordNumber); valueIndex < rowEnd; ++valueIndex) {
+				updateWeight(weightVector, featureMatrix.getColumnIndex(valueIndex), featureStep * featureMatrix.getValue(valueIndex));
+			}
+			
+		}
+		
+		threadLearningRates[threadNumber] = currentLearningRate;
+		threadCounters[threadNumber] = stochasticGradientDescentCounter;
+		threadDecays[threadNumber] = threadDecay;
+		threadLosses[threadNumber] += threadLoss;
+		
+	}
+	
+	/**
+	 * Add a step to a weight, either with a plain write or with an atomic compare and set
+	 * @param weightVector
+	 * @param weightIndex
+	 * @param step
+	 */
+	private void updateWeight(double[] weightVector, int weightIndex, double step) {
+		
+		if (this.weightUpdateMode == WeightUpdateMode.LOCK_FREE) {
+			weightVector[weightIndex] += step;
+		} else {
+			
+			double currentWeight;
+			do {
+				currentWeight = (double) WEIGHT_VECTOR_ELEMENT.getVolatile(weightVector, weightIndex);
+			} while (!WEIGHT_VECTOR_ELEMENT.compareAndSet(weightVector, weightIndex, currentWeight, currentWeight + step));
+			
+		}
+		
+	}
+	
+	/**
+	 * @return number of parts each round is split into
+	 */
+	public int getNumberOfThreads() {
+		return this.numberOfThreads;
+	}
+	
+}
@@ -0,0 +1,137 @@
+package logisticregression.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of one training phase. Phases can run on many threads at the same time, so the totals are kept in adders
+ * that each thread updates without contention.
+ */
+public class PhaseStatistics implements PhaseStatisticsMXBean {
+	
+	private final TrainingPhase trainingPhase;
+	private final LongAdder count, totalNanoseconds, rows, allocatedBytes;
+	private final AtomicLong maximumNanoseconds;
+	private volatile boolean allocationMeasured;
+	
+	/**
+	 * Constructor
+	 * @param trainingPhase
+	 */
+	public PhaseStatistics(TrainingPhase trainingPhase) {
+		
+		this.trainingPhase = trainingPhase;
+		this.count = new LongAdder();
+		this.totalNanoseconds = new LongAdder();
+		this.rows = new LongAdder();
+		this.allocatedBytes = new LongAdder();
+		this.maximumNanoseconds = new AtomicLong();
+		this.allocationMeasured = true;
+		
+	}
+	
+	/**
+	 * Add one run of the phase
+	 * @param elapsedNanoseconds
+	 * @param numberOfRows
+	 * @param bytesAllocated bytes allocated by the thread during the run, or -1 if it was not measured
+	 */
+	public void record(long elapsedNanoseconds, long numberOfRows, long bytesAllocated) {
+		
+		this.count.increment();
+		this.totalNanoseconds.add(elapsedNanoseconds);
+		this.rows.add(numberOfRows);
+		if (bytesAllocated >= 0) {
+			this.allocatedBytes.add(bytesAllocated);
+		} else {
+			this.allocationMeasured = false;
+		}
+		
+		long currentMaximum = this.maximumNanoseconds.get();
+		while (elapsedNanoseconds > currentMaximum && !this.maximumNanoseconds.compareAndSet(currentMaximum, elapsedNanoseconds)) {
+			currentMaximum = this.maximumNanoseconds.get();
+		}
+		
+	}
+	
+	/**
+	 * @return one line with the count, time, rate and allocation of the phase
+	 */
+	public String getSummary() {
+		
+		long totalNanoseconds = getTotalNanoseconds();
+		StringBuilder summary = new StringBuilder(128);
+		summary.append(this.trainingPhase.name()).append(": count ").append(getCount());
+		summary.append(", total ").append(String.format("%.3f", totalNanoseconds / 1e9)).append(" s");
+		summary.append(", average ").append(String.format("%.3f", getAverageNanoseconds() / 1e6)).append(" ms");
+		summary.append(", maximum ").append(String.format("%.3f", getMaximumNanoseconds() / 1e6)).append(" ms");
+		if (getRows() > 0) {
+			summary.append(", rows ").append(getRows()).append(", rows/s ").append(String.format("%.0f", getRowsPerSecond()));
+		}
+		if (getAllocatedBytes() >= 0) {
+			summary.append(", allocated ").append(getAllocatedBytes() >> 10).append(" KB");
+		}
+		
+		return summary.toString();
+		
+	}
+	
+	@Override
+	public String getPhase() {
+		return this.trainingPhase.name();
+	}
+	
+	@Override
+	public long getCount() {
+		return this.count.sum();
+	}
+	
+	@Override
+	public long getTotalNanoseconds() {
+		return this.totalNanoseconds.sum();
+	}
+	
+	@Override
+	public long getMaximumNanoseconds() {
+		return this.maximumNanoseconds.get();
+	}
+	
+	@Override
+	public double getAverageNanoseconds() {
+		
+		long count = getCount();
+		return count > 0 ? (double) getTotalNanoseconds() / count : 0.0;
+		
+	}
+	
+	@Override
+	public long getRows() {
+		return this.rows.sum();
+	}
+	
+	@Override
+	public double getRowsPerSecond() {
+		
+		long totalNanoseconds = getTotalNanoseconds();
+		return totalNanoseconds > 0 ? getRows() * 1e9 / totalNanoseconds : 0.0;
+		
+	}
+	
+	@Override
+	public long getAllocatedBytes() {
+		return this.allocationMeasured ? this.allocatedBytes.sum() : -1;
+	}
+	
+	@Override
+	public void reset() {
+		
+		this.count.reset();
+		this.totalNanoseconds.reset();
+		this.rows.reset();
+		this.allocatedBytes.reset();
+		this.allocationMeasured = true;
+		this.maximumNanoseconds.set(0);
+		
+	}
+	
+}
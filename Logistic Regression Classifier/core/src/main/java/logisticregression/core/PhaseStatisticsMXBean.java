@@ -0,0 +1,53 @@
+package logisticregression.core;
+
+/**
+ * Management interface of the statistics of one training phase
+ */
+public interface PhaseStatisticsMXBean {
+	
+	/**
+	 * @return name of the phase
+	 */
+	String getPhase();
+	
+	/**
+	 * @return number of times the phase has run
+	 */
+	long getCount();
+	
+	/**
+	 * @return time spent in the phase in nanoseconds
+	 */
+	long getTotalNanoseconds();
+	
+	/**
+	 * @return longest single run of the phase in nanoseconds
+	 */
+	long getMaximumNanoseconds();
+	
+	/**
+	 * @return average time of a run of the phase in nanoseconds
+	 */
+	double getAverageNanoseconds();
+	
+	/**
+	 * @return number of rows processed by the phase
+	 */
+	long getRows();
+	
+	/**
+	 * @return rows processed for each second spent in the phase
+	 */
+	double getRowsPerSecond();
+	
+	/**
+	 * @return bytes allocated by the threads that ran the phase while it ran, or -1 if the JVM cannot measure it
+	 */
+	long getAllocatedBytes();
+	
+	/**
+	 * Set the statistics back to zero
+	 */
+	void reset();
+	
+}
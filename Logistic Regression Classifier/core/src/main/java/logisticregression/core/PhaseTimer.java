@@ -0,0 +1,35 @@
+package logisticregression.core;
+
+/**
+ * Timer for one run of a training phase, started by TrainingInstrumentation.startPhase and stopped on the same thread
+ */
+public class PhaseTimer {
+	
+	private final PhaseStatistics phaseStatistics;
+	private final long startTime, startAllocatedBytes;
+	
+	/**
+	 * Constructor
+	 * @param phaseStatistics statistics the run is added to
+	 */
+	PhaseTimer(PhaseStatistics phaseStatistics) {
+		
+		this.phaseStatistics = phaseStatistics;
+		this.startAllocatedBytes = TrainingInstrumentation.getCurrentThreadAllocatedBytes();
+		this.startTime = System.nanoTime();
+		
+	}
+	
+	/**
+	 * Stop the timer and add the run to the phase statistics
+	 * @param numberOfRows rows processed during the run
+	 */
+	public void stop(long numberOfRows) {
+		
+		long elapsedNanoseconds = System.nanoTime() - this.startTime;
+		long allocatedBytes = TrainingInstrumentation.getCurrentThreadAllocatedBytes();
+		this.phaseStatistics.record(elapsedNanoseconds, numberOfRows, allocatedBytes >= 0 && this.startAllocatedBytes >= 0 ? allocatedBytes - this.startAllocatedBytes : -1);
+		
+	}
+	
+}
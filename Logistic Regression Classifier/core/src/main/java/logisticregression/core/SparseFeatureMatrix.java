@@ -0,0 +1,181 @@
+package logisticregression.core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Feature vectors stored in compressed sparse row form. Column 0 is the bias term which is not stored
+ * and always has a value of 1. The features of row r are the stored values at positions getRowStart(r) to
+ * getRowEnd(r) - 1. HeapSparseFeatureMatrix keeps them in arrays on the heap and DirectSparseFeatureMatrix in buffers
+ * outside the heap.
+ */
+public abstract class SparseFeatureMatrix {
+	
+	private int numberOfColumns;
+	
+	/**
+	 * Constructor
+	 * @param numberOfColumns number of columns including the bias column
+	 */
+	protected SparseFeatureMatrix(int numberOfColumns) {
+		this.numberOfColumns = numberOfColumns;
+	}
+	
+	/**
+	 * @param featureVectors dense feature vectors with the bias term in the first column
+	 * @return sparse matrix holding the non zero features
+	 */
+	public static SparseFeatureMatrix fromDenseRows(double[][] featureVectors) {
+		
+		int numberOfColumns = 0, numberOfNonZeros = 0;
+		for (double[] featureVector : featureVectors) {
+			
+			numberOfColumns = Math.max(numberOfColumns, featureVector.length);
+			for (int columnNumber = 1; columnNumber < featureVector.length; ++columnNumber) {
+				if (featureVector[columnNumber] != 0.0) {
+					++numberOfNonZeros;
+				}
+			}
+		}
+		
+		int[] rowOffsets = new int[featureVectors.length + 1], columnIndices = new int[numberOfNonZeros];
+		double[] values = new double[numberOfNonZeros];
+		
+		int valueCounter = 0;
+		for (int rowNumber = 0; rowNumber < featureVectors.length; ++rowNumber) {
+			
+			rowOffsets[rowNumber] = valueCounter;
+			for (int columnNumber = 1; columnNumber < featureVectors[rowNumber].length; ++columnNumber) {
+				if (featureVectors[rowNumber][columnNumber] != 0.0) {
+					columnIndices[valueCounter] = columnNumber;
+					values[valueCounter++] = featureVectors[rowNumber][columnNumber];
+				}
+			}
+		}
+		rowOffsets[featureVectors.length] = valueCounter;
+		
+		return new HeapSparseFeatureMatrix(numberOfColumns, rowOffsets, columnIndices, values);
+		
+	}
+	
+	/**
+	 * @param numberOfColumns
+	 * @return a matrix sharing the same rows but with a different number of columns
+	 */
+	public abstract SparseFeatureMatrix withNumberOfColumns(int numberOfColumns);
+	
+	/**
+	 * @return number of rows
+	 */
+	public abstract int getNumberOfRows();
+	
+	/**
+	 * @return number of columns including the bias column
+	 */
+	public int getNumberOfColumns() {
+		return this.numberOfColumns;
+	}
+	
+	/**
+	 * @return number of stored non zero values
+	 */
+	public int getNumberOfNonZeros() {
+		return getRowStart(getNumberOfRows());
+	}
+	
+	/**
+	 * @param rowNumber row number, or the number of rows for the number of stored values
+	 * @return position of the first stored value of the row
+	 */
+	public abstract int getRowStart(int rowNumber);
+	
+	/**
+	 * @param rowNumber
+	 * @return position after the last stored value of the row
+	 */
+	public int getRowEnd(int rowNumber) {
+		return getRowStart(rowNumber + 1);
+	}
+	
+	/**
+	 * @param valueIndex position of a stored value
+	 * @return column number of the value, starting from 1
+	 */
+	public abstract int getColumnIndex(int valueIndex);
+	
+	/**
+	 * @param valueIndex position of a stored value
+	 * @return the value
+	 */
+	public abstract double getValue(int valueIndex);
+	
+	/**
+	 * @param rowNumber
+	 * @param weightVector weight vector with the bias weight in the first position
+	 * @return dot product of the row and the weight vector
+	 */
+	public abstract double getDotProduct(int rowNumber, double[] weightVector);
+	
+	/**
+	 * @param rowNumber
+	 * @param weightVector weight vector with the bias weight in the first position. It may have fewer columns than the matrix.
+	 * @return dot product of the row and the weight vector, where columns without a weight do not contribute
+	 */
+	public abstract double getMargin(int rowNumber, double[] weightVector);
+	
+	/**
+	 * Add a multiple of a row to a vector
+	 * @param rowNumber
+	 * @param multiplyWith
+	 * @param vector vector with the bias term in the first position
+	 */
+	public abstract void addScaledRow(int rowNumber, double multiplyWith, double[] vector);
+	
+	/**
+	 * @return rows as dense boxed vectors with the bias term of 1 in the first column. Each row is built when it is accessed.
+	 */
+	public List<List<Double>> getDenseRows() {
+		
+		return Collections.unmodifiableList(new AbstractList<List<Double>>() {
+			
+			@Override
+			public List<Double> get(int rowNumber) {
+				return getDenseRow(rowNumber);
+			}
+			
+			@Override
+			public int size() {
+				return getNumberOfRows();
+			}
+			
+		});
+		
+	}
+	
+	/**
+	 * @param rowNumber
+	 * @return row as a dense boxed vector with the bias term of 1 in the first column
+	 */
+	public List<Double> getDenseRow(int rowNumber) {
+		
+		Double[] denseRow = new Double[this.numberOfColumns];
+		denseRow[0] = Double.valueOf(1.0);
+		
+		for (int columnNumber = 1; columnNumber < this.numberOfColumns; ++columnNumber) {
+			denseRow[columnNumber] = Double.valueOf(0.0);
+		}
+		
+		for (int valueIndex = getRowStart(rowNumber), rowEnd = getRowEnd(rowNumber); valueIndex < rowEnd; ++valueIndex) {
+			int columnIndex = getColumnIndex(valueIndex);
+			denseRow[columnIndex] = Double.valueOf(denseRow[columnIndex].doubleValue() + getValue(valueIndex));
+		}
+		
+		List<Double> denseRowList = new ArrayList<Double>(this.numberOfColumns);
+		Collections.addAll(denseRowList, denseRow);
+		return denseRowList;
+		
+	}
+	
+}
@@ -0,0 +1,358 @@
+package logisticregression.core;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * One stochastic gradient descent run for a learning rate and variance value. The weight vector, the learning rate schedule
+ * and the random number generator used for shuffling belong to the run so that several runs can train at the same time.
+ */
+public class StochasticGradientDescent {
+	
+	public static final double MINIMUM_WEIGHT_VECTOR_SCALE = 1e-9;
+	
+	protected double learningRate, varianceValue;
+	protected double currentLearningRate;
+	protected int stochasticGradientDescentCounter;
+	protected double[] weightVector;
+	protected int minibatchSize;
+	protected boolean accumulateLoss;
+	protected double epochLoss;
+	private SplittableRandom randomNumberGenerator;
+	
+	/**
+	 * Constructor
+	 * @param numberOfColumns number of columns including the bias column
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param randomSeed seed for shuffling the training records
+	 */
+	public StochasticGradientDescent(int numberOfColumns, double learningRate, double varianceValue, long randomSeed) {
+		
+		this.learningRate = learningRate;
+		this.varianceValue = varianceValue;
+		this.currentLearningRate = learningRate;
+		this.stochasticGradientDescentCounter = 0;
+		this.weightVector = new double[numberOfColumns];
+		this.minibatchSize = 1;
+		this.accumulateLoss = false;
+		this.epochLoss = 0.0;
+		this.randomNumberGenerator = new SplittableRandom(randomSeed);
+		
+	}
+	
+	/**
+	 * Constructor to continue training from existing weights
+	 * @param weightVector initial weights, updated in place
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param randomSeed seed for shuffling the training records
+	 */
+	public StochasticGradientDescent(double[] weightVector, double learningRate, double varianceValue, long randomSeed) {
+		
+		this(0, learningRate, varianceValue, randomSeed);
+		this.weightVector = weightVector;
+		
+	}
+	
+	/**
+	 * Make room in the weight vector for features that have not been seen before. Their weights start at zero.
+	 * @param numberOfColumns number of columns including the bias column
+	 */
+	public void ensureNumberOfColumns(int numberOfColumns) {
+		
+		if (numberOfColumns > this.weightVector.length) {
+			this.weightVector = Arrays.copyOf(this.weightVector, numberOfColumns);
+		}
+		
+	}
+	
+	/**
+	 * Start from the given weights instead of zero, for example from the solution for a neighbouring variance value
+	 * @param initialWeightVector weights copied into the weight vector, with at most its number of columns
+	 */
+	public void setInitialWeights(double[] initialWeightVector) {
+		
+		System.arraycopy(initialWeightVector, 0, this.weightVector, 0, initialWeightVector.length);
+		Arrays.fill(this.weightVector, initialWeightVector.length, this.weightVector.length, 0.0);
+		
+	}
+	
+	/**
+	 * Take one step for each minibatch of records instead of one for each record. The gradient of a step is the average of
+	 * the gradients of the records in the minibatch, and the weight decay and the learning rate schedule move once per step.
+	 * @param minibatchSize 1 for one step for each record
+	 */
+	public void setMinibatchSize(int minibatchSize) {
+		
+		if (minibatchSize < 1) {
+			throw new IllegalArgumentException("Minibatch size must be at least 1 but was " + minibatchSize);
+		}
+		this.minibatchSize = minibatchSize;
+		
+	}
+	
+	/**
+	 * @return number of records in each step
+	 */
+	public int getMinibatchSize() {
+		return this.minibatchSize;
+	}
+	
+	/**
+	 * Add up the log loss of each record during the epoch, from the margin already computed for its update. This measures
+	 * the objective without a second pass over the records. It is off by default and costs nothing then.
+	 * @param accumulateLoss
+	 */
+	public void setLossAccumulation(boolean accumulateLoss) {
+		this.accumulateLoss = accumulateLoss;
+	}
+	
+	/**
+	 * @return sum of the log loss of each record in the last epoch, each computed with the weights just before the record's
+	 * update, or 0 if loss accumulation is off
+	 */
+	public double getEpochLoss() {
+		return this.epochLoss;
+	}
+	
+	/**
+	 * @return loss accumulated during the last epoch plus the regularizer for the current weights. This is close to
+	 * getTotalObjectiveValue after the epoch but does not need another pass over the records.
+	 */
+	public double getEpochObjectiveValue() {
+		return this.epochLoss + getRegularizerValue();
+	}
+	
+	/**
+	 * Run one pass of stochastic gradient descent over the training records. The weight vector is kept as
+	 * scale * v so that the weight decay w = w * (1 - 2 * learningRate / variance) is a single multiplication and
+	 * only the weights of the non zero features of a record are updated. The cost of each step is proportional to
+	 * the number of non zero features and not to the number of columns.
+	 * @param featureMatrix
+	 * @param labels
+	 * @param trainingDataSubsetRecords records in the order in which they should be visited
+	 */
+	public void runEpoch(SparseFeatureMatrix featureMatrix, byte[] labels, int[] trainingDataSubsetRecords) {
+		
+		if (this.minibatchSize > 1) {
+			runMinibatchEpoch(featureMatrix, labels, trainingDataSubsetRecords);
+			return;
+		}
+		
+		double[] weightVector = this.weightVector;
+		double weightVectorScale = 1.0, epochLoss = 0.0;
+		
+		//Loop through each training record sample
+		for (int recordNumber : trainingDataSubsetRecords) {
+			
+			int label = labels[recordNumber];
+			
+			//Get depreciated learning rate
+			this.currentLearningRate = getNextLearningRate(this.stochasticGradientDescentCounter++, this.currentLearningRate, this.varianceValue);
+			
+			//Gradient of the log loss with respect to the dot product, computed with the weights before the update
+			double labelTimesMargin = label * weightVectorScale * featureMatrix.getDotProduct(recordNumber, weightVector);
+			double gradientScale = label / (1.0 + Math.exp(labelTimesMargin));
+			if (this.accumulateLoss) {
+				epochLoss += getLogLoss(labelTimesMargin);
+			}
+			
+			//Apply the weight decay to all the weights at once
+			weightVectorScale *= 1.0 - 2.0 * this.currentLearningRate / this.varianceValue;
+			if (weightVectorScale == 0.0) {
+				Arrays.fill(weightVector, 0.0);
+				weightVectorScale = 1.0;
+			}
+			
+			//Update the weights of the features in the record
+			featureMatrix.addScaledRow(recordNumber, this.currentLearningRate * gradientScale / weightVectorScale, weightVector);
+			
+			//Fold the scale back into the weights before it loses precision
+			if (Math.abs(weightVectorScale) < MINIMUM_WEIGHT_VECTOR_SCALE || Math.abs(weightVectorScale) > 1.0 / MINIMUM_WEIGHT_VECTOR_SCALE) {
+				scaleVector(weightVector, weightVectorScale);
+				weightVectorScale = 1.0;
+			}
+			
+		}
+		
+		scaleVector(weightVector, weightVectorScale);
+		this.epochLoss = epochLoss;
+		
+	}
+	
+	/**
+	 * Run one pass over the training records one minibatch at a time. The margins of all the records in a minibatch are
+	 * computed first with the same weights, then turned into gradient scales in one loop over a primitive array, and only
+	 * then are the weights decayed once and moved along each record.
+	 * @param featureMatrix
+	 * @param labels
+	 * @param trainingDataSubsetRecords records in the order in which they should be visited
+	 */
+	private void runMinibatchEpoch(SparseFeatureMatrix featureMatrix, byte[] labels, int[] trainingDataSubsetRecords) {
+		
+		double[] weightVector = this.weightVector, gradientScales = new double[this.minibatchSize];
+		double weightVectorScale = 1.0, epochLoss = 0.0;
+		
+		for (int firstRecord = 0; firstRecord < trainingDataSubsetRecords.length; firstRecord += this.minibatchSize) {
+			
+			int recordsInMinibatch = Math.min(this.minibatchSize, trainingDataSubsetRecords.length - firstRecord);
+			
+			//Get depreciated learning rate
+			this.currentLearningRate = getNextLearningRate(this.stochasticGradientDescentCounter++, this.currentLearningRate, this.varianceValue);
+			
+			//Margins of the minibatch, all computed with the weights before the step
+			for (int recordCounter = 0; recordCounter < recordsInMinibatch; ++recordCounter) {
+				gradientScales[recordCounter] = weightVectorScale * featureMatrix.getDotProduct(trainingDataSubsetRecords[firstRecord + recordCounter], weightVector);
+			}
+			
+			//Gradient of the log loss with respect to each margin
+			for (int recordCounter = 0; recordCounter < recordsInMinibatch; ++recordCounter) {
+				
+				double labelTimesMargin = labels[trainingDataSubsetRecords[firstRecord + recordCounter]] * gradientScales[recordCounter];
+				if (this.accumulateLoss) {
+					epochLoss += getLogLoss(labelTimesMargin);
+				}
+				gradientScales[recordCounter] = labels[trainingDataSubsetRecords[firstRecord + recordCounter]] / (1.0 + Math.exp(labelTimesMargin));
+			}
+			
+			//Apply the weight decay to all the weights once for the minibatch
+			weightVectorScale *= 1.0 - 2.0 * this.currentLearningRate / this.varianceValue;
+			if (weightVectorScale == 0.0) {
+				Arrays.fill(weightVector, 0.0);
+				weightVectorScale = 1.0;
+			}
+			
+			//Move the weights along the average gradient
+			double stepSize = this.currentLearningRate / recordsInMinibatch / weightVectorScale;
+			for (int recordCounter = 0; recordCounter < recordsInMinibatch; ++recordCounter) {
+				featureMatrix.addScaledRow(trainingDataSubsetRecords[firstRecord + recordCounter], stepSize * gradientScales[recordCounter], weightVector);
+			}
+			
+			//Fold the scale back into the weights before it loses precision
+			if (Math.abs(weightVectorScale) < MINIMUM_WEIGHT_VECTOR_SCALE || Math.abs(weightVectorScale) > 1.0 / MINIMUM_WEIGHT_VECTOR_SCALE) {
+				scaleVector(weightVector, weightVectorScale);
+				weightVectorScale = 1.0;
+			}
+			
+		}
+		
+		scaleVector(weightVector, weightVectorScale);
+		this.epochLoss = epochLoss;
+		
+	}
+	
+	/**
+	 * Shuffle the order in which the records are visited
+	 * @param recordNumbers shuffled in place
+	 */
+	public void shuffleTrainingData(int[] recordNumbers) {
+		EpochPermutation.shuffle(recordNumbers, this.randomNumberGenerator);
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param labels
+	 * @param trainingDataSubsetRecords
+	 * @return total log likelihood for the data set using the weight vector
+	 */
+	public double getTotalObjectiveValue(SparseFeatureMatrix featureMatrix, byte[] labels, int[] trainingDataSubsetRecords) {
+		
+		double totalObjectiveValue = 0.0;
+		
+		//Compute loss value
+		for (int recordNumber : trainingDataSubsetRecords) {
+			totalObjectiveValue += getLogLoss(labels[recordNumber] * featureMatrix.getDotProduct(recordNumber, this.weightVector));
+		}
+		
+		return totalObjectiveValue + getRegularizerValue();
+	}
+	
+	/**
+	 * Log loss log(1 + exp(-label * margin)) computed so that it neither overflows for large negative margins nor loses
+	 * precision for large positive ones
+	 * @param labelTimesMargin
+	 * @return log loss
+	 */
+	public static double getLogLoss(double labelTimesMargin) {
+		
+		if (labelTimesMargin > 0) {
+			return Math.log1p(Math.exp(-labelTimesMargin));
+		} else {
+			return Math.log1p(Math.exp(labelTimesMargin)) - labelTimesMargin;
+		}
+		
+	}
+	
+	/**
+	 * @return regularizer w.w / variance, whose gradient 2 * w / variance is the weight decay applied with each update
+	 */
+	protected double getRegularizerValue() {
+		return getDotProduct(this.weightVector, this.weightVector) / this.varianceValue;
+	}
+	
+	/**
+	 * @return the weight vector
+	 */
+	public double[] getWeightVector() {
+		return this.weightVector;
+	}
+	
+	/**
+	 * @return the learning rate at the start of the run
+	 */
+	public double getLearningRate() {
+		return this.learningRate;
+	}
+	
+	/**
+	 * @return the variance value
+	 */
+	public double getVarianceValue() {
+		return this.varianceValue;
+	}
+	
+	/**
+	 * @param stochasticGradientDescentCounter
+	 * @param originalLearningRate
+	 * @param varianceValue
+	 * @return next learning rate
+	 */
+	protected double getNextLearningRate(int stochasticGradientDescentCounter, double originalLearningRate, double varianceValue) {
+		return originalLearningRate / (1 + (originalLearningRate * stochasticGradientDescentCounter / varianceValue));
+	}
+	
+	/**
+	 * @param vector updated in place
+	 * @param multiplyWith
+	 */
+	protected void scaleVector(double[] vector, double multiplyWith) {
+		
+		if (multiplyWith != 1.0) {
+			for (int vectorIndex = 0; vectorIndex < vector.length; ++vectorIndex) {
+				vector[vectorIndex] *= multiplyWith;
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param vector1
+	 * @param vector2
+	 * @return the dot product of two vectors
+	 */
+	private double getDotProduct(double[] vector1, double[] vector2) {
+		
+		//Both vectors need to have the same dimensions
+		assert vector1.length == vector2.length;
+		
+		//Compute the dot product
+		double dotProduct = 0.0;
+		for (int vectorIndex = 0; vectorIndex < vector1.length; ++vectorIndex) {
+			dotProduct += vector1[vectorIndex] * vector2[vectorIndex];
+		}
+		return dotProduct;
+		
+	}
+	
+}
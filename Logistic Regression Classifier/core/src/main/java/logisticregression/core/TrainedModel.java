@@ -0,0 +1,159 @@
+package logisticregression.core;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Weights of a trained classifier together with the learning rate and variance value they were trained with, and any
+ * other facts about the training run as text metadata. The weights are copied when the model is created, unless it is
+ * created with fromOwnedWeightVector, and never change afterwards, so a model can be shared by any number of scoring
+ * threads while the classifier keeps training.
+ */
+public class TrainedModel {
+	
+	public static final String TRAINING_RECORDS_KEY = "trainingRecords", CREATED_AT_KEY = "createdAt";
+	
+	private final double[] weightVector;
+	private final double learningRate, varianceValue;
+	private final Map<String, String> trainingMetadata;
+	
+	/**
+	 * Constructor
+	 * @param weightVector weights with the bias weight in the first position. The array is copied.
+	 * @param learningRate
+	 * @param varianceValue
+	 * @throws IllegalArgumentException if there is no bias weight
+	 */
+	public TrainedModel(double[] weightVector, double learningRate, double varianceValue) {
+		this(weightVector, learningRate, varianceValue, Collections.<String, String>emptyMap());
+	}
+	
+	/**
+	 * Constructor
+	 * @param weightVector weights with the bias weight in the first position. The array is copied.
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param trainingMetadata facts about the training run such as the number of training records. The map is copied.
+	 * @throws IllegalArgumentException if there is no bias weight
+	 */
+	public TrainedModel(double[] weightVector, double learningRate, double varianceValue, Map<String, String> trainingMetadata) {
+		this(learningRate, varianceValue, trainingMetadata, weightVector.clone());
+	}
+	
+	/**
+	 * Constructor keeping the weight vector without copying it
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param trainingMetadata
+	 * @param weightVector
+	 * @throws IllegalArgumentException if there is no bias weight
+	 */
+	private TrainedModel(double learningRate, double varianceValue, Map<String, String> trainingMetadata, double[] weightVector) {
+		
+		if (weightVector.length < 1) {
+			throw new IllegalArgumentException("Weight vector must have at least 1 column but had " + weightVector.length);
+		}
+		
+		this.weightVector = weightVector;
+		this.learningRate = learningRate;
+		this.varianceValue = varianceValue;
+		this.trainingMetadata = Collections.unmodifiableMap(new LinkedHashMap<String, String>(trainingMetadata));
+		
+	}
+	
+	/**
+	 * Create a model that takes over a weight vector instead of copying it, for example one just read from a model file, so
+	 * that a wide model is not held twice while it is created
+	 * @param weightVector weights with the bias weight in the first position. The caller must not change the array afterwards.
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param trainingMetadata facts about the training run such as the number of training records. The map is copied.
+	 * @return the model
+	 * @throws IllegalArgumentException if there is no bias weight
+	 */
+	public static TrainedModel fromOwnedWeightVector(double[] weightVector, double learningRate, double varianceValue, Map<String, String> trainingMetadata) {
+		return new TrainedModel(learningRate, varianceValue, trainingMetadata, weightVector);
+	}
+	
+	/**
+	 * @param featureNumbers feature numbers starting from 1
+	 * @param featureValues
+	 * @param firstFeature position of the first feature of the vector in the arrays
+	 * @param lastFeature position after the last feature of the vector
+	 * @return margin of the feature vector. Features not seen during training do not contribute.
+	 */
+	public double getMargin(int[] featureNumbers, double[] featureValues, int firstFeature, int lastFeature) {
+		
+		double margin = this.weightVector[0];
+		for (int featureCounter = firstFeature; featureCounter < lastFeature; ++featureCounter) {
+			
+			int featureNumber = featureNumbers[featureCounter];
+			if (featureNumber > 0 && featureNumber < this.weightVector.length) {
+				margin += featureValues[featureCounter] * this.weightVector[featureNumber];
+			}
+		}
+		return margin;
+		
+	}
+	
+	/**
+	 * @param featureMatrix
+	 * @param rowNumber
+	 * @return margin of a row of the matrix
+	 */
+	public double getMargin(SparseFeatureMatrix featureMatrix, int rowNumber) {
+		return featureMatrix.getMargin(rowNumber, this.weightVector);
+	}
+	
+	/**
+	 * @return number of weights including the bias weight
+	 */
+	public int getNumberOfColumns() {
+		return this.weightVector.length;
+	}
+	
+	/**
+	 * @param columnNumber
+	 * @return weight of a column, with column 0 being the bias
+	 */
+	public double getWeight(int columnNumber) {
+		return this.weightVector[columnNumber];
+	}
+	
+	/**
+	 * @return copy of the weights with the bias weight in the first position
+	 */
+	public double[] getWeightVector() {
+		return this.weightVector.clone();
+	}
+	
+	/**
+	 * @return the weights themselves, which must not be changed
+	 */
+	double[] getSharedWeightVector() {
+		return this.weightVector;
+	}
+	
+	/**
+	 * @return learning rate the model was trained with
+	 */
+	public double getLearningRate() {
+		return this.learningRate;
+	}
+	
+	/**
+	 * @return variance value the model was trained with
+	 */
+	public double getVarianceValue() {
+		return this.varianceValue;
+	}
+	
+	/**
+	 * @return facts about the training run, in the order they were added
+	 */
+	public Map<String, String> getTrainingMetadata() {
+		return this.trainingMetadata;
+	}
+	
+}
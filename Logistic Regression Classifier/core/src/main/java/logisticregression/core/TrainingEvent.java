@@ -0,0 +1,279 @@
+package logisticregression.core;
+
+/**
+ * One event reported while training, with the fields that apply to its type. Fields that do not apply are NaN, -1 or null.
+ */
+public class TrainingEvent {
+	
+	public static final String CSV_HEADER = "event,learningRate,varianceValue,split,epoch,value,message";
+	
+	private final TrainingEventType type;
+	private final double learningRate, varianceValue;
+	private final int splitNumber, epoch;
+	private final double value;
+	private final String message;
+	
+	/**
+	 * Constructor
+	 * @param type
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param splitNumber
+	 * @param epoch
+	 * @param value
+	 * @param message
+	 */
+	public TrainingEvent(TrainingEventType type, double learningRate, double varianceValue, int splitNumber, int epoch, double value, String message) {
+		
+		this.type = type;
+		this.learningRate = learningRate;
+		this.varianceValue = varianceValue;
+		this.splitNumber = splitNumber;
+		this.epoch = epoch;
+		this.value = value;
+		this.message = message;
+		
+	}
+	
+	/**
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param splitNumber
+	 * @param epoch
+	 * @param objectiveValue
+	 * @return objective value of a cross validation run after an epoch
+	 */
+	public static TrainingEvent objectiveValue(double learningRate, double varianceValue, int splitNumber, int epoch, double objectiveValue) {
+		return new TrainingEvent(TrainingEventType.OBJECTIVE_VALUE, learningRate, varianceValue, splitNumber, epoch, objectiveValue, null);
+	}
+	
+	/**
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param averageAccuracy
+	 * @return average accuracy of a learning rate and variance value
+	 */
+	public static TrainingEvent averageAccuracy(double learningRate, double varianceValue, double averageAccuracy) {
+		return new TrainingEvent(TrainingEventType.AVERAGE_ACCURACY, learningRate, varianceValue, -1, -1, averageAccuracy, null);
+	}
+	
+	/**
+	 * @param learningRate
+	 * @param varianceValue
+	 * @param numberOfEpochs number of epochs trained before the configuration was dropped
+	 * @param averageAccuracy
+	 * @return learning rate and variance value dropped by successive halving
+	 */
+	public static TrainingEvent pruned(double learningRate, double varianceValue, int numberOfEpochs, double averageAccuracy) {
+		return new TrainingEvent(TrainingEventType.PRUNED, learningRate, varianceValue, -1, numberOfEpochs, averageAccuracy, null);
+	}
+	
+	/**
+	 * @param numberOfEpochsRun
+	 * @param numberOfEpochsInGrid
+	 * @return number of epochs trained out of the number without early stopping or pruning
+	 */
+	public static TrainingEvent epochsTrained(int numberOfEpochsRun, int numberOfEpochsInGrid) {
+		return new TrainingEvent(TrainingEventType.EPOCHS_TRAINED, Double.NaN, Double.NaN, -1, numberOfEpochsRun, numberOfEpochsInGrid, null);
+	}
+	
+	/**
+	 * @param message
+	 * @return free text event
+	 */
+	public static TrainingEvent message(String message) {
+		return new TrainingEvent(TrainingEventType.MESSAGE, Double.NaN, Double.NaN, -1, -1, Double.NaN, message);
+	}
+	
+	/**
+	 * @return the event as a sentence, worded as in the original log files
+	 */
+	public String toText() {
+		
+		switch (this.type) {
+		case OBJECTIVE_VALUE:
+			return "Objective value for learning rate: " + this.learningRate + ", variance value: " + this.varianceValue + ", epoch: " + this.epoch + " is " + this.value;
+		case AVERAGE_ACCURACY:
+			return "Learning rate: " + this.learningRate + ", variance value: " + this.varianceValue + ", average accuracy: " + this.value;
+		case PRUNED:
+			return "Pruned learning rate: " + this.learningRate + ", variance value: " + this.varianceValue + " after " + this.epoch + " epochs with average accuracy: " + this.value;
+		case EPOCHS_TRAINED:
+			return "Trained " + this.epoch + " of " + (long) this.value + " epochs";
+		default:
+			return this.message;
+		}
+		
+	}
+	
+	/**
+	 * @return the event as a line of comma separated values in the order of CSV_HEADER
+	 */
+	public String toCsv() {
+		
+		StringBuilder csvLine = new StringBuilder(64);
+		csvLine.append(this.type.name()).append(',');
+		appendNumber(csvLine, this.learningRate).append(',');
+		appendNumber(csvLine, this.varianceValue).append(',');
+		appendNumber(csvLine, this.splitNumber).append(',');
+		appendNumber(csvLine, this.epoch).append(',');
+		appendNumber(csvLine, this.value).append(',');
+		
+		if (this.message != null) {
+			csvLine.append('"').append(this.message.replace("\"", "\"\"")).append('"');
+		}
+		
+		return csvLine.toString();
+		
+	}
+	
+	/**
+	 * @return the event as a JSON object with only the fields that apply
+	 */
+	public String toJson() {
+		
+		StringBuilder jsonObject = new StringBuilder(96);
+		jsonObject.append("{\"event\":\"").append(this.type.name()).append('"');
+		
+		if (!Double.isNaN(this.learningRate)) {
+			jsonObject.append(",\"learningRate\":");
+			appendJsonNumber(jsonObject, this.learningRate);
+		}
+		if (!Double.isNaN(this.varianceValue)) {
+			jsonObject.append(",\"varianceValue\":");
+			appendJsonNumber(jsonObject, this.varianceValue);
+		}
+		if (this.splitNumber >= 0) {
+			jsonObject.append(",\"split\":").append(this.splitNumber);
+		}
+		if (this.epoch >= 0) {
+			jsonObject.append(",\"epoch\":").append(this.epoch);
+		}
+		if (!Double.isNaN(this.value)) {
+			jsonObject.append(",\"value\":");
+			appendJsonNumber(jsonObject, this.value);
+		}
+		if (this.message != null) {
+			jsonObject.append(",\"message\":\"");
+			appendJsonString(jsonObject, this.message);
+			jsonObject.append('"');
+		}
+		
+		return jsonObject.append('}').toString();
+		
+	}
+	
+	/**
+	 * @param format
+	 * @return the event written in a format
+	 */
+	public String format(TrainingEventFormat format) {
+		
+		switch (format) {
+		case CSV:
+			return toCsv();
+		case JSONL:
+			return toJson();
+		default:
+			return toText();
+		}
+		
+	}
+	
+	/**
+	 * Append a number, leaving it out if it is NaN, which marks a field that does not apply
+	 * @param stringBuilder
+	 * @param number
+	 * @return the string builder
+	 */
+	private static StringBuilder appendNumber(StringBuilder stringBuilder, double number) {
+		
+		if (!Double.isNaN(number)) {
+			stringBuilder.append(number);
+		}
+		
+		return stringBuilder;
+		
+	}
+	
+	/**
+	 * Append a number to a JSON object. JSON has no infinite numbers, so they are written as null.
+	 * @param stringBuilder
+	 * @param number
+	 */
+	private static void appendJsonNumber(StringBuilder stringBuilder, double number) {
+		
+		if (Double.isInfinite(number)) {
+			stringBuilder.append("null");
+		} else {
+			stringBuilder.append(number);
+		}
+		
+	}
+	
+	/**
+	 * Append a number, leaving it out if it is -1, which marks a field that does not apply
+	 * @param stringBuilder
+	 * @param number
+	 * @return the string builder
+	 */
+	private static StringBuilder appendNumber(StringBuilder stringBuilder, int number) {
+		
+		if (number >= 0) {
+			stringBuilder.append(number);
+		}
+		
+		return stringBuilder;
+		
+	}
+	
+	/**
+	 * Append text with the characters that JSON strings cannot hold escaped
+	 * @param stringBuilder
+	 * @param text
+	 */
+	private static void appendJsonString(StringBuilder stringBuilder, String text) {
+		
+		for (int characterIndex = 0; characterIndex < text.length(); ++characterIndex) {
+			
+			char character = text.charAt(characterIndex);
+			if (character == '"' || character == '\\') {
+				stringBuilder.append('\\').append(character);
+			} else if (character < ' ') {
+				stringBuilder.append(String.format("\\u%04x", (int) character));
+			} else {
+				stringBuilder.append(character);
+			}
+		}
+		
+	}
+	
+	//Getters
+	public TrainingEventType getType() {
+		return type;
+	}
+	
+	public double getLearningRate() {
+		return learningRate;
+	}
+	
+	public double getVarianceValue() {
+		return varianceValue;
+	}
+	
+	public int getSplitNumber() {
+		return splitNumber;
+	}
+	
+	public int getEpoch() {
+		return epoch;
+	}
+	
+	public double getValue() {
+		return value;
+	}
+	
+	public String getMessage() {
+		return message;
+	}
+	
+}
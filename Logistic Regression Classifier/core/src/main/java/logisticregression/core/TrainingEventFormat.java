@@ -0,0 +1,23 @@
+package logisticregression.core;
+
+/**
+ * Enum to hold the ways in which training events can be written
+ */
+public enum TrainingEventFormat {
+	
+	/**
+	 * Sentences as in the original log files
+	 */
+	TEXT,
+	
+	/**
+	 * Comma separated values with a header line
+	 */
+	CSV,
+	
+	/**
+	 * One JSON object on each line
+	 */
+	JSONL;
+	
+}
@@ -0,0 +1,19 @@
+package logisticregression.core;
+
+/**
+ * Destination for the events reported while training
+ */
+public interface TrainingEventSink {
+	
+	/**
+	 * Report an event. This is called from the training threads and should return quickly.
+	 * @param trainingEvent
+	 */
+	void accept(TrainingEvent trainingEvent);
+	
+	/**
+	 * Write any events not yet written and release the files
+	 */
+	void close();
+	
+}
@@ -0,0 +1,33 @@
+package logisticregression.core;
+
+/**
+ * Enum to hold the kinds of events reported while training
+ */
+public enum TrainingEventType {
+	
+	/**
+	 * Objective value of one cross validation run after an epoch
+	 */
+	OBJECTIVE_VALUE,
+	
+	/**
+	 * Average accuracy over the cross validation splits of a learning rate and variance value
+	 */
+	AVERAGE_ACCURACY,
+	
+	/**
+	 * A learning rate and variance value dropped by successive halving, with its average accuracy when it was dropped
+	 */
+	PRUNED,
+	
+	/**
+	 * Number of epochs trained by all the cross validation runs, out of the number without early stopping or pruning
+	 */
+	EPOCHS_TRAINED,
+	
+	/**
+	 * Free text
+	 */
+	MESSAGE;
+	
+}
@@ -0,0 +1,241 @@
+package logisticregression.core;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timers and counters for reading data, building the cross validation folds, training epochs, evaluating the objective
+ * and scoring. Each phase is timed as a whole, never per record, so the cost is a few clock reads per epoch or batch.
+ * The statistics can be watched through JMX after registerMBeans is called, or printed periodically with
+ * startPeriodicSummary. Allocation is measured on the thread that starts and stops a phase, so work the phase hands to
+ * other threads is not counted.
+ */
+public class TrainingInstrumentation implements TrainingInstrumentationMXBean {
+	
+	public static final String MBEAN_DOMAIN = "logisticregression";
+	
+	private static final TrainingInstrumentation SHARED_INSTANCE = new TrainingInstrumentation();
+	private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN = getAllocationMXBean();
+	
+	private final Map<TrainingPhase, PhaseStatistics> phaseStatistics;
+	private final LongAdder epochsCompleted;
+	private final AtomicLong epochsPlanned;
+	private ScheduledExecutorService summaryExecutor;
+	
+	/**
+	 * Constructor
+	 */
+	public TrainingInstrumentation() {
+		
+		this.phaseStatistics = new EnumMap<TrainingPhase, PhaseStatistics>(TrainingPhase.class);
+		for (TrainingPhase trainingPhase : TrainingPhase.values()) {
+			this.phaseStatistics.put(trainingPhase, new PhaseStatistics(trainingPhase));
+		}
+		this.epochsCompleted = new LongAdder();
+		this.epochsPlanned = new AtomicLong();
+		this.summaryExecutor = null;
+		
+	}
+	
+	/**
+	 * @return instrumentation used by the classifier and the data file readers unless they are given another one
+	 */
+	public static TrainingInstrumentation getSharedInstance() {
+		return SHARED_INSTANCE;
+	}
+	
+	/**
+	 * @param trainingPhase
+	 * @return timer to stop on the same thread when the phase ends
+	 */
+	public PhaseTimer startPhase(TrainingPhase trainingPhase) {
+		return new PhaseTimer(this.phaseStatistics.get(trainingPhase));
+	}
+	
+	/**
+	 * @param trainingPhase
+	 * @return statistics of the phase
+	 */
+	public PhaseStatistics getPhaseStatistics(TrainingPhase trainingPhase) {
+		return this.phaseStatistics.get(trainingPhase);
+	}
+	
+	/**
+	 * @param numberOfEpochs epochs a fit is about to train without early stopping or pruning
+	 */
+	public void addPlannedEpochs(long numberOfEpochs) {
+		this.epochsPlanned.addAndGet(numberOfEpochs);
+	}
+	
+	/**
+	 * Count one trained epoch
+	 */
+	public void epochCompleted() {
+		this.epochsCompleted.increment();
+	}
+	
+	@Override
+	public long getEpochsCompleted() {
+		return this.epochsCompleted.sum();
+	}
+	
+	@Override
+	public long getEpochsPlanned() {
+		return this.epochsPlanned.get();
+	}
+	
+	@Override
+	public double getEpochProgress() {
+		
+		long epochsPlanned = getEpochsPlanned();
+		return epochsPlanned > 0 ? (double) getEpochsCompleted() / epochsPlanned : 0.0;
+		
+	}
+	
+	@Override
+	public String getSummary() {
+		
+		StringBuilder summary = new StringBuilder(512);
+		summary.append("Epochs ").append(getEpochsCompleted()).append(" of ").append(getEpochsPlanned());
+		for (PhaseStatistics statistics : this.phaseStatistics.values()) {
+			
+			if (statistics.getCount() > 0) {
+				summary.append(System.lineSeparator()).append(statistics.getSummary());
+			}
+		}
+		
+		return summary.toString();
+		
+	}
+	
+	@Override
+	public void reset() {
+		
+		for (PhaseStatistics statistics : this.phaseStatistics.values()) {
+			statistics.reset();
+		}
+		this.epochsCompleted.reset();
+		this.epochsPlanned.set(0);
+		
+	}
+	
+	/**
+	 * Register this instrumentation and the statistics of each phase with the platform MBean server, under the
+	 * logisticregression domain. Registering again replaces the earlier beans.
+	 * @param name name that tells apart instrumentations registered in the same JVM, for example shared
+	 */
+	public void registerMBeans(String name) {
+		
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		try {
+			
+			registerMBean(mBeanServer, this, new ObjectName(MBEAN_DOMAIN + ":type=TrainingInstrumentation,name=" + ObjectName.quote(name)));
+			for (PhaseStatistics statistics : this.phaseStatistics.values()) {
+				registerMBean(mBeanServer, statistics, new ObjectName(MBEAN_DOMAIN + ":type=TrainingPhase,instrumentation=" + ObjectName.quote(name) + ",name=" + statistics.getPhase()));
+			}
+			
+		} catch (JMException e) {
+			throw new IllegalStateException("Could not register the training instrumentation MBeans", e);
+		}
+		
+	}
+	
+	/**
+	 * Print the summary at a fixed rate on a background thread until stopPeriodicSummary is called
+	 * @param printStream
+	 * @param period
+	 * @param timeUnit
+	 */
+	public synchronized void startPeriodicSummary(final PrintStream printStream, long period, TimeUnit timeUnit) {
+		
+		stopPeriodicSummary();
+		
+		this.summaryExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			
+			@Override
+			public Thread newThread(Runnable runnable) {
+				
+				Thread summaryThread = new Thread(runnable, "training-instrumentation-summary");
+				summaryThread.setDaemon(true);
+				return summaryThread;
+				
+			}
+			
+		});
+		this.summaryExecutor.scheduleAtFixedRate(new Runnable() {
+			
+			@Override
+			public void run() {
+				printStream.println(getSummary());
+			}
+			
+		}, period, period, timeUnit);
+		
+	}
+	
+	/**
+	 * Stop printing the summary
+	 */
+	public synchronized void stopPeriodicSummary() {
+		
+		if (this.summaryExecutor != null) {
+			this.summaryExecutor.shutdownNow();
+			this.summaryExecutor = null;
+		}
+		
+	}
+	
+	/**
+	 * @return bytes allocated so far by the current thread, or -1 if the JVM cannot measure it
+	 */
+	static long getCurrentThreadAllocatedBytes() {
+		return ALLOCATION_MX_BEAN != null ? ALLOCATION_MX_BEAN.getCurrentThreadAllocatedBytes() : -1;
+	}
+	
+	/**
+	 * @param mBeanServer
+	 * @param mBean
+	 * @param objectName
+	 * @throws JMException
+	 */
+	private static void registerMBean(MBeanServer mBeanServer, Object mBean, ObjectName objectName) throws JMException {
+		
+		if (mBeanServer.isRegistered(objectName)) {
+			mBeanServer.unregisterMBean(objectName);
+		}
+		mBeanServer.registerMBean(mBean, objectName);
+		
+	}
+	
+	/**
+	 * @return the thread bean of the JVM if it can measure the bytes allocated by a thread, otherwise null
+	 */
+	private static com.sun.management.ThreadMXBean getAllocationMXBean() {
+		
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			
+			com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+			if (allocationMXBean.isThreadAllocatedMemorySupported() && allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+				return allocationMXBean;
+			}
+		}
+		
+		return null;
+		
+	}
+	
+}
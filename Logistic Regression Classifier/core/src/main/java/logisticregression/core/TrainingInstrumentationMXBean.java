@@ -0,0 +1,33 @@
+package logisticregression.core;
+
+/**
+ * Management interface of the training progress and the summary of all the training phases
+ */
+public interface TrainingInstrumentationMXBean {
+	
+	/**
+	 * @return number of cross validation epochs trained so far
+	 */
+	long getEpochsCompleted();
+	
+	/**
+	 * @return number of cross validation epochs the fits started so far would train without early stopping or pruning
+	 */
+	long getEpochsPlanned();
+	
+	/**
+	 * @return fraction of the planned epochs that have been trained
+	 */
+	double getEpochProgress();
+	
+	/**
+	 * @return the statistics of every phase, one line each
+	 */
+	String getSummary();
+	
+	/**
+	 * Set the statistics and epoch counts back to zero
+	 */
+	void reset();
+	
+}
@@ -0,0 +1,38 @@
+package logisticregression.core;
+
+/**
+ * Enum to hold the phases of reading data, training and scoring that are timed by TrainingInstrumentation
+ */
+public enum TrainingPhase {
+	
+	/**
+	 * Reading a data file or its binary cache, with the records read as rows
+	 */
+	DATA_PARSING,
+	
+	/**
+	 * Splitting the records into cross validation folds
+	 */
+	FOLD_CONSTRUCTION,
+	
+	/**
+	 * One epoch of one cross validation run, with the training records as rows
+	 */
+	EPOCH,
+	
+	/**
+	 * Computing the objective value at the end of an epoch from the loss accumulated during the epoch
+	 */
+	OBJECTIVE_EVALUATION,
+	
+	/**
+	 * One pass of the batch solver over the training records for the objective value and its gradient
+	 */
+	GRADIENT_EVALUATION,
+	
+	/**
+	 * Scoring a batch of records
+	 */
+	PREDICTION;
+	
+}
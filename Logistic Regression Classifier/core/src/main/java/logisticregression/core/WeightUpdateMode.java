@@ -0,0 +1,20 @@
+package logisticregression.core;
+
+/**
+ * Enum to hold the ways in which several threads can update a shared weight vector
+ */
+public enum WeightUpdateMode {
+	
+	/**
+	 * Plain reads and writes without any locking (Hogwild). Updates that collide can be lost, which rarely happens when the
+	 * data is sparse.
+	 */
+	LOCK_FREE,
+	
+	/**
+	 * Each weight is updated with an atomic compare and set so that no update is lost. This suits denser data where
+	 * threads often update the same weights.
+	 */
+	ATOMIC;
+	
+}
\ No newline at end of file
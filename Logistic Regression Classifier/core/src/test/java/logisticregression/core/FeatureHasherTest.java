@@ -0,0 +1,48 @@
+package logisticregression.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check the hash against published MurmurHash3 x86 32 bit test vectors with seed 0
+ */
+public class FeatureHasherTest {
+	
+	@Test
+	public void featureNumberHashesAsFourLittleEndianBytes() {
+		
+		//Four zero bytes
+		assertEquals(0x2362F9DE, FeatureHasher.hash(0));
+		
+		//The bytes of "test"
+		assertEquals(0xBA6BD213, FeatureHasher.hash(0x74736574));
+		
+	}
+	
+	@Test
+	public void featureNameHashesAsUtf16LittleEndianBytes() {
+		
+		assertEquals(0, FeatureHasher.hash(""));
+		
+		//Two characters whose UTF-16 little endian bytes are the bytes of "test"
+		assertEquals(0xBA6BD213, FeatureHasher.hash(new String(new char[] {(char) ('t' | 'e' << 8), (char) ('s' | 't' << 8)})));
+		
+	}
+	
+	@Test
+	public void columnsStayClearOfTheBiasColumn() {
+		
+		FeatureHasher featureHasher = new FeatureHasher(4);
+		assertEquals(17, featureHasher.getNumberOfColumns());
+		
+		for (int featureNumber = 0; featureNumber < 1000; ++featureNumber) {
+			
+			int column = featureHasher.getColumn(featureNumber);
+			assertEquals(true, column >= 1 && column < featureHasher.getNumberOfColumns());
+			assertEquals(FeatureHasher.hash(featureNumber) < 0 ? -1.0 : 1.0, featureHasher.getSign(featureNumber));
+		}
+		
+	}
+	
+}
@@ -0,0 +1,144 @@
+package logisticregression.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check the gradient of the objective against finite differences, and that minimizing brings it close to zero
+ */
+public class LimitedMemoryBfgsSolverTest {
+	
+	private static final int NUMBER_OF_RECORDS = 200, NUMBER_OF_COLUMNS = 8;
+	private static final double VARIANCE_VALUE = 10.0, DIFFERENCE_STEP = 1e-6;
+	
+	@Test
+	public void gradientMatchesFiniteDifferences() {
+		checkGradient(new LimitedMemoryBfgsSolver(NUMBER_OF_COLUMNS, VARIANCE_VALUE, null, 1));
+	}
+	
+	@Test
+	public void gradientOfChunkedPassesMatchesFiniteDifferences() {
+		
+		ExecutorService chunkExecutor = Executors.newFixedThreadPool(2);
+		try {
+			checkGradient(new LimitedMemoryBfgsSolver(NUMBER_OF_COLUMNS, VARIANCE_VALUE, chunkExecutor, 3));
+		} finally {
+			chunkExecutor.shutdown();
+		}
+		
+	}
+	
+	@Test
+	public void minimizeFindsAStationaryPoint() {
+		
+		Random randomNumberGenerator = new Random(2);
+		SparseFeatureMatrix featureMatrix = createFeatureMatrix(randomNumberGenerator);
+		byte[] labels = createLabels(randomNumberGenerator);
+		int[] recordNumbers = getAllRecords();
+		
+		LimitedMemoryBfgsSolver limitedMemoryBfgsSolver = new LimitedMemoryBfgsSolver(NUMBER_OF_COLUMNS, VARIANCE_VALUE, null, 1);
+		limitedMemoryBfgsSolver.setTrainingInstrumentation(new TrainingInstrumentation());
+		limitedMemoryBfgsSolver.setGradientTolerance(1e-8);
+		double[] weightVector = limitedMemoryBfgsSolver.minimize(featureMatrix, labels, recordNumbers);
+		
+		double[] gradient = new double[NUMBER_OF_COLUMNS];
+		double objectiveValue = limitedMemoryBfgsSolver.evaluate(featureMatrix, labels, recordNumbers, weightVector, gradient);
+		assertEquals(limitedMemoryBfgsSolver.getObjectiveValue(), objectiveValue, 1e-9 * objectiveValue);
+		
+		double gradientNorm = 0.0;
+		for (double gradientValue : gradient) {
+			gradientNorm += gradientValue * gradientValue;
+		}
+		assertTrue(Math.sqrt(gradientNorm) < 1e-4, "Gradient norm " + Math.sqrt(gradientNorm));
+		
+	}
+	
+	/**
+	 * Compare each component of the gradient with the central difference of the objective
+	 * @param limitedMemoryBfgsSolver
+	 */
+	private static void checkGradient(LimitedMemoryBfgsSolver limitedMemoryBfgsSolver) {
+		
+		Random randomNumberGenerator = new Random(1);
+		SparseFeatureMatrix featureMatrix = createFeatureMatrix(randomNumberGenerator);
+		byte[] labels = createLabels(randomNumberGenerator);
+		int[] recordNumbers = getAllRecords();
+		limitedMemoryBfgsSolver.setTrainingInstrumentation(new TrainingInstrumentation());
+		
+		double[] weightVector = new double[NUMBER_OF_COLUMNS];
+		for (int columnNumber = 0; columnNumber < NUMBER_OF_COLUMNS; ++columnNumber) {
+			weightVector[columnNumber] = randomNumberGenerator.nextGaussian();
+		}
+		
+		double[] gradient = new double[NUMBER_OF_COLUMNS], unusedGradient = new double[NUMBER_OF_COLUMNS];
+		limitedMemoryBfgsSolver.evaluate(featureMatrix, labels, recordNumbers, weightVector, gradient);
+		
+		for (int columnNumber = 0; columnNumber < NUMBER_OF_COLUMNS; ++columnNumber) {
+			
+			double[] shiftedWeightVector = weightVector.clone();
+			shiftedWeightVector[columnNumber] = weightVector[columnNumber] + DIFFERENCE_STEP;
+			double objectiveValueAbove = limitedMemoryBfgsSolver.evaluate(featureMatrix, labels, recordNumbers, shiftedWeightVector, unusedGradient);
+			shiftedWeightVector[columnNumber] = weightVector[columnNumber] - DIFFERENCE_STEP;
+			double objectiveValueBelow = limitedMemoryBfgsSolver.evaluate(featureMatrix, labels, recordNumbers, shiftedWeightVector, unusedGradient);
+			
+			double finiteDifference = (objectiveValueAbove - objectiveValueBelow) / (2 * DIFFERENCE_STEP);
+			assertEquals(finiteDifference, gradient[columnNumber], 1e-5 * Math.max(1.0, Math.abs(finiteDifference)), "Column " + columnNumber);
+		}
+		
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * @return records with the bias column and some features left out of each row
+	 */
+	private static SparseFeatureMatrix createFeatureMatrix(Random randomNumberGenerator) {
+		
+		double[][] featureVectors = new double[NUMBER_OF_RECORDS][NUMBER_OF_COLUMNS];
+		for (int recordNumber = 0; recordNumber < NUMBER_OF_RECORDS; ++recordNumber) {
+			
+			featureVectors[recordNumber][0] = 1.0;
+			for (int columnNumber = 1; columnNumber < NUMBER_OF_COLUMNS; ++columnNumber) {
+				featureVectors[recordNumber][columnNumber] = randomNumberGenerator.nextBoolean() ? randomNumberGenerator.nextGaussian() : 0.0;
+			}
+		}
+		
+		return SparseFeatureMatrix.fromDenseRows(featureVectors);
+		
+	}
+	
+	/**
+	 * @param randomNumberGenerator
+	 * @return random labels of +1 or -1
+	 */
+	private static byte[] createLabels(Random randomNumberGenerator) {
+		
+		byte[] labels = new byte[NUMBER_OF_RECORDS];
+		for (int recordNumber = 0; recordNumber < NUMBER_OF_RECORDS; ++recordNumber) {
+			labels[recordNumber] = (byte) (randomNumberGenerator.nextBoolean() ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue());
+		}
+		
+		return labels;
+		
+	}
+	
+	/**
+	 * @return every record number in order
+	 */
+	private static int[] getAllRecords() {
+		
+		int[] recordNumbers = new int[NUMBER_OF_RECORDS];
+		for (int recordNumber = 0; recordNumber < NUMBER_OF_RECORDS; ++recordNumber) {
+			recordNumbers[recordNumber] = recordNumber;
+		}
+		
+		return recordNumbers;
+		
+	}
+	
+}
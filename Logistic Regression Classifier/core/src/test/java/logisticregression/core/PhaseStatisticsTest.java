@@ -0,0 +1,27 @@
+package logisticregression.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Check that resetting the statistics also forgets runs whose allocation was not measured
+ */
+public class PhaseStatisticsTest {
+	
+	@Test
+	public void resetMeasuresAllocationAgain() {
+		
+		PhaseStatistics phaseStatistics = new PhaseStatistics(TrainingPhase.GRADIENT_EVALUATION);
+		phaseStatistics.record(100, 10, -1);
+		assertEquals(-1, phaseStatistics.getAllocatedBytes());
+		
+		phaseStatistics.reset();
+		phaseStatistics.record(200, 20, 64);
+		assertEquals(64, phaseStatistics.getAllocatedBytes());
+		assertEquals(1, phaseStatistics.getCount());
+		assertEquals(200, phaseStatistics.getMaximumNanoseconds());
+		
+	}
+	
+}
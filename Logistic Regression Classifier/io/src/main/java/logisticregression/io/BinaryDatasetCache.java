@@ -0,0 +1,290 @@
+package logisticregression.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import logisticregression.core.DirectSparseFeatureMatrix;
+import logisticregression.core.FeatureStorage;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.HeapSparseFeatureMatrix;
+import logisticregression.core.SparseFeatureMatrix;
+
+/**
+ * Compact binary copy of a parsed data file so that later runs do not have to parse the text again. The file has a header
+ * followed by the labels, row offsets, column indices and values of the sparse feature matrix, all in little endian order:
+ *
+ * <pre>
+ * int    magic number
+ * int    format version
+ * int    number of records
+ * int    number of columns including the bias column
+ * long   number of stored values
+ * byte   label of each record
+ * int    row offset of each record followed by the number of stored values
+ * int    column index of each stored value
+ * double each stored value, starting at a multiple of 8 bytes
+ * </pre>
+ *
+ * The cache is read back through memory mapped regions of the file, which are copied into the arrays in bulk. For
+ * off-heap storage the mapped regions are handed to a DirectSparseFeatureMatrix as they are, so the features are paged in
+ * from the file as training reads them and never take room on the heap.
+ */
+public class BinaryDatasetCache {
+	
+	public static final String CACHE_FILE_EXTENSION = ".cache";
+	public static final int MAGIC_NUMBER = 0x4C524443, FORMAT_VERSION = 1;
+	
+	private static final int HEADER_SIZE = 24;
+	
+	/**
+	 * @param dataFilePath
+	 * @return path of the cache for a data file
+	 */
+	public static String getCacheFilePath(String dataFilePath) {
+		return dataFilePath + CACHE_FILE_EXTENSION;
+	}
+	
+	/**
+	 * @param dataFilePath
+	 * @return true if the cache for the data file exists and was written after the data file was last changed
+	 */
+	public static boolean isCacheCurrent(String dataFilePath) {
+		
+		File dataFile = new File(dataFilePath), cacheFile = new File(getCacheFilePath(dataFilePath));
+		return cacheFile.isFile() && cacheFile.lastModified() > dataFile.lastModified();
+		
+	}
+	
+	/**
+	 * Write the parsed data to a cache file
+	 * @param cacheFilePath
+	 * @param featuresAndLabels
+	 * @throws IOException
+	 */
+	public static void write(String cacheFilePath, FeaturesAndLabels featuresAndLabels) throws IOException {
+		
+		SparseFeatureMatrix featureMatrix = featuresAndLabels.getFeatureMatrix();
+		byte[] labels = featuresAndLabels.getLabels();
+		int numberOfRecords = featureMatrix.getNumberOfRows(), numberOfValues = featureMatrix.getNumberOfNonZeros();
+		
+		RandomAccessFile cacheFile = new RandomAccessFile(cacheFilePath, "rw");
+		try {
+			
+			cacheFile.setLength(0);
+			FileChannel fileChannel = cacheFile.getChannel();
+			ByteBuffer writeBuffer = LittleEndianChannelIo.allocateWriteBuffer();
+			
+			writeBuffer.putInt(MAGIC_NUMBER).putInt(FORMAT_VERSION).putInt(numberOfRecords).putInt(featureMatrix.getNumberOfColumns()).putLong(numberOfValues);
+			
+			for (int recordCounter = 0; recordCounter < numberOfRecords; ++recordCounter) {
+				writeBuffer = LittleEndianChannelIo.getWriteBuffer(fileChannel, writeBuffer, 1);
+				writeBuffer.put(labels[recordCounter]);
+			}
+			
+			for (int recordCounter = 0; recordCounter <= numberOfRecords; ++recordCounter) {
+				writeBuffer = LittleEndianChannelIo.getWriteBuffer(fileChannel, writeBuffer, 4);
+				writeBuffer.putInt(featureMatrix.getRowStart(recordCounter));
+			}
+			
+			for (int valueCounter = 0; valueCounter < numberOfValues; ++valueCounter) {
+				writeBuffer = LittleEndianChannelIo.getWriteBuffer(fileChannel, writeBuffer, 4);
+				writeBuffer.putInt(featureMatrix.getColumnIndex(valueCounter));
+			}
+			
+			//Align the values so that they can be read as doubles
+			long position = getValuesPosition(numberOfRecords, numberOfValues);
+			LittleEndianChannelIo.padTo(fileChannel, writeBuffer, position);
+			
+			for (int valueCounter = 0; valueCounter < numberOfValues; ++valueCounter) {
+				writeBuffer = LittleEndianChannelIo.getWriteBuffer(fileChannel, writeBuffer, 8);
+				writeBuffer.putDouble(featureMatrix.getValue(valueCounter));
+			}
+			
+			LittleEndianChannelIo.flushWriteBuffer(fileChannel, writeBuffer);
+			
+		} finally {
+			cacheFile.close();
+		}
+		
+	}
+	
+	/**
+	 * Read the parsed data from a cache file into arrays on the heap
+	 * @param cacheFilePath
+	 * @return features and labels
+	 * @throws IOException if the file cannot be read or is not a cache file of this version
+	 */
+	public static FeaturesAndLabels read(String cacheFilePath) throws IOException {
+		return read(cacheFilePath, FeatureStorage.HEAP);
+	}
+	
+	/**
+	 * Read the parsed data from a cache file
+	 * @param cacheFilePath
+	 * @param featureStorage HEAP to copy the features into arrays, or OFF_HEAP to use the mapped regions of the file
+	 * @return features and labels
+	 * @throws IOException if the file cannot be read, is not a cache file of this version or has row offsets or column
+	 * indices that do not fit the header
+	 */
+	public static FeaturesAndLabels read(String cacheFilePath, FeatureStorage featureStorage) throws IOException {
+		
+		RandomAccessFile cacheFile = new RandomAccessFile(cacheFilePath, "r");
+		try {
+			
+			FileChannel fileChannel = cacheFile.getChannel();
+			if (fileChannel.size() < HEADER_SIZE) {
+				throw new IOException("Cache file " + cacheFilePath + " is too short");
+			}
+			
+			MappedByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			
+			if (header.getInt() != MAGIC_NUMBER || header.getInt() != FORMAT_VERSION) {
+				throw new IOException("File " + cacheFilePath + " is not a data cache of version " + FORMAT_VERSION);
+			}
+			
+			int numberOfRecords = header.getInt(), numberOfColumns = header.getInt();
+			long numberOfValues = header.getLong();
+			if (numberOfRecords < 0 || numberOfColumns < 1 || numberOfValues < 0 || numberOfValues > Integer.MAX_VALUE || fileChannel.size() != getValuesPosition(numberOfRecords, (int) numberOfValues) + 8 * numberOfValues) {
+				throw new IOException("Cache file " + cacheFilePath + " has an invalid size");
+			}
+			
+			//Labels are stored as bytes, as they are in memory
+			byte[] labels = new byte[numberOfRecords];
+			LittleEndianChannelIo.readBytes(fileChannel, HEADER_SIZE, labels);
+			
+			if (featureStorage == FeatureStorage.OFF_HEAP) {
+				
+				//The mappings stay valid after the file is closed
+				long rowOffsetsPosition = HEADER_SIZE + numberOfRecords, columnIndicesPosition = rowOffsetsPosition + 4L * (numberOfRecords + 1);
+				IntBuffer[] rowOffsetBlocks = mapIntBlocks(fileChannel, rowOffsetsPosition, numberOfRecords + 1L);
+				IntBuffer[] columnIndexBlocks = mapIntBlocks(fileChannel, columnIndicesPosition, numberOfValues);
+				DoubleBuffer[] valueBlocks = mapDoubleBlocks(fileChannel, getValuesPosition(numberOfRecords, (int) numberOfValues), numberOfValues);
+				checkStructure(cacheFilePath, numberOfColumns, numberOfValues, rowOffsetBlocks, columnIndexBlocks);
+				
+				return new FeaturesAndLabels(new DirectSparseFeatureMatrix(numberOfColumns, numberOfRecords, rowOffsetBlocks, columnIndexBlocks, valueBlocks), labels);
+			}
+			
+			int[] rowOffsets = new int[numberOfRecords + 1], columnIndices = new int[(int) numberOfValues];
+			double[] values = new double[(int) numberOfValues];
+			
+			long position = HEADER_SIZE + numberOfRecords;
+			LittleEndianChannelIo.readInts(fileChannel, position, rowOffsets);
+			position += 4L * rowOffsets.length;
+			LittleEndianChannelIo.readInts(fileChannel, position, columnIndices);
+			LittleEndianChannelIo.readDoubles(fileChannel, getValuesPosition(numberOfRecords, (int) numberOfValues), values, 0);
+			checkStructure(cacheFilePath, numberOfColumns, numberOfValues, new IntBuffer[] {IntBuffer.wrap(rowOffsets)}, new IntBuffer[] {IntBuffer.wrap(columnIndices)});
+			
+			return new FeaturesAndLabels(new HeapSparseFeatureMatrix(numberOfColumns, rowOffsets, columnIndices, values), labels);
+			
+		} finally {
+			cacheFile.close();
+		}
+		
+	}
+	
+	/**
+	 * Make sure the rows and columns of a cache file of the right size can be used, since a stale or foreign file, or one
+	 * that was only partly written, can have the right size but not the right contents
+	 * @param cacheFilePath
+	 * @param numberOfColumns
+	 * @param numberOfValues
+	 * @param rowOffsetBlocks row offsets one block after another
+	 * @param columnIndexBlocks column indices one block after another
+	 * @throws IOException if the offsets do not go from 0 up to the number of values without decreasing, or a column index
+	 * is not a feature column
+	 */
+	private static void checkStructure(String cacheFilePath, int numberOfColumns, long numberOfValues, IntBuffer[] rowOffsetBlocks, IntBuffer[] columnIndexBlocks) throws IOException {
+		
+		if (rowOffsetBlocks[0].get(0) != 0) {
+			throw new IOException("Cache file " + cacheFilePath + " has row offsets that do not start at 0");
+		}
+		
+		int previousRowOffset = 0;
+		for (IntBuffer rowOffsetBlock : rowOffsetBlocks) {
+			for (int entryNumber = 0; entryNumber < rowOffsetBlock.limit(); ++entryNumber) {
+				
+				int rowOffset = rowOffsetBlock.get(entryNumber);
+				if (rowOffset < previousRowOffset) {
+					throw new IOException("Cache file " + cacheFilePath + " has row offsets that decrease");
+				}
+				previousRowOffset = rowOffset;
+			}
+		}
+		if (previousRowOffset != numberOfValues) {
+			throw new IOException("Cache file " + cacheFilePath + " has row offsets that do not end at the number of values");
+		}
+		
+		//Column 0 is the bias, which is not stored
+		for (IntBuffer columnIndexBlock : columnIndexBlocks) {
+			for (int entryNumber = 0; entryNumber < columnIndexBlock.limit(); ++entryNumber) {
+				
+				int columnIndex = columnIndexBlock.get(entryNumber);
+				if (columnIndex < 1 || columnIndex >= numberOfColumns) {
+					throw new IOException("Cache file " + cacheFilePath + " has column index " + columnIndex + " outside of 1 to " + (numberOfColumns - 1));
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param fileChannel
+	 * @param position position in the file of the first int
+	 * @param numberOfEntries
+	 * @return the ints mapped as blocks of a DirectSparseFeatureMatrix
+	 * @throws IOException
+	 */
+	private static IntBuffer[] mapIntBlocks(FileChannel fileChannel, long position, long numberOfEntries) throws IOException {
+		
+		IntBuffer[] blocks = new IntBuffer[Math.max(DirectSparseFeatureMatrix.getNumberOfBlocks(numberOfEntries), 1)];
+		for (int blockNumber = 0; blockNumber < blocks.length; ++blockNumber) {
+			
+			long blockStart = (long) blockNumber * DirectSparseFeatureMatrix.BLOCK_SIZE, blockLength = Math.min(numberOfEntries - blockStart, DirectSparseFeatureMatrix.BLOCK_SIZE);
+			blocks[blockNumber] = fileChannel.map(FileChannel.MapMode.READ_ONLY, position + 4L * blockStart, 4L * blockLength).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+		}
+		
+		return blocks;
+		
+	}
+	
+	/**
+	 * @param fileChannel
+	 * @param position position in the file of the first double
+	 * @param numberOfEntries
+	 * @return the doubles mapped as blocks of a DirectSparseFeatureMatrix
+	 * @throws IOException
+	 */
+	private static DoubleBuffer[] mapDoubleBlocks(FileChannel fileChannel, long position, long numberOfEntries) throws IOException {
+		
+		DoubleBuffer[] blocks = new DoubleBuffer[Math.max(DirectSparseFeatureMatrix.getNumberOfBlocks(numberOfEntries), 1)];
+		for (int blockNumber = 0; blockNumber < blocks.length; ++blockNumber) {
+			
+			long blockStart = (long) blockNumber * DirectSparseFeatureMatrix.BLOCK_SIZE, blockLength = Math.min(numberOfEntries - blockStart, DirectSparseFeatureMatrix.BLOCK_SIZE);
+			blocks[blockNumber] = fileChannel.map(FileChannel.MapMode.READ_ONLY, position + 8L * blockStart, 8L * blockLength).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		}
+		
+		return blocks;
+		
+	}
+	
+	/**
+	 * @param numberOfRecords
+	 * @param numberOfValues
+	 * @return position of the first value in the file
+	 */
+	private static long getValuesPosition(int numberOfRecords, int numberOfValues) {
+		
+		long position = HEADER_SIZE + numberOfRecords + 4L * (numberOfRecords + 1) + 4L * numberOfValues;
+		return (position + 7) / 8 * 8;
+		
+	}
+	
+}
@@ -0,0 +1,241 @@
+package logisticregression.io;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+
+import logisticregression.core.BinaryDataLabel;
+import logisticregression.core.FeatureHasher;
+import logisticregression.core.FeatureStorage;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.FeaturesAndLabelsBuilder;
+import logisticregression.core.PhaseTimer;
+import logisticregression.core.TrainingInstrumentation;
+import logisticregression.core.TrainingPhase;
+
+/**
+ * Read train and test data files and parse data
+ *
+ */
+public class DataFileReader {
+	
+	private String trainingDataFilePath, testingDataFilePath;
+	private FeaturesAndLabels trainingData, testingData;
+	private int maximumNumberOfFeatures;
+	private boolean useBinaryCache;
+	private FeatureHasher featureHasher;
+	private FeatureStorage featureStorage;
+	
+	/**
+	 * Constructor
+	 * @param trainingDataFileName
+	 * @param testingDataFileName
+	 */
+	public DataFileReader(String trainingDataFilePath, String testingDataFilePath) {
+		this(trainingDataFilePath, testingDataFilePath, false);
+	}
+	
+	/**
+	 * Constructor
+	 * @param trainingDataFileName
+	 * @param testingDataFileName
+	 * @param useBinaryCache read each file from its binary cache if the cache is newer than the file, and write the cache otherwise
+	 */
+	public DataFileReader(String trainingDataFilePath, String testingDataFilePath, boolean useBinaryCache) {
+		this(trainingDataFilePath, testingDataFilePath, useBinaryCache, null, FeatureStorage.HEAP);
+	}
+	
+	/**
+	 * Constructor
+	 * @param trainingDataFileName
+	 * @param testingDataFileName
+	 * @param featureHasher hasher mapping the feature numbers into a fixed number of columns, so that both files have the
+	 * same number of columns whatever features they hold. The binary cache holds the features before hashing, so it is not
+	 * used with a hasher.
+	 */
+	public DataFileReader(String trainingDataFilePath, String testingDataFilePath, FeatureHasher featureHasher) {
+		this(trainingDataFilePath, testingDataFilePath, false, featureHasher, FeatureStorage.HEAP);
+	}
+	
+	/**
+	 * Constructor
+	 * @param trainingDataFileName
+	 * @param testingDataFileName
+	 * @param useBinaryCache
+	 * @param featureStorage where the features are kept. With OFF_HEAP and the binary cache the features are used from
+	 * the mapped cache file, so data larger than the heap can be trained on.
+	 */
+	public DataFileReader(String trainingDataFilePath, String testingDataFilePath, boolean useBinaryCache, FeatureStorage featureStorage) {
+		this(trainingDataFilePath, testingDataFilePath, useBinaryCache, null, featureStorage);
+	}
+	
+	/**
+	 * Constructor
+	 * @param trainingDataFileName
+	 * @param testingDataFileName
+	 * @param useBinaryCache
+	 * @param featureHasher
+	 * @param featureStorage
+	 */
+	private DataFileReader(String trainingDataFilePath, String testingDataFilePath, boolean useBinaryCache, FeatureHasher featureHasher, FeatureStorage featureStorage) {
+		this.trainingDataFilePath = trainingDataFilePath;
+		this.testingDataFilePath = testingDataFilePath;
+		this.maximumNumberOfFeatures = 0;
+		this.useBinaryCache = useBinaryCache && featureHasher == null;
+		this.featureHasher = featureHasher;
+		this.featureStorage = featureStorage;
+		parseData();
+	}
+	
+	/**
+	 * @return training data features and labels
+	 */
+	public FeaturesAndLabels getTrainingData() {
+		return this.trainingData;
+	}
+	
+	/**
+	 * @return testing data features and labels
+	 */
+	public FeaturesAndLabels getTestingData() {
+		return this.testingData;
+	}
+	
+	/**
+	 * @return training data features as dense vectors. Each vector is built when it is accessed.
+	 */
+	public List<List<Double>> getTrainingDataFeatures() {
+		return this.trainingData.getFeatureMatrix().getDenseRows();
+	}
+	
+	/**
+	 * @return training data labels
+	 */
+	public List<BinaryDataLabel> getTrainingDataLabels() {
+		return getDataLabels(this.trainingData.getLabels());
+	}
+	
+	/**
+	 * @return testing data features as dense vectors. Each vector is built when it is accessed.
+	 */
+	public List<List<Double>> getTestingDataFeatures() {
+		return this.testingData.getFeatureMatrix().getDenseRows();
+	}
+	
+	/**
+	 * @return testing data labels
+	 */
+	public List<BinaryDataLabel> getTestingDataLabels() {
+		return getDataLabels(this.testingData.getLabels());
+	}
+	
+	/**
+	 * Parse data and load internal data structures. Each file is read once, and labels and features are extracted in the same pass.
+	 */
+	private void parseData() {
+		
+		//Get training and testing data from files
+		FeaturesAndLabels trainingData = null, testingData = null;
+		try {
+			
+			trainingData = readDataFile(this.trainingDataFilePath);
+			testingData = readDataFile(this.testingDataFilePath);
+			
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(0);
+		} catch (NumberFormatException e) {
+			System.err.println("Invalid feature value found.");
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+		//Set the maximum number of features seen in either file
+		this.maximumNumberOfFeatures = Math.max(trainingData.getFeatureMatrix().getNumberOfColumns(), testingData.getFeatureMatrix().getNumberOfColumns()) - 1;
+		
+		//Add one column for the bias term
+		this.trainingData = new FeaturesAndLabels(trainingData.getFeatureMatrix().withNumberOfColumns(this.maximumNumberOfFeatures + 1), trainingData.getLabels());
+		this.testingData = new FeaturesAndLabels(testingData.getFeatureMatrix().withNumberOfColumns(this.maximumNumberOfFeatures + 1), testingData.getLabels());
+		
+	}
+	
+	/**
+	 * @param filePath
+	 * @return records in the file, with one column for each feature seen in the file and one for the bias term
+	 * @throws IOException
+	 */
+	private FeaturesAndLabels readDataFile(String filePath) throws IOException {
+		
+		PhaseTimer dataParsingTimer = TrainingInstrumentation.getSharedInstance().startPhase(TrainingPhase.DATA_PARSING);
+		
+		//Use the cache if the data file has not changed since the cache was written
+		if (this.useBinaryCache && BinaryDatasetCache.isCacheCurrent(filePath)) {
+			try {
+				FeaturesAndLabels featuresAndLabels = BinaryDatasetCache.read(BinaryDatasetCache.getCacheFilePath(filePath), this.featureStorage);
+				dataParsingTimer.stop(featuresAndLabels.getLabels().length);
+				return featuresAndLabels;
+			} catch (IOException e) {
+				System.err.println("Could not read cache for " + filePath + ", parsing the data file instead: " + e.getMessage());
+			}
+		}
+		
+		FeaturesAndLabels featuresAndLabels = parseDataFile(filePath);
+		dataParsingTimer.stop(featuresAndLabels.getLabels().length);
+		
+		if (this.useBinaryCache) {
+			try {
+				BinaryDatasetCache.write(BinaryDatasetCache.getCacheFilePath(filePath), featuresAndLabels);
+			} catch (IOException e) {
+				System.err.println("Could not write cache for " + filePath + ": " + e.getMessage());
+			}
+		}
+		
+		return featuresAndLabels;
+		
+	}
+	
+	/**
+	 * @param filePath
+	 * @return records in the file, with one column for each feature seen in the file and one for the bias term
+	 * @throws IOException
+	 */
+	private FeaturesAndLabels parseDataFile(String filePath) throws IOException {
+		
+		FeaturesAndLabelsBuilder featuresAndLabelsBuilder = new FeaturesAndLabelsBuilder(this.featureHasher, this.featureStorage);
+		LibSvmRecordReader libSvmRecordReader = new LibSvmRecordReader(filePath);
+		
+		try {
+			while (libSvmRecordReader.readRecord()) {
+				featuresAndLabelsBuilder.addRecord(libSvmRecordReader.getLabel(), libSvmRecordReader.getFeatureNumbers(), libSvmRecordReader.getFeatureValues(), libSvmRecordReader.getNumberOfFeatures());
+			}
+		} finally {
+			libSvmRecordReader.close();
+		}
+		
+		return featuresAndLabelsBuilder.build(this.featureHasher != null ? this.featureHasher.getNumberOfColumns() : featuresAndLabelsBuilder.getMaximumFeatureNumber() + 1);
+		
+	}
+	
+	/**
+	 * @param labelValues
+	 * @return labels as a list that looks up the label values when accessed
+	 */
+	private List<BinaryDataLabel> getDataLabels(final byte[] labelValues) {
+		
+		return Collections.unmodifiableList(new AbstractList<BinaryDataLabel>() {
+			
+			@Override
+			public BinaryDataLabel get(int labelIndex) {
+				return labelValues[labelIndex] == BinaryDataLabel.POSITIVE_LABEL.getValue() ? BinaryDataLabel.POSITIVE_LABEL : BinaryDataLabel.NEGATIVE_LABEL;
+			}
+			
+			@Override
+			public int size() {
+				return labelValues.length;
+			}
+			
+		});
+		
+	}
+}
\ No newline at end of file
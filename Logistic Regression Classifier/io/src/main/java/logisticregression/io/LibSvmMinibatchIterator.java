@@ -0,0 +1,114 @@
+package logisticregression.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import logisticregression.core.FeatureHasher;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.FeaturesAndLabelsBuilder;
+
+/**
+ * Read a libsvm format data source as a sequence of minibatches with at most a fixed number of records, so that
+ * only one minibatch has to be in memory at a time. Each minibatch has one column for each feature seen in it
+ * and one for the bias term, or with a feature hasher the same number of columns as every other minibatch.
+ */
+public class LibSvmMinibatchIterator implements Iterator<FeaturesAndLabels> {
+	
+	public static final int DEFAULT_MINIBATCH_SIZE = 10000;
+	
+	private LibSvmRecordReader libSvmRecordReader;
+	private int minibatchSize;
+	private FeaturesAndLabels nextMinibatch;
+	private boolean endOfData;
+	private FeatureHasher featureHasher;
+	
+	/**
+	 * Constructor
+	 * @param libSvmRecordReader
+	 * @param minibatchSize maximum number of records in a minibatch
+	 */
+	public LibSvmMinibatchIterator(LibSvmRecordReader libSvmRecordReader, int minibatchSize) {
+		this(libSvmRecordReader, minibatchSize, null);
+	}
+	
+	/**
+	 * Constructor
+	 * @param libSvmRecordReader
+	 * @param minibatchSize maximum number of records in a minibatch
+	 * @param featureHasher hasher mapping the feature numbers into a fixed number of columns, or null to use the feature
+	 * numbers as columns
+	 */
+	public LibSvmMinibatchIterator(LibSvmRecordReader libSvmRecordReader, int minibatchSize, FeatureHasher featureHasher) {
+		
+		assert minibatchSize > 0;
+		
+		this.libSvmRecordReader = libSvmRecordReader;
+		this.minibatchSize = minibatchSize;
+		this.nextMinibatch = null;
+		this.endOfData = false;
+		this.featureHasher = featureHasher;
+		
+	}
+	
+	/**
+	 * @throws UncheckedIOException if the data source cannot be read
+	 */
+	@Override
+	public boolean hasNext() {
+		
+		if (this.nextMinibatch == null && !this.endOfData) {
+			this.nextMinibatch = readMinibatch();
+		}
+		
+		return this.nextMinibatch != null;
+		
+	}
+	
+	/**
+	 * @throws UncheckedIOException if the data source cannot be read
+	 */
+	@Override
+	public FeaturesAndLabels next() {
+		
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		
+		FeaturesAndLabels minibatch = this.nextMinibatch;
+		this.nextMinibatch = null;
+		return minibatch;
+		
+	}
+	
+	/**
+	 * @return the next minibatch, or null if there are no more records
+	 */
+	private FeaturesAndLabels readMinibatch() {
+		
+		FeaturesAndLabelsBuilder featuresAndLabelsBuilder = new FeaturesAndLabelsBuilder(this.featureHasher);
+		
+		try {
+			while (featuresAndLabelsBuilder.getNumberOfRecords() < this.minibatchSize) {
+				
+				if (!this.libSvmRecordReader.readRecord()) {
+					this.endOfData = true;
+					break;
+				}
+				
+				featuresAndLabelsBuilder.addRecord(this.libSvmRecordReader.getLabel(), this.libSvmRecordReader.getFeatureNumbers(), this.libSvmRecordReader.getFeatureValues(), this.libSvmRecordReader.getNumberOfFeatures());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		if (featuresAndLabelsBuilder.getNumberOfRecords() == 0) {
+			return null;
+		}
+		
+		return featuresAndLabelsBuilder.build(this.featureHasher != null ? this.featureHasher.getNumberOfColumns() : featuresAndLabelsBuilder.getMaximumFeatureNumber() + 1);
+		
+	}
+	
+}
@@ -0,0 +1,347 @@
+package logisticregression.io;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import logisticregression.core.BinaryDataLabel;
+
+/**
+ * Read records in libsvm format (label followed by feature number:value pairs) one at a time. The bytes are scanned
+ * directly for separators and numbers are parsed without creating strings, so each line is read only once and the
+ * file never has to fit in memory. The arrays holding the current record are reused for the next record.
+ */
+public class LibSvmRecordReader implements Closeable {
+	
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+	public static final char FEATURE_VALUE_SEPARATOR = ':';
+	
+	private static final int END_OF_FILE = -1, MAXIMUM_EXACT_DIGITS = 15, MAXIMUM_EXACT_POWER_OF_TEN = 22, MAXIMUM_NUMBER_LENGTH = 64;
+	private static final double[] POWERS_OF_TEN = new double[MAXIMUM_EXACT_POWER_OF_TEN + 1];
+	
+	static {
+		POWERS_OF_TEN[0] = 1.0;
+		for (int exponent = 1; exponent <= MAXIMUM_EXACT_POWER_OF_TEN; ++exponent) {
+			POWERS_OF_TEN[exponent] = POWERS_OF_TEN[exponent - 1] * 10.0;
+		}
+	}
+	
+	private InputStream inputStream;
+	private byte[] buffer, numberBytes;
+	private int bufferPosition, bufferLimit, numberLength;
+	private long lineNumber;
+	private int label, numberOfFeatures;
+	private int[] featureNumbers;
+	private double[] featureValues;
+	
+	/**
+	 * Constructor
+	 * @param filePath
+	 * @throws IOException
+	 */
+	public LibSvmRecordReader(String filePath) throws IOException {
+		this(new FileInputStream(filePath));
+	}
+	
+	/**
+	 * Constructor
+	 * @param inputStream
+	 */
+	public LibSvmRecordReader(InputStream inputStream) {
+		
+		this.inputStream = inputStream;
+		this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+		this.numberBytes = new byte[MAXIMUM_NUMBER_LENGTH];
+		this.bufferPosition = 0;
+		this.bufferLimit = 0;
+		this.lineNumber = 1;
+		this.featureNumbers = new int[16];
+		this.featureValues = new double[16];
+		
+	}
+	
+	/**
+	 * Read the next record. Blank lines are skipped.
+	 * @return false if there are no more records
+	 * @throws IOException
+	 * @throws NumberFormatException if the record is not in libsvm format
+	 */
+	public boolean readRecord() throws IOException {
+		
+		//Skip blank lines
+		int nextByte = skipWhitespace(true);
+		if (nextByte == END_OF_FILE) {
+			return false;
+		}
+		
+		//Only a label of 1 is positive, as with Integer.parseInt(label) == 1
+		this.label = readInteger(END_OF_FILE) == 1 ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue();
+		this.numberOfFeatures = 0;
+		
+		//Read feature number and value pairs till the end of the line
+		while (true) {
+			
+			nextByte = skipWhitespace(false);
+			if (nextByte == END_OF_FILE) {
+				break;
+			} else if (nextByte == '\n') {
+				++this.bufferPosition;
+				++this.lineNumber;
+				break;
+			}
+			
+			if (this.numberOfFeatures == this.featureNumbers.length) {
+				this.featureNumbers = Arrays.copyOf(this.featureNumbers, 2 * this.numberOfFeatures);
+				this.featureValues = Arrays.copyOf(this.featureValues, 2 * this.numberOfFeatures);
+			}
+			
+			this.featureNumbers[this.numberOfFeatures] = readInteger(FEATURE_VALUE_SEPARATOR);
+			this.featureValues[this.numberOfFeatures++] = readDouble();
+			
+		}
+		
+		return true;
+		
+	}
+	
+	/**
+	 * @return label of the current record with value +1 or -1
+	 */
+	public int getLabel() {
+		return this.label;
+	}
+	
+	/**
+	 * @return number of features in the current record
+	 */
+	public int getNumberOfFeatures() {
+		return this.numberOfFeatures;
+	}
+	
+	/**
+	 * @return feature numbers of the current record. Only the first getNumberOfFeatures() entries are valid.
+	 */
+	public int[] getFeatureNumbers() {
+		return this.featureNumbers;
+	}
+	
+	/**
+	 * @return feature values of the current record. Only the first getNumberOfFeatures() entries are valid.
+	 */
+	public double[] getFeatureValues() {
+		return this.featureValues;
+	}
+	
+	/**
+	 * @return line number of the next byte to be read
+	 */
+	public long getLineNumber() {
+		return this.lineNumber;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		this.inputStream.close();
+	}
+	
+	/**
+	 * Skip spaces, tabs and carriage returns, and also new lines if required
+	 * @param skipNewLines
+	 * @return the next byte which is not skipped, or END_OF_FILE
+	 * @throws IOException
+	 */
+	private int skipWhitespace(boolean skipNewLines) throws IOException {
+		
+		while (true) {
+			
+			int nextByte = peekByte();
+			if (nextByte == ' ' || nextByte == '\t' || nextByte == '\r' || nextByte == '\f' || nextByte == 0x0B) {
+				++this.bufferPosition;
+			} else if (nextByte == '\n' && skipNewLines) {
+				++this.bufferPosition;
+				++this.lineNumber;
+			} else {
+				return nextByte;
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Read a signed integer which ends at whitespace or at the given separator. The separator is consumed.
+	 * @param separator
+	 * @return the integer
+	 * @throws IOException
+	 */
+	private int readInteger(int separator) throws IOException {
+		
+		int nextByte = peekByte();
+		boolean negative = false;
+		if (nextByte == '-' || nextByte == '+') {
+			negative = nextByte == '-';
+			++this.bufferPosition;
+			nextByte = peekByte();
+		}
+		
+		long value = 0;
+		int numberOfDigits = 0;
+		while (nextByte >= '0' && nextByte <= '9') {
+			
+			value = value * 10 + (nextByte - '0');
+			if (value > Integer.MAX_VALUE + 1L) {
+				throw getInvalidNumberException();
+			}
+			
+			++numberOfDigits;
+			++this.bufferPosition;
+			nextByte = peekByte();
+		}
+		
+		if (numberOfDigits == 0 || (separator != END_OF_FILE && nextByte != separator) || (separator == END_OF_FILE && !isEndOfToken(nextByte))) {
+			throw getInvalidNumberException();
+		}
+		
+		if (separator != END_OF_FILE) {
+			++this.bufferPosition;
+		}
+		
+		value = negative ? -value : value;
+		if (value > Integer.MAX_VALUE) {
+			throw getInvalidNumberException();
+		}
+		
+		return (int) value;
+		
+	}
+	
+	/**
+	 * Read a decimal number which ends at whitespace. Numbers with up to 15 significant digits and small exponents are
+	 * exactly representable as a long divided or multiplied by a power of ten, and are converted without a string.
+	 * Anything else is handed to Double.parseDouble.
+	 * @return the number
+	 * @throws IOException
+	 */
+	private double readDouble() throws IOException {
+		
+		this.numberLength = 0;
+		int nextByte = peekByte();
+		boolean negative = false;
+		if (nextByte == '-' || nextByte == '+') {
+			negative = nextByte == '-';
+			nextByte = consumeNumberByte(nextByte);
+		}
+		
+		long mantissa = 0;
+		int numberOfDigits = 0, significantDigits = 0, exponent = 0;
+		boolean seenDecimalPoint = false;
+		while ((nextByte >= '0' && nextByte <= '9') || (nextByte == '.' && !seenDecimalPoint)) {
+			
+			if (nextByte == '.') {
+				seenDecimalPoint = true;
+			} else {
+				
+				++numberOfDigits;
+				if (mantissa != 0 || nextByte != '0') {
+					++significantDigits;
+				}
+				
+				if (significantDigits <= MAXIMUM_EXACT_DIGITS) {
+					mantissa = mantissa * 10 + (nextByte - '0');
+					if (seenDecimalPoint) {
+						--exponent;
+					}
+				} else if (!seenDecimalPoint) {
+					++exponent;
+				}
+			}
+			
+			nextByte = consumeNumberByte(nextByte);
+		}
+		
+		if (numberOfDigits == 0) {
+			throw getInvalidNumberException();
+		}
+		
+		//Anything after the digits, such as an exponent, is left to the library parser
+		boolean exact = significantDigits <= MAXIMUM_EXACT_DIGITS;
+		while (!isEndOfToken(nextByte)) {
+			exact = false;
+			nextByte = consumeNumberByte(nextByte);
+		}
+		
+		if (exact && exponent >= -MAXIMUM_EXACT_POWER_OF_TEN && exponent <= MAXIMUM_EXACT_POWER_OF_TEN) {
+			double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+		
+		if (this.numberLength > MAXIMUM_NUMBER_LENGTH) {
+			throw getInvalidNumberException();
+		}
+		
+		try {
+			return Double.parseDouble(new String(this.numberBytes, 0, this.numberLength, StandardCharsets.US_ASCII));
+		} catch (NumberFormatException e) {
+			throw getInvalidNumberException();
+		}
+		
+	}
+	
+	/**
+	 * Remember a byte of the number being read in case it has to be handed to the library parser, and move to the next byte
+	 * @param numberByte
+	 * @return the next byte
+	 * @throws IOException
+	 */
+	private int consumeNumberByte(int numberByte) throws IOException {
+		
+		if (this.numberLength < MAXIMUM_NUMBER_LENGTH) {
+			this.numberBytes[this.numberLength] = (byte) numberByte;
+		}
+		++this.numberLength;
+		++this.bufferPosition;
+		
+		return peekByte();
+		
+	}
+	
+	/**
+	 * @param nextByte
+	 * @return true if the byte ends a label or a feature value
+	 */
+	private boolean isEndOfToken(int nextByte) {
+		return nextByte == END_OF_FILE || nextByte == ' ' || nextByte == '\t' || nextByte == '\r' || nextByte == '\n' || nextByte == '\f' || nextByte == 0x0B;
+	}
+	
+	/**
+	 * @return the next byte without consuming it, or END_OF_FILE
+	 * @throws IOException
+	 */
+	private int peekByte() throws IOException {
+		
+		if (this.bufferPosition == this.bufferLimit) {
+			
+			this.bufferLimit = this.inputStream.read(this.buffer, 0, this.buffer.length);
+			this.bufferPosition = 0;
+			
+			if (this.bufferLimit <= 0) {
+				this.bufferLimit = 0;
+				return END_OF_FILE;
+			}
+		}
+		
+		return this.buffer[this.bufferPosition] & 0xFF;
+		
+	}
+	
+	/**
+	 * @return exception describing where the invalid number was found
+	 */
+	private NumberFormatException getInvalidNumberException() {
+		return new NumberFormatException("Invalid number found on line " + this.lineNumber);
+	}
+	
+}
@@ -0,0 +1,138 @@
+package logisticregression.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered writes and memory mapped bulk reads of little endian binary files, shared by the binary data cache and the
+ * model file. Arrays are read one mapped region of at most MAXIMUM_MAPPED_REGION_SIZE bytes at a time.
+ */
+final class LittleEndianChannelIo {
+	
+	static final int WRITE_BUFFER_SIZE = 1 << 20, MAXIMUM_MAPPED_REGION_SIZE = 1 << 30;
+	
+	private LittleEndianChannelIo() {
+	}
+	
+	/**
+	 * @return an empty little endian write buffer
+	 */
+	static ByteBuffer allocateWriteBuffer() {
+		return ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	/**
+	 * @param fileChannel
+	 * @param writeBuffer
+	 * @param bytesNeeded
+	 * @return the write buffer after making sure it has room for the bytes needed
+	 * @throws IOException
+	 */
+	static ByteBuffer getWriteBuffer(FileChannel fileChannel, ByteBuffer writeBuffer, int bytesNeeded) throws IOException {
+		
+		if (writeBuffer.remaining() < bytesNeeded) {
+			flushWriteBuffer(fileChannel, writeBuffer);
+		}
+		
+		return writeBuffer;
+		
+	}
+	
+	/**
+	 * Write zero bytes until the next byte goes to the given position, for example to align an array of doubles
+	 * @param fileChannel
+	 * @param writeBuffer
+	 * @param position
+	 * @throws IOException
+	 */
+	static void padTo(FileChannel fileChannel, ByteBuffer writeBuffer, long position) throws IOException {
+		
+		while (fileChannel.position() + writeBuffer.position() < position) {
+			getWriteBuffer(fileChannel, writeBuffer, 1).put((byte) 0);
+		}
+		
+	}
+	
+	/**
+	 * Write the contents of the buffer to the file and clear the buffer
+	 * @param fileChannel
+	 * @param writeBuffer
+	 * @throws IOException
+	 */
+	static void flushWriteBuffer(FileChannel fileChannel, ByteBuffer writeBuffer) throws IOException {
+		
+		writeBuffer.flip();
+		while (writeBuffer.hasRemaining()) {
+			fileChannel.write(writeBuffer);
+		}
+		writeBuffer.clear();
+		
+	}
+	
+	/**
+	 * Fill an array from the file one mapped region at a time
+	 * @param fileChannel
+	 * @param position
+	 * @param target
+	 * @throws IOException
+	 */
+	static void readBytes(FileChannel fileChannel, long position, byte[] target) throws IOException {
+		
+		for (int targetIndex = 0; targetIndex < target.length; ) {
+			
+			int regionLength = Math.min(target.length - targetIndex, MAXIMUM_MAPPED_REGION_SIZE);
+			fileChannel.map(FileChannel.MapMode.READ_ONLY, position, regionLength).get(target, targetIndex, regionLength);
+			
+			position += regionLength;
+			targetIndex += regionLength;
+		}
+		
+	}
+	
+	/**
+	 * Fill an array from the file one mapped region at a time
+	 * @param fileChannel
+	 * @param position
+	 * @param target
+	 * @throws IOException
+	 */
+	static void readInts(FileChannel fileChannel, long position, int[] target) throws IOException {
+		
+		for (int targetIndex = 0; targetIndex < target.length; ) {
+			
+			int regionLength = Math.min(target.length - targetIndex, MAXIMUM_MAPPED_REGION_SIZE / 4);
+			MappedByteBuffer region = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, 4L * regionLength);
+			region.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(target, targetIndex, regionLength);
+			
+			position += 4L * regionLength;
+			targetIndex += regionLength;
+		}
+		
+	}
+	
+	/**
+	 * Fill an array from the file one mapped region at a time
+	 * @param fileChannel
+	 * @param position position of the value for the first target index
+	 * @param target
+	 * @param firstTargetIndex first index of the array to fill
+	 * @throws IOException
+	 */
+	static void readDoubles(FileChannel fileChannel, long position, double[] target, int firstTargetIndex) throws IOException {
+		
+		for (int targetIndex = firstTargetIndex; targetIndex < target.length; ) {
+			
+			int regionLength = Math.min(target.length - targetIndex, MAXIMUM_MAPPED_REGION_SIZE / 8);
+			MappedByteBuffer region = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, 8L * regionLength);
+			region.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(target, targetIndex, regionLength);
+			
+			position += 8L * regionLength;
+			targetIndex += regionLength;
+		}
+		
+	}
+	
+}
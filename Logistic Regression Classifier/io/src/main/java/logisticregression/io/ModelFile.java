@@ -0,0 +1,233 @@
+package logisticregression.io;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import logisticregression.core.TrainedModel;
+
+/**
+ * Compact binary file holding a trained model so that scoring processes can load it instead of training again. The file
+ * has a header followed by the training metadata and the weights, all in little endian order:
+ *
+ * <pre>
+ * int    magic number
+ * int    format version
+ * long   number of columns including the bias column
+ * double learning rate
+ * double variance value
+ * double bias weight
+ * int    number of metadata bytes
+ * byte   metadata as UTF-8 key=value lines
+ * double weight of each feature column, starting at a multiple of 8 bytes
+ * </pre>
+ *
+ * The weights are read back through memory mapped regions of the file, which are copied into the weight vector in bulk,
+ * so that very wide models load without going through a stream. The loaded model keeps that weight vector without copying
+ * it, so a model takes up its size only once while it is loaded.
+ */
+public class ModelFile {
+	
+	public static final String MODEL_FILE_EXTENSION = ".model";
+	public static final int MAGIC_NUMBER = 0x4C524D44, FORMAT_VERSION = 1;
+	
+	private static final int HEADER_SIZE = 44;
+	private static final char METADATA_SEPARATOR = '=', METADATA_LINE_END = '\n';
+	
+	/**
+	 * @param filePath
+	 * @return true if the file name has the model file extension
+	 */
+	public static boolean isModelFile(String filePath) {
+		return filePath.endsWith(MODEL_FILE_EXTENSION);
+	}
+	
+	/**
+	 * Write a trained model to a file. The model is written to a temporary file in the same folder, which then replaces the
+	 * model file, so a save that fails leaves any earlier model file as it was.
+	 * @param modelFilePath
+	 * @param trainedModel
+	 * @throws IOException
+	 */
+	public static void save(String modelFilePath, TrainedModel trainedModel) throws IOException {
+		
+		byte[] metadataBytes = getMetadataText(trainedModel.getTrainingMetadata()).getBytes(StandardCharsets.UTF_8);
+		Path modelPath = Paths.get(modelFilePath).toAbsolutePath();
+		Path temporaryPath = Files.createTempFile(modelPath.getParent(), modelPath.getFileName().toString(), ".tmp");
+		
+		boolean saved = false;
+		try {
+			
+			write(temporaryPath, trainedModel, metadataBytes);
+			try {
+				Files.move(temporaryPath, modelPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryPath, modelPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+			saved = true;
+			
+		} finally {
+			if (!saved) {
+				Files.deleteIfExists(temporaryPath);
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param filePath new empty file to write the model to
+	 * @param trainedModel
+	 * @param metadataBytes metadata of the model as UTF-8 key=value lines
+	 * @throws IOException
+	 */
+	private static void write(Path filePath, TrainedModel trainedModel, byte[] metadataBytes) throws IOException {
+		
+		int numberOfColumns = trainedModel.getNumberOfColumns();
+		
+		RandomAccessFile modelFile = new RandomAccessFile(filePath.toFile(), "rw");
+		try {
+			
+			FileChannel fileChannel = modelFile.getChannel();
+			ByteBuffer writeBuffer = LittleEndianChannelIo.allocateWriteBuffer();
+			
+			writeBuffer.putInt(MAGIC_NUMBER).putInt(FORMAT_VERSION).putLong(numberOfColumns);
+			writeBuffer.putDouble(trainedModel.getLearningRate()).putDouble(trainedModel.getVarianceValue()).putDouble(trainedModel.getWeight(0));
+			writeBuffer.putInt(metadataBytes.length);
+			
+			for (int byteCounter = 0; byteCounter < metadataBytes.length; ++byteCounter) {
+				writeBuffer = LittleEndianChannelIo.getWriteBuffer(fileChannel, writeBuffer, 1);
+				writeBuffer.put(metadataBytes[byteCounter]);
+			}
+			
+			//Align the weights so that they can be read as doubles
+			LittleEndianChannelIo.padTo(fileChannel, writeBuffer, getWeightsPosition(metadataBytes.length));
+			
+			for (int columnCounter = 1; columnCounter < numberOfColumns; ++columnCounter) {
+				writeBuffer = LittleEndianChannelIo.getWriteBuffer(fileChannel, writeBuffer, 8);
+				writeBuffer.putDouble(trainedModel.getWeight(columnCounter));
+			}
+			
+			LittleEndianChannelIo.flushWriteBuffer(fileChannel, writeBuffer);
+			
+		} finally {
+			modelFile.close();
+		}
+		
+	}
+	
+	/**
+	 * Read a trained model from a file
+	 * @param modelFilePath
+	 * @return trained model
+	 * @throws IOException if the file cannot be read or is not a model file of this version
+	 */
+	public static TrainedModel load(String modelFilePath) throws IOException {
+		
+		RandomAccessFile modelFile = new RandomAccessFile(modelFilePath, "r");
+		try {
+			
+			FileChannel fileChannel = modelFile.getChannel();
+			if (fileChannel.size() < HEADER_SIZE) {
+				throw new IOException("Model file " + modelFilePath + " is too short");
+			}
+			
+			MappedByteBuffer header = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			
+			if (header.getInt() != MAGIC_NUMBER || header.getInt() != FORMAT_VERSION) {
+				throw new IOException("File " + modelFilePath + " is not a model file of version " + FORMAT_VERSION);
+			}
+			
+			long numberOfColumns = header.getLong();
+			double learningRate = header.getDouble(), varianceValue = header.getDouble(), biasWeight = header.getDouble();
+			int numberOfMetadataBytes = header.getInt();
+			if (numberOfColumns < 1 || numberOfColumns > Integer.MAX_VALUE || numberOfMetadataBytes < 0 || fileChannel.size() != getWeightsPosition(numberOfMetadataBytes) + 8 * (numberOfColumns - 1)) {
+				throw new IOException("Model file " + modelFilePath + " has an invalid size");
+			}
+			
+			byte[] metadataBytes = new byte[numberOfMetadataBytes];
+			if (numberOfMetadataBytes > 0) {
+				fileChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, numberOfMetadataBytes).get(metadataBytes);
+			}
+			
+			double[] weightVector = new double[(int) numberOfColumns];
+			weightVector[0] = biasWeight;
+			LittleEndianChannelIo.readDoubles(fileChannel, getWeightsPosition(numberOfMetadataBytes), weightVector, 1);
+			
+			return TrainedModel.fromOwnedWeightVector(weightVector, learningRate, varianceValue, getMetadata(new String(metadataBytes, StandardCharsets.UTF_8)));
+			
+		} finally {
+			modelFile.close();
+		}
+		
+	}
+	
+	/**
+	 * @param trainingMetadata
+	 * @return metadata as key=value lines
+	 * @throws IllegalArgumentException if a key contains the separator or a key or value contains a line end
+	 */
+	private static String getMetadataText(Map<String, String> trainingMetadata) {
+		
+		StringBuilder metadataText = new StringBuilder();
+		for (Map.Entry<String, String> metadataEntry : trainingMetadata.entrySet()) {
+			
+			String key = metadataEntry.getKey(), value = metadataEntry.getValue();
+			if (key.indexOf(METADATA_SEPARATOR) >= 0 || key.indexOf(METADATA_LINE_END) >= 0 || value.indexOf(METADATA_LINE_END) >= 0) {
+				throw new IllegalArgumentException("Metadata entry " + key + " cannot be saved");
+			}
+			metadataText.append(key).append(METADATA_SEPARATOR).append(value).append(METADATA_LINE_END);
+		}
+		
+		return metadataText.toString();
+		
+	}
+	
+	/**
+	 * @param metadataText
+	 * @return metadata read from key=value lines
+	 * @throws IOException if a line has no separator
+	 */
+	private static Map<String, String> getMetadata(String metadataText) throws IOException {
+		
+		Map<String, String> trainingMetadata = new LinkedHashMap<String, String>();
+		for (String metadataLine : metadataText.split(String.valueOf(METADATA_LINE_END))) {
+			
+			if (metadataLine.isEmpty()) {
+				continue;
+			}
+			
+			int separatorPosition = metadataLine.indexOf(METADATA_SEPARATOR);
+			if (separatorPosition < 0) {
+				throw new IOException("Invalid model metadata " + metadataLine);
+			}
+			trainingMetadata.put(metadataLine.substring(0, separatorPosition), metadataLine.substring(separatorPosition + 1));
+		}
+		
+		return trainingMetadata;
+		
+	}
+	
+	/**
+	 * @param numberOfMetadataBytes
+	 * @return position of the first feature weight in the file
+	 */
+	private static long getWeightsPosition(int numberOfMetadataBytes) {
+		
+		long position = HEADER_SIZE + (long) numberOfMetadataBytes;
+		return (position + 7) / 8 * 8;
+		
+	}
+	
+}
@@ -0,0 +1,153 @@
+package logisticregression.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+import logisticregression.core.FeatureStorage;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.FeaturesAndLabelsBuilder;
+import logisticregression.core.SparseFeatureMatrix;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Write data to a cache file and read it back, on the heap and off it
+ */
+public class BinaryDatasetCacheTest {
+	
+	private static final int[][] FEATURE_NUMBERS = {{1, 3}, {2}, {}, {3, 4}};
+	private static final int[] LABELS = {1, -1, 1, -1};
+	private static final int NUMBER_OF_COLUMNS = 5, HEADER_SIZE = 24;
+	
+	@TempDir
+	Path temporaryFolder;
+	
+	@Test
+	public void heapDataReadsBackOnAndOffTheHeap() throws IOException {
+		checkRoundTrip(FeatureStorage.HEAP);
+	}
+	
+	@Test
+	public void offHeapDataReadsBackOnAndOffTheHeap() throws IOException {
+		checkRoundTrip(FeatureStorage.OFF_HEAP);
+	}
+	
+	@Test
+	public void cacheWithInvalidRowsOrColumnsIsRejected() throws IOException {
+		
+		long rowOffsetsPosition = HEADER_SIZE + LABELS.length, columnIndicesPosition = rowOffsetsPosition + 4L * (LABELS.length + 1);
+		
+		//First row offset, a row offset that decreases, the last row offset and column indices below and above the columns
+		long[] positions = {rowOffsetsPosition, rowOffsetsPosition + 8, rowOffsetsPosition + 4L * LABELS.length, columnIndicesPosition, columnIndicesPosition + 4};
+		int[] invalidValues = {1, 0, 2, 0, NUMBER_OF_COLUMNS};
+		
+		for (int caseNumber = 0; caseNumber < positions.length; ++caseNumber) {
+			for (final FeatureStorage featureStorage : FeatureStorage.values()) {
+				
+				final String cacheFilePath = this.temporaryFolder.resolve("invalid" + caseNumber + ".cache").toString();
+				BinaryDatasetCache.write(cacheFilePath, createData(FeatureStorage.HEAP));
+				writeInt(cacheFilePath, positions[caseNumber], invalidValues[caseNumber]);
+				
+				assertThrows(IOException.class, new Executable() {
+					
+					@Override
+					public void execute() throws IOException {
+						BinaryDatasetCache.read(cacheFilePath, featureStorage);
+					}
+					
+				});
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param writtenStorage storage of the data that is written
+	 * @throws IOException
+	 */
+	private void checkRoundTrip(FeatureStorage writtenStorage) throws IOException {
+		
+		FeaturesAndLabels writtenData = createData(writtenStorage);
+		String cacheFilePath = this.temporaryFolder.resolve(writtenStorage + ".cache").toString();
+		BinaryDatasetCache.write(cacheFilePath, writtenData);
+		
+		for (FeatureStorage readStorage : FeatureStorage.values()) {
+			
+			FeaturesAndLabels readData = BinaryDatasetCache.read(cacheFilePath, readStorage);
+			assertArrayEquals(writtenData.getLabels(), readData.getLabels());
+			assertSameMatrix(writtenData.getFeatureMatrix(), readData.getFeatureMatrix());
+		}
+		
+	}
+	
+	/**
+	 * @param featureStorage
+	 * @return the test records
+	 */
+	static FeaturesAndLabels createData(FeatureStorage featureStorage) {
+		
+		FeaturesAndLabelsBuilder featuresAndLabelsBuilder = new FeaturesAndLabelsBuilder(null, featureStorage);
+		for (int recordNumber = 0; recordNumber < LABELS.length; ++recordNumber) {
+			
+			double[] featureValues = new double[FEATURE_NUMBERS[recordNumber].length];
+			for (int featureCounter = 0; featureCounter < featureValues.length; ++featureCounter) {
+				featureValues[featureCounter] = 0.5 * (recordNumber + 1) - featureCounter;
+			}
+			featuresAndLabelsBuilder.addRecord(LABELS[recordNumber], FEATURE_NUMBERS[recordNumber], featureValues, featureValues.length);
+		}
+		
+		return featuresAndLabelsBuilder.build(NUMBER_OF_COLUMNS);
+		
+	}
+	
+	/**
+	 * @param expectedMatrix
+	 * @param actualMatrix
+	 */
+	private static void assertSameMatrix(SparseFeatureMatrix expectedMatrix, SparseFeatureMatrix actualMatrix) {
+		
+		assertEquals(expectedMatrix.getNumberOfRows(), actualMatrix.getNumberOfRows());
+		assertEquals(expectedMatrix.getNumberOfColumns(), actualMatrix.getNumberOfColumns());
+		assertEquals(expectedMatrix.getNumberOfNonZeros(), actualMatrix.getNumberOfNonZeros());
+		
+		for (int rowNumber = 0; rowNumber < expectedMatrix.getNumberOfRows(); ++rowNumber) {
+			
+			assertEquals(expectedMatrix.getRowStart(rowNumber), actualMatrix.getRowStart(rowNumber));
+			assertEquals(expectedMatrix.getRowEnd(rowNumber), actualMatrix.getRowEnd(rowNumber));
+			for (int valueIndex = expectedMatrix.getRowStart(rowNumber); valueIndex < expectedMatrix.getRowEnd(rowNumber); ++valueIndex) {
+				assertEquals(expectedMatrix.getColumnIndex(valueIndex), actualMatrix.getColumnIndex(valueIndex));
+				assertEquals(expectedMatrix.getValue(valueIndex), actualMatrix.getValue(valueIndex));
+			}
+		}
+		
+	}
+	
+	/**
+	 * @param filePath
+	 * @param position
+	 * @param value written in little endian order
+	 * @throws IOException
+	 */
+	private static void writeInt(String filePath, long position, int value) throws IOException {
+		
+		RandomAccessFile file = new RandomAccessFile(filePath, "rw");
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(value).flip();
+			file.getChannel().write(buffer, position);
+		} finally {
+			file.close();
+		}
+		
+	}
+	
+}
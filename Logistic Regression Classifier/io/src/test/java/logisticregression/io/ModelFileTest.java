@@ -0,0 +1,114 @@
+package logisticregression.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import logisticregression.core.FeatureStorage;
+import logisticregression.core.FeaturesAndLabels;
+import logisticregression.core.TrainedModel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Save a model, load it back and score with it on the heap and off it
+ */
+public class ModelFileTest {
+	
+	private static final double[] WEIGHT_VECTOR = {0.25, -1.5, 2.0, 0.0, 3.75};
+	
+	@TempDir
+	Path temporaryFolder;
+	
+	@Test
+	public void modelReadsBack() throws IOException {
+		
+		TrainedModel savedModel = createModel();
+		String modelFilePath = this.temporaryFolder.resolve("saved" + ModelFile.MODEL_FILE_EXTENSION).toString();
+		ModelFile.save(modelFilePath, savedModel);
+		
+		TrainedModel loadedModel = ModelFile.load(modelFilePath);
+		assertArrayEquals(WEIGHT_VECTOR, loadedModel.getWeightVector());
+		assertEquals(savedModel.getLearningRate(), loadedModel.getLearningRate());
+		assertEquals(savedModel.getVarianceValue(), loadedModel.getVarianceValue());
+		assertEquals(savedModel.getTrainingMetadata(), loadedModel.getTrainingMetadata());
+		
+	}
+	
+	@Test
+	public void loadedModelScoresTheSameOnAndOffTheHeap() throws IOException {
+		
+		TrainedModel savedModel = createModel();
+		String modelFilePath = this.temporaryFolder.resolve("scored" + ModelFile.MODEL_FILE_EXTENSION).toString();
+		ModelFile.save(modelFilePath, savedModel);
+		TrainedModel loadedModel = ModelFile.load(modelFilePath);
+		
+		for (FeatureStorage featureStorage : FeatureStorage.values()) {
+			
+			FeaturesAndLabels featuresAndLabels = BinaryDatasetCacheTest.createData(featureStorage);
+			for (int rowNumber = 0; rowNumber < featuresAndLabels.getLabels().length; ++rowNumber) {
+				assertEquals(savedModel.getMargin(featuresAndLabels.getFeatureMatrix(), rowNumber), loadedModel.getMargin(featuresAndLabels.getFeatureMatrix(), rowNumber));
+			}
+		}
+		
+	}
+	
+	@Test
+	public void failedSaveKeepsThePreviousModel() throws IOException {
+		
+		final String modelFilePath = this.temporaryFolder.resolve("kept" + ModelFile.MODEL_FILE_EXTENSION).toString();
+		ModelFile.save(modelFilePath, createModel());
+		
+		Map<String, String> invalidMetadata = new LinkedHashMap<String, String>();
+		invalidMetadata.put("line", "first\nsecond");
+		final TrainedModel invalidModel = new TrainedModel(new double[] {1.0}, 0.1, 1.0, invalidMetadata);
+		assertThrows(IllegalArgumentException.class, new Executable() {
+			
+			@Override
+			public void execute() throws IOException {
+				ModelFile.save(modelFilePath, invalidModel);
+			}
+			
+		});
+		
+		assertArrayEquals(WEIGHT_VECTOR, ModelFile.load(modelFilePath).getWeightVector());
+		assertEquals(1, new File(this.temporaryFolder.toString()).list().length);
+		
+	}
+	
+	@Test
+	public void modelWithoutWeightsIsRejected() {
+		
+		assertThrows(IllegalArgumentException.class, new Executable() {
+			
+			@Override
+			public void execute() {
+				new TrainedModel(new double[0], 0.1, 1.0);
+			}
+			
+		});
+		
+	}
+	
+	/**
+	 * @return model with a few weights and metadata entries
+	 */
+	private static TrainedModel createModel() {
+		
+		Map<String, String> trainingMetadata = new LinkedHashMap<String, String>();
+		trainingMetadata.put(TrainedModel.TRAINING_RECORDS_KEY, "4");
+		trainingMetadata.put(TrainedModel.CREATED_AT_KEY, "2024-01-01T00:00:00Z");
+		
+		return new TrainedModel(WEIGHT_VECTOR, 0.01, 100.0, trainingMetadata);
+		
+	}
+	
+}
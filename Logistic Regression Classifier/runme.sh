@@ -1,4 +1,4 @@
 #!/bin/bash
 clear
-javac -d bin -sourcepath src src/*.java
-java -classpath "bin" LogisticRegressionClassifierClient
+javac -d bin $(find core/src/main/java io/src/main/java cli/src/main/java -name "*.java")
+java -classpath "bin" logisticregression.cli.LogisticRegressionClassifierClient
@@ -0,0 +1,79 @@
+package logisticregression.server;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keep the most recent latencies in a ring so that percentiles can be reported. Recording is a single atomic increment
+ * and an array write, so request threads never wait for each other. Percentiles are computed from a sorted copy of the
+ * ring when they are asked for.
+ */
+public class LatencyRecorder {
+	
+	public static final int DEFAULT_NUMBER_OF_SAMPLES = 1 << 16;
+	
+	private final long[] latencySamples;
+	private final int sampleMask;
+	private final AtomicLong numberOfLatencies;
+	
+	/**
+	 * Constructor keeping the default number of samples
+	 */
+	public LatencyRecorder() {
+		this(DEFAULT_NUMBER_OF_SAMPLES);
+	}
+	
+	/**
+	 * Constructor
+	 * @param numberOfSamples number of most recent latencies to keep, rounded up to a power of two
+	 */
+	public LatencyRecorder(int numberOfSamples) {
+		
+		int ringSize = Integer.highestOneBit(Math.max(1, numberOfSamples - 1)) << 1;
+		this.latencySamples = new long[ringSize];
+		this.sampleMask = ringSize - 1;
+		this.numberOfLatencies = new AtomicLong();
+		
+	}
+	
+	/**
+	 * @param latencyNanoseconds
+	 */
+	public void record(long latencyNanoseconds) {
+		this.latencySamples[(int) (this.numberOfLatencies.getAndIncrement() & this.sampleMask)] = latencyNanoseconds;
+	}
+	
+	/**
+	 * @return number of latencies recorded so far
+	 */
+	public long getNumberOfLatencies() {
+		return this.numberOfLatencies.get();
+	}
+	
+	/**
+	 * @param percentile between 0 and 100
+	 * @return latency in nanoseconds below which the given percentage of the recent latencies fall, or 0 if there are none
+	 */
+	public long getPercentile(double percentile) {
+		
+		int numberOfSamples = (int) Math.min(this.numberOfLatencies.get(), this.latencySamples.length);
+		if (numberOfSamples == 0) {
+			return 0;
+		}
+		
+		long[] sortedSamples = Arrays.copyOf(this.latencySamples, numberOfSamples);
+		Arrays.sort(sortedSamples);
+		
+		int sampleIndex = (int) Math.ceil(percentile / 100.0 * numberOfSamples) - 1;
+		return sortedSamples[Math.max(0, Math.min(numberOfSamples - 1, sampleIndex))];
+		
+	}
+	
+	/**
+	 * @return number of latencies with the median and 99th percentile in microseconds
+	 */
+	public String getSummary() {
+		return "requests: " + getNumberOfLatencies() + ", p50: " + getPercentile(50.0) / 1000 + " us, p99: " + getPercentile(99.0) / 1000 + " us";
+	}
+	
+}
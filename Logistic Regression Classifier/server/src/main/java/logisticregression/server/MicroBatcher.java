@@ -0,0 +1,98 @@
+package logisticregression.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collect requests that arrive close together and score them as one batch on a single thread. A batch is scored as soon
+ * as it holds the maximum number of requests or the first request in it has waited for the maximum delay. The model is
+ * read once for each batch, so every request in a batch is scored by the same model version.
+ */
+public class MicroBatcher implements Runnable {
+	
+	private static final long IDLE_POLL_MILLISECONDS = 100;
+	
+	private final BlockingQueue<ScoringRequest> pendingRequests;
+	private final AtomicReference<ServedModel> servedModel;
+	private final int maximumBatchSize;
+	private final long maximumBatchDelayNanoseconds;
+	private volatile boolean running;
+	
+	/**
+	 * Constructor
+	 * @param servedModel holder of the model to score with, which may be swapped at any time
+	 * @param maximumBatchSize maximum number of requests in a batch
+	 * @param maximumBatchDelayMicroseconds longest time a request waits for others to join its batch
+	 */
+	public MicroBatcher(AtomicReference<ServedModel> servedModel, int maximumBatchSize, long maximumBatchDelayMicroseconds) {
+		
+		assert maximumBatchSize > 0 && maximumBatchDelayMicroseconds >= 0;
+		
+		this.pendingRequests = new LinkedBlockingQueue<ScoringRequest>();
+		this.servedModel = servedModel;
+		this.maximumBatchSize = maximumBatchSize;
+		this.maximumBatchDelayNanoseconds = TimeUnit.MICROSECONDS.toNanos(maximumBatchDelayMicroseconds);
+		this.running = true;
+		
+	}
+	
+	/**
+	 * @param scoringRequest request to be scored in the next batch
+	 */
+	public void submit(ScoringRequest scoringRequest) {
+		this.pendingRequests.add(scoringRequest);
+	}
+	
+	/**
+	 * Stop after the current batch
+	 */
+	public void stop() {
+		this.running = false;
+	}
+	
+	@Override
+	public void run() {
+		
+		List<ScoringRequest> batch = new ArrayList<ScoringRequest>(this.maximumBatchSize);
+		
+		try {
+			while (this.running) {
+				
+				ScoringRequest firstRequest = this.pendingRequests.poll(IDLE_POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+				if (firstRequest == null) {
+					continue;
+				}
+				
+				//Take whatever is already waiting, then wait for more until the batch is full or the first request is due
+				batch.add(firstRequest);
+				this.pendingRequests.drainTo(batch, this.maximumBatchSize - batch.size());
+				
+				long batchDeadline = firstRequest.getArrivalTime() + this.maximumBatchDelayNanoseconds;
+				while (batch.size() < this.maximumBatchSize) {
+					
+					long remainingDelay = batchDeadline - System.nanoTime();
+					ScoringRequest nextRequest = remainingDelay > 0 ? this.pendingRequests.poll(remainingDelay, TimeUnit.NANOSECONDS) : this.pendingRequests.poll();
+					if (nextRequest == null) {
+						break;
+					}
+					batch.add(nextRequest);
+				}
+				
+				ServedModel currentModel = this.servedModel.get();
+				for (ScoringRequest scoringRequest : batch) {
+					scoringRequest.score(currentModel.getModel(), currentModel.getVersion());
+				}
+				batch.clear();
+				
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,145 @@
+package logisticregression.server;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Send the records of a libsvm data file to a scoring server from several client threads and report the throughput and the
+ * latency percentiles seen by the clients, followed by the statistics reported by the server.
+ *
+ * Usage: ScoringLoadGenerator [server url] [data file] [number of requests] [number of client threads] [vectors per request]
+ */
+public class ScoringLoadGenerator {
+	
+	public static final String DEFAULT_SERVER_URL = "http://localhost:" + ScoringServerMain.DEFAULT_PORT;
+	public static final String DEFAULT_DATA_FILE_PATH = "data/a5a.test";
+	public static final int DEFAULT_NUMBER_OF_REQUESTS = 100000, DEFAULT_NUMBER_OF_CLIENT_THREADS = 16, DEFAULT_VECTORS_PER_REQUEST = 1;
+	
+	public static void main(String[] args) {
+		
+		String serverUrl = args.length > 0 ? args[0] : DEFAULT_SERVER_URL;
+		String dataFilePath = args.length > 1 ? args[1] : DEFAULT_DATA_FILE_PATH;
+		final int numberOfRequests = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_NUMBER_OF_REQUESTS;
+		int numberOfClientThreads = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_NUMBER_OF_CLIENT_THREADS;
+		int vectorsPerRequest = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_VECTORS_PER_REQUEST;
+		
+		try {
+			
+			final List<String> requestBodies = getRequestBodies(dataFilePath, vectorsPerRequest);
+			final HttpClient httpClient = HttpClient.newHttpClient();
+			final URI scoreUri = URI.create(serverUrl + ScoringServer.SCORE_PATH);
+			
+			final LatencyRecorder latencyRecorder = new LatencyRecorder(numberOfRequests);
+			final AtomicInteger requestCounter = new AtomicInteger();
+			final AtomicLong failedRequests = new AtomicLong();
+			
+			ExecutorService clientExecutor = Executors.newFixedThreadPool(numberOfClientThreads);
+			long startTime = System.nanoTime();
+			
+			for (int clientCounter = 0; clientCounter < numberOfClientThreads; ++clientCounter) {
+				clientExecutor.execute(new Runnable() {
+					
+					@Override
+					public void run() {
+						
+						for (int requestNumber = requestCounter.getAndIncrement(); requestNumber < numberOfRequests; requestNumber = requestCounter.getAndIncrement()) {
+							
+							HttpRequest httpRequest = HttpRequest.newBuilder(scoreUri).POST(HttpRequest.BodyPublishers.ofString(requestBodies.get(requestNumber % requestBodies.size()))).build();
+							long requestStartTime = System.nanoTime();
+							try {
+								
+								HttpResponse<String> httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+								if (httpResponse.statusCode() == 200) {
+									latencyRecorder.record(System.nanoTime() - requestStartTime);
+								} else {
+									failedRequests.incrementAndGet();
+								}
+								
+							} catch (IOException e) {
+								failedRequests.incrementAndGet();
+							} catch (InterruptedException e) {
+								Thread.currentThread().interrupt();
+								return;
+							}
+						}
+						
+					}
+					
+				});
+			}
+			
+			clientExecutor.shutdown();
+			clientExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+			
+			System.out.println("Client " + latencyRecorder.getSummary() + ", failed: " + failedRequests.get() + ", throughput: " + (long) (latencyRecorder.getNumberOfLatencies() / elapsedSeconds) + " requests per second");
+			
+			HttpRequest statsRequest = HttpRequest.newBuilder(URI.create(serverUrl + ScoringServer.STATS_PATH)).GET().build();
+			System.out.print("Server " + httpClient.send(statsRequest, HttpResponse.BodyHandlers.ofString()).body());
+			
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(0);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			System.exit(0);
+		}
+		
+	}
+	
+	/**
+	 * @param dataFilePath
+	 * @param vectorsPerRequest
+	 * @return request bodies, each holding a number of consecutive records of the data file
+	 * @throws IOException
+	 */
+	private static List<String> getRequestBodies(String dataFilePath, int vectorsPerRequest) throws IOException {
+		
+		List<String> requestBodies = new ArrayList<String>();
+		StringBuilder requestBody = new StringBuilder();
+		int vectorsInRequest = 0;
+		
+		BufferedReader dataFileReader = new BufferedReader(new FileReader(dataFilePath));
+		try {
+			
+			//The server ignores the label at the start of each record
+			String record;
+			while ((record = dataFileReader.readLine()) != null) {
+				
+				if (record.trim().isEmpty()) {
+					continue;
+				}
+				
+				requestBody.append(record).append('\n');
+				if (++vectorsInRequest == vectorsPerRequest) {
+					requestBodies.add(requestBody.toString());
+					requestBody.setLength(0);
+					vectorsInRequest = 0;
+				}
+			}
+			
+		} finally {
+			dataFileReader.close();
+		}
+		
+		if (vectorsInRequest > 0) {
+			requestBodies.add(requestBody.toString());
+		}
+		
+		return requestBodies;
+		
+	}
+	
+}
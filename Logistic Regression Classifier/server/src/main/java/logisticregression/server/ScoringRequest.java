@@ -0,0 +1,187 @@
+package logisticregression.server;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.TrainedModel;
+
+/**
+ * Feature vectors received in one request, waiting to be scored. Each line of the request is a sparse feature vector of
+ * feature number:value pairs in libsvm form. A leading label, as in a libsvm data file, is allowed and ignored. The
+ * request thread waits on the request until a batching thread has scored all its vectors.
+ */
+public class ScoringRequest {
+	
+	public static final char FEATURE_VALUE_SEPARATOR = ':';
+	
+	private int numberOfVectors;
+	private int[] vectorOffsets;
+	private int[] featureNumbers;
+	private double[] featureValues;
+	private double[] margins;
+	private long modelVersion;
+	private long arrivalTime;
+	private CountDownLatch scored;
+	
+	/**
+	 * Constructor
+	 * @param numberOfVectors
+	 * @param vectorOffsets start of each vector in the feature arrays, followed by the number of features
+	 * @param featureNumbers
+	 * @param featureValues
+	 */
+	public ScoringRequest(int numberOfVectors, int[] vectorOffsets, int[] featureNumbers, double[] featureValues) {
+		
+		this.numberOfVectors = numberOfVectors;
+		this.vectorOffsets = vectorOffsets;
+		this.featureNumbers = featureNumbers;
+		this.featureValues = featureValues;
+		this.margins = new double[numberOfVectors];
+		this.arrivalTime = System.nanoTime();
+		this.scored = new CountDownLatch(1);
+		
+	}
+	
+	/**
+	 * @param requestBody one feature vector on each line
+	 * @return request holding the parsed feature vectors
+	 * @throws IllegalArgumentException if a feature is not a positive feature number and a value separated by a colon
+	 */
+	public static ScoringRequest parse(String requestBody) {
+		
+		int numberOfVectors = 0, numberOfFeatures = 0;
+		int[] vectorOffsets = new int[8], featureNumbers = new int[64];
+		double[] featureValues = new double[64];
+		
+		int position = 0, bodyLength = requestBody.length();
+		while (position < bodyLength) {
+			
+			int lineEnd = requestBody.indexOf('\n', position);
+			if (lineEnd < 0) {
+				lineEnd = bodyLength;
+			}
+			
+			int firstFeature = numberOfFeatures;
+			boolean firstToken = true;
+			int tokenStart = position;
+			while (tokenStart < lineEnd) {
+				
+				//Find the next whitespace separated token
+				while (tokenStart < lineEnd && Character.isWhitespace(requestBody.charAt(tokenStart))) {
+					++tokenStart;
+				}
+				int tokenEnd = tokenStart;
+				while (tokenEnd < lineEnd && !Character.isWhitespace(requestBody.charAt(tokenEnd))) {
+					++tokenEnd;
+				}
+				if (tokenStart == tokenEnd) {
+					break;
+				}
+				
+				int separatorPosition = requestBody.indexOf(FEATURE_VALUE_SEPARATOR, tokenStart);
+				if (separatorPosition < 0 || separatorPosition >= tokenEnd) {
+					
+					//Only a label can appear without a separator, and only at the start of the line
+					if (!firstToken) {
+						throw new IllegalArgumentException("Expected feature number:value but found " + requestBody.substring(tokenStart, tokenEnd));
+					}
+					
+				} else {
+					
+					if (numberOfFeatures == featureNumbers.length) {
+						featureNumbers = Arrays.copyOf(featureNumbers, 2 * numberOfFeatures);
+						featureValues = Arrays.copyOf(featureValues, 2 * numberOfFeatures);
+					}
+					
+					try {
+						featureNumbers[numberOfFeatures] = Integer.parseInt(requestBody, tokenStart, separatorPosition, 10);
+						featureValues[numberOfFeatures] = Double.parseDouble(requestBody.substring(separatorPosition + 1, tokenEnd));
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException("Invalid feature " + requestBody.substring(tokenStart, tokenEnd));
+					}
+					
+					if (featureNumbers[numberOfFeatures] < 1) {
+						throw new IllegalArgumentException("Feature numbers start from 1 but found " + featureNumbers[numberOfFeatures]);
+					}
+					++numberOfFeatures;
+					
+				}
+				
+				firstToken = false;
+				tokenStart = tokenEnd;
+			}
+			
+			//Blank lines are skipped
+			if (!firstToken) {
+				
+				if (numberOfVectors + 1 >= vectorOffsets.length) {
+					vectorOffsets = Arrays.copyOf(vectorOffsets, 2 * vectorOffsets.length);
+				}
+				vectorOffsets[numberOfVectors++] = firstFeature;
+			}
+			
+			position = lineEnd + 1;
+		}
+		
+		vectorOffsets[numberOfVectors] = numberOfFeatures;
+		return new ScoringRequest(numberOfVectors, vectorOffsets, featureNumbers, featureValues);
+		
+	}
+	
+	/**
+	 * Score all the vectors with a model and wake up the waiting request thread
+	 * @param model
+	 * @param modelVersion
+	 */
+	public void score(TrainedModel model, long modelVersion) {
+		
+		for (int vectorNumber = 0; vectorNumber < this.numberOfVectors; ++vectorNumber) {
+			this.margins[vectorNumber] = model.getMargin(this.featureNumbers, this.featureValues, this.vectorOffsets[vectorNumber], this.vectorOffsets[vectorNumber + 1]);
+		}
+		this.modelVersion = modelVersion;
+		
+		this.scored.countDown();
+		
+	}
+	
+	/**
+	 * @param timeout
+	 * @param timeUnit
+	 * @return true if the request was scored before the timeout
+	 * @throws InterruptedException
+	 */
+	public boolean awaitScores(long timeout, TimeUnit timeUnit) throws InterruptedException {
+		return this.scored.await(timeout, timeUnit);
+	}
+	
+	/**
+	 * @return number of feature vectors in the request
+	 */
+	public int getNumberOfVectors() {
+		return this.numberOfVectors;
+	}
+	
+	/**
+	 * @param vectorNumber
+	 * @return margin of a vector once the request has been scored
+	 */
+	public double getMargin(int vectorNumber) {
+		return this.margins[vectorNumber];
+	}
+	
+	/**
+	 * @return version of the model that scored the request
+	 */
+	public long getModelVersion() {
+		return this.modelVersion;
+	}
+	
+	/**
+	 * @return System.nanoTime() when the request was received
+	 */
+	public long getArrivalTime() {
+		return this.arrivalTime;
+	}
+	
+}
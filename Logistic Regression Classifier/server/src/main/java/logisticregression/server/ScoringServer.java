@@ -0,0 +1,272 @@
+package logisticregression.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import logisticregression.core.BinaryDataLabel;
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.core.TrainedModel;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP service that scores sparse feature vectors with a trained model.
+ *
+ * POST /score with one feature vector of feature number:value pairs on each line returns one line for each vector with the
+ * predicted label and the probability of the positive label. GET /stats returns the number of requests, the median and
+ * 99th percentile latency and the model version. Requests are handled on virtual threads when the Java runtime has them,
+ * and are scored in micro batches. A new model can be swapped in at any time without blocking requests being scored.
+ *
+ * The response headers and body are written separately, so without TCP_NODELAY each response waits for the client to
+ * acknowledge the headers, which adds tens of milliseconds. The JDK only turns it on through the NO_DELAY_PROPERTY system
+ * property, which applies to every HTTP server in the process and is read when the first one is created, so it is left
+ * to the application, see enableNoDelay.
+ */
+public class ScoringServer {
+	
+	public static final String SCORE_PATH = "/score", STATS_PATH = "/stats", MODEL_VERSION_HEADER = "X-Model-Version";
+	public static final int DEFAULT_MAXIMUM_BATCH_SIZE = 256, REQUEST_TIMEOUT_SECONDS = 10, STOP_DELAY_SECONDS = 1;
+	public static final long DEFAULT_MAXIMUM_BATCH_DELAY_MICROSECONDS = 100;
+	public static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+	
+	private final HttpServer httpServer;
+	private final ExecutorService requestExecutor;
+	private final AtomicReference<ServedModel> servedModel;
+	private final AtomicLong modelVersionCounter;
+	private final MicroBatcher microBatcher;
+	private final Thread microBatcherThread;
+	private final LatencyRecorder latencyRecorder;
+	
+	/**
+	 * Turn on TCP_NODELAY for the HTTP servers of this process, unless the property has been set already, for example to
+	 * false on the command line. This has to be called before the first HTTP server of the process is created.
+	 */
+	public static void enableNoDelay() {
+		
+		if (System.getProperty(NO_DELAY_PROPERTY) == null) {
+			System.setProperty(NO_DELAY_PROPERTY, "true");
+		}
+		
+	}
+	
+	/**
+	 * Constructor using the default batch size and delay
+	 * @param address address to listen on, for example new InetSocketAddress("localhost", 8080)
+	 * @param model first model to serve
+	 * @throws IOException if the address cannot be bound
+	 */
+	public ScoringServer(InetSocketAddress address, TrainedModel model) throws IOException {
+		this(address, model, DEFAULT_MAXIMUM_BATCH_SIZE, DEFAULT_MAXIMUM_BATCH_DELAY_MICROSECONDS);
+	}
+	
+	/**
+	 * Constructor
+	 * @param address address to listen on
+	 * @param model first model to serve
+	 * @param maximumBatchSize maximum number of requests scored together
+	 * @param maximumBatchDelayMicroseconds longest time a request waits for others to join its batch
+	 * @throws IOException if the address cannot be bound
+	 */
+	public ScoringServer(InetSocketAddress address, TrainedModel model, int maximumBatchSize, long maximumBatchDelayMicroseconds) throws IOException {
+		
+		this.modelVersionCounter = new AtomicLong();
+		this.servedModel = new AtomicReference<ServedModel>(new ServedModel(model, this.modelVersionCounter.incrementAndGet()));
+		this.latencyRecorder = new LatencyRecorder();
+		
+		this.microBatcher = new MicroBatcher(this.servedModel, maximumBatchSize, maximumBatchDelayMicroseconds);
+		this.microBatcherThread = new Thread(this.microBatcher, "scoring-micro-batcher");
+		this.microBatcherThread.setDaemon(true);
+		
+		this.requestExecutor = createRequestExecutor();
+		this.httpServer = HttpServer.create(address, 0);
+		this.httpServer.setExecutor(this.requestExecutor);
+		this.httpServer.createContext(SCORE_PATH, new ScoreHandler());
+		this.httpServer.createContext(STATS_PATH, new StatsHandler());
+		
+	}
+	
+	/**
+	 * Start accepting requests
+	 */
+	public void start() {
+		
+		this.microBatcherThread.start();
+		this.httpServer.start();
+		
+	}
+	
+	/**
+	 * Stop accepting requests and wait briefly for requests being handled
+	 */
+	public void stop() {
+		
+		this.httpServer.stop(STOP_DELAY_SECONDS);
+		this.microBatcher.stop();
+		this.requestExecutor.shutdown();
+		
+		try {
+			this.microBatcherThread.join(TimeUnit.SECONDS.toMillis(STOP_DELAY_SECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+	}
+	
+	/**
+	 * Serve a new model. Batches already being scored finish with the previous model.
+	 * @param model
+	 * @return version number of the new model
+	 */
+	public long swapModel(TrainedModel model) {
+		
+		long modelVersion = this.modelVersionCounter.incrementAndGet();
+		this.servedModel.set(new ServedModel(model, modelVersion));
+		return modelVersion;
+		
+	}
+	
+	/**
+	 * @return version number of the model being served
+	 */
+	public long getModelVersion() {
+		return this.servedModel.get().getVersion();
+	}
+	
+	/**
+	 * @return latencies of the scoring requests, measured from when the request was read to when the response was sent
+	 */
+	public LatencyRecorder getLatencyRecorder() {
+		return this.latencyRecorder;
+	}
+	
+	/**
+	 * @return address the server is listening on, with the actual port if port 0 was asked for
+	 */
+	public InetSocketAddress getAddress() {
+		return this.httpServer.getAddress();
+	}
+	
+	/**
+	 * @return one thread per request on a virtual thread if the Java runtime supports them, otherwise a cached thread pool
+	 */
+	private static ExecutorService createRequestExecutor() {
+		
+		//Virtual threads are only available from Java 21, so look them up by name to keep running on older versions
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+		
+	}
+	
+	/**
+	 * @param httpExchange
+	 * @param statusCode
+	 * @param responseBody
+	 * @throws IOException
+	 */
+	private static void sendResponse(HttpExchange httpExchange, int statusCode, String responseBody) throws IOException {
+		
+		byte[] responseBytes = responseBody.getBytes(StandardCharsets.US_ASCII);
+		httpExchange.getResponseHeaders().set("Content-Type", "text/plain");
+		httpExchange.sendResponseHeaders(statusCode, responseBytes.length);
+		
+		OutputStream responseStream = httpExchange.getResponseBody();
+		try {
+			responseStream.write(responseBytes);
+		} finally {
+			responseStream.close();
+		}
+		
+	}
+	
+	/**
+	 * Score the feature vectors in the body of a POST request
+	 */
+	private class ScoreHandler implements HttpHandler {
+		
+		@Override
+		public void handle(HttpExchange httpExchange) throws IOException {
+			
+			try {
+				
+				if (!"POST".equals(httpExchange.getRequestMethod())) {
+					sendResponse(httpExchange, 405, "Use POST with one feature vector on each line\n");
+					return;
+				}
+				
+				InputStream requestStream = httpExchange.getRequestBody();
+				String requestBody;
+				try {
+					requestBody = new String(requestStream.readAllBytes(), StandardCharsets.US_ASCII);
+				} finally {
+					requestStream.close();
+				}
+				
+				ScoringRequest scoringRequest;
+				try {
+					scoringRequest = ScoringRequest.parse(requestBody);
+				} catch (IllegalArgumentException e) {
+					sendResponse(httpExchange, 400, e.getMessage() + "\n");
+					return;
+				}
+				
+				microBatcher.submit(scoringRequest);
+				if (!scoringRequest.awaitScores(REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					sendResponse(httpExchange, 503, "Scoring timed out\n");
+					return;
+				}
+				
+				StringBuilder responseBody = new StringBuilder(32 * scoringRequest.getNumberOfVectors());
+				for (int vectorNumber = 0; vectorNumber < scoringRequest.getNumberOfVectors(); ++vectorNumber) {
+					
+					double margin = scoringRequest.getMargin(vectorNumber);
+					responseBody.append(margin >= 0 ? BinaryDataLabel.POSITIVE_LABEL.getValue() : BinaryDataLabel.NEGATIVE_LABEL.getValue());
+					responseBody.append(' ').append(LogisticRegressionClassifier.getProbability(margin)).append('\n');
+				}
+				
+				httpExchange.getResponseHeaders().set(MODEL_VERSION_HEADER, Long.toString(scoringRequest.getModelVersion()));
+				sendResponse(httpExchange, 200, responseBody.toString());
+				latencyRecorder.record(System.nanoTime() - scoringRequest.getArrivalTime());
+				
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				sendResponse(httpExchange, 503, "Interrupted\n");
+			} finally {
+				httpExchange.close();
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * Report the latency percentiles and the model version
+	 */
+	private class StatsHandler implements HttpHandler {
+		
+		@Override
+		public void handle(HttpExchange httpExchange) throws IOException {
+			
+			try {
+				sendResponse(httpExchange, 200, latencyRecorder.getSummary() + ", model version: " + getModelVersion() + "\n");
+			} finally {
+				httpExchange.close();
+			}
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,103 @@
+package logisticregression.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import logisticregression.core.LogisticRegressionClassifier;
+import logisticregression.core.TrainedModel;
+import logisticregression.core.TrainingInstrumentation;
+import logisticregression.io.LibSvmMinibatchIterator;
+import logisticregression.io.LibSvmRecordReader;
+import logisticregression.io.ModelFile;
+
+/**
+ * Train a model on a libsvm data file and serve it. The server starts after the first epoch, and the model from each
+ * further epoch is swapped in while requests are being served. A saved model file, with the .model extension, is served
+ * as it is without training. The latency percentiles are printed periodically, and the training and scoring timers can
+ * be watched through JMX.
+ *
+ * Usage: ScoringServerMain [port] [training data file or model file] [number of epochs] [learning rate] [variance value]
+ */
+public class ScoringServerMain {
+	
+	public static final int DEFAULT_PORT = 8080, DEFAULT_NUMBER_OF_EPOCHS = 10, REPORT_INTERVAL_SECONDS = 10;
+	public static final String DEFAULT_TRAINING_DATA_FILE_PATH = "data/a5a.train";
+	public static final double DEFAULT_LEARNING_RATE = 0.1, DEFAULT_VARIANCE_VALUE = 100.0;
+	
+	public static void main(String[] args) {
+		
+		//This process only runs the scoring server, so all its HTTP servers can send responses without delay
+		ScoringServer.enableNoDelay();
+		
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		String trainingDataFilePath = args.length > 1 ? args[1] : DEFAULT_TRAINING_DATA_FILE_PATH;
+		int numberOfEpochs = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_NUMBER_OF_EPOCHS;
+		double learningRate = args.length > 3 ? Double.parseDouble(args[3]) : DEFAULT_LEARNING_RATE;
+		double varianceValue = args.length > 4 ? Double.parseDouble(args[4]) : DEFAULT_VARIANCE_VALUE;
+		
+		LogisticRegressionClassifier classifier = new LogisticRegressionClassifier();
+		classifier.setLearningRateAndVarianceValue(learningRate, varianceValue);
+		TrainingInstrumentation.getSharedInstance().registerMBeans("shared");
+		
+		try {
+			
+			//A saved model is served without training
+			TrainedModel firstModel;
+			if (ModelFile.isModelFile(trainingDataFilePath)) {
+				firstModel = ModelFile.load(trainingDataFilePath);
+				numberOfEpochs = 0;
+			} else {
+				trainEpoch(classifier, trainingDataFilePath);
+				firstModel = classifier.getTrainedModel();
+			}
+			
+			final ScoringServer scoringServer = new ScoringServer(new InetSocketAddress(port), firstModel);
+			scoringServer.start();
+			System.out.println("Scoring server listening on port " + scoringServer.getAddress().getPort());
+			
+			ScheduledExecutorService reportExecutor = Executors.newSingleThreadScheduledExecutor();
+			reportExecutor.scheduleAtFixedRate(new Runnable() {
+				
+				@Override
+				public void run() {
+					System.out.println(scoringServer.getLatencyRecorder().getSummary() + ", model version: " + scoringServer.getModelVersion());
+				}
+				
+			}, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+			
+			//Keep training and serve the model from each epoch
+			for (int epochCounter = 1; epochCounter < numberOfEpochs; ++epochCounter) {
+				trainEpoch(classifier, trainingDataFilePath);
+				System.out.println("Serving model version " + scoringServer.swapModel(classifier.getTrainedModel()) + " after epoch " + (epochCounter + 1));
+			}
+			
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(0);
+		} finally {
+			classifier.closeLogFiles();
+		}
+		
+	}
+	
+	/**
+	 * Train on the data file one minibatch at a time
+	 * @param classifier
+	 * @param trainingDataFilePath
+	 * @throws IOException
+	 */
+	private static void trainEpoch(LogisticRegressionClassifier classifier, String trainingDataFilePath) throws IOException {
+		
+		LibSvmRecordReader libSvmRecordReader = new LibSvmRecordReader(trainingDataFilePath);
+		try {
+			classifier.partialFit(new LibSvmMinibatchIterator(libSvmRecordReader, LibSvmMinibatchIterator.DEFAULT_MINIBATCH_SIZE));
+		} finally {
+			libSvmRecordReader.close();
+		}
+		
+	}
+	
+}
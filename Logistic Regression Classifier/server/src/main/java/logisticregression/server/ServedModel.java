@@ -0,0 +1,28 @@
+package logisticregression.server;
+
+import logisticregression.core.TrainedModel;
+
+/**
+ * Model being served together with its version number, so that both can be swapped in one step
+ */
+public class ServedModel {
+	
+	private final TrainedModel model;
+	private final long version;
+	
+	//Constructor
+	public ServedModel(TrainedModel model, long version) {
+		this.model = model;
+		this.version = version;
+	}
+	
+	//Getters
+	public TrainedModel getModel() {
+		return model;
+	}
+	
+	public long getVersion() {
+		return version;
+	}
+	
+}